@@ -0,0 +1,63 @@
+import client from './client';
+import useAuthStore from '../store/authStore';
+
+const MAX_RETRY_MS = 60000;
+
+// Parses one server-sent event block ("event:" / "data:" lines). Comment lines
+// (heartbeats) start with ":" and are skipped.
+function parseEvent(block) {
+  let event = 'message';
+  const data = [];
+  for (const line of block.split('\n')) {
+    if (line.startsWith('event:')) event = line.slice(6).trim();
+    else if (line.startsWith('data:')) data.push(line.slice(5).replace(/^ /, ''));
+  }
+  return data.length ? { event, data: data.join('\n') } : null;
+}
+
+// Opens a Server-Sent Events stream and calls handlers[eventName](parsedJson) as
+// events arrive, reconnecting with backoff; onOpen runs on every (re)connect.
+// Uses fetch rather than EventSource, which cannot send the Authorization header.
+// Returns a function that closes the stream.
+export function openEventStream(path, handlers, { requireAuth = false, onOpen } = {}) {
+  const controller = new AbortController();
+  let retryMs = 1000;
+
+  const connect = async () => {
+    const token = useAuthStore.getState().token;
+    if (requireAuth && !token) return;
+    try {
+      const headers = { Accept: 'text/event-stream' };
+      if (token) headers.Authorization = `Bearer ${token}`;
+      const res = await fetch(`${client.defaults.baseURL}${path}`, { headers, signal: controller.signal });
+      if (res.status === 401 || res.status === 403 || res.status === 404) return;
+      if (!res.ok || !res.body) throw new Error(`stream ${res.status}`);
+      retryMs = 1000;
+      onOpen?.();
+
+      const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+      let buffer = '';
+      for (;;) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += value.replace(/\r\n?/g, '\n');
+        let end;
+        while ((end = buffer.indexOf('\n\n')) >= 0) {
+          const parsed = parseEvent(buffer.slice(0, end));
+          buffer = buffer.slice(end + 2);
+          const handler = parsed && handlers[parsed.event];
+          if (handler) handler(JSON.parse(parsed.data));
+        }
+      }
+    } catch {
+      // network error: fall through to reconnect
+    }
+    // Closed by the server (stream timeout, redeploy) or the network: reconnect
+    if (controller.signal.aborted) return;
+    setTimeout(connect, retryMs + Math.random() * 1000);
+    retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+  };
+
+  connect();
+  return () => controller.abort();
+}
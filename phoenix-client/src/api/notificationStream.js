@@ -0,0 +1,10 @@
+import { openEventStream } from './eventStream';
+
+// Calls onUnread(count) / onNotification(n) as the server pushes them.
+// Returns a function that closes the stream.
+export function subscribeNotifications({ onUnread, onNotification }) {
+  return openEventStream('/api/notifications/stream', {
+    unread: (data) => onUnread(data.count ?? 0),
+    notification: onNotification,
+  }, { requireAuth: true });
+}
@@ -3,6 +3,7 @@ import { Link, useNavigate } from 'react-router-dom';
 import useAuthStore from '../store/authStore';
 import { useDarkMode } from '../hooks/useDarkMode';
 import client from '../api/client';
+import { subscribeNotifications } from '../api/notificationStream';
 
 function timeAgo(dateStr) {
   const diff = Date.now() - new Date(dateStr).getTime();
@@ -30,24 +31,27 @@ export default function Navbar() {
   const [notifications, setNotifications] = useState([]);
   const [loadingNotifs, setLoadingNotifs] = useState(false);
   const notifRef = useRef(null);
+  const notifOpenRef = useRef(false);
 
-  const fetchUnreadCount = useCallback(async () => {
-    if (!isAuthenticated) return;
-    try {
-      const res = await client.get('/api/notifications/unread-count');
-      setNotifCount(res.data.count ?? 0);
-    } catch {
-      // silently ignore
-    }
-  }, [isAuthenticated]);
+  const fetchNotifications = useCallback(async () => {
+    const res = await client.get('/api/notifications?page=0&size=15');
+    setNotifications(res.data.content ?? []);
+  }, []);
+
+  // Unread count and new notifications are pushed by the server as they happen
+  useEffect(() => {
+    notifOpenRef.current = notifOpen;
+  }, [notifOpen]);
 
-  // Poll unread count every 30 seconds
   useEffect(() => {
     if (!isAuthenticated) { setNotifCount(0); return; }
-    fetchUnreadCount();
-    const interval = setInterval(fetchUnreadCount, 30000);
-    return () => clearInterval(interval);
-  }, [isAuthenticated, fetchUnreadCount]);
+    return subscribeNotifications({
+      onUnread: setNotifCount,
+      onNotification: () => {
+        if (notifOpenRef.current) fetchNotifications().catch(() => {});
+      },
+    });
+  }, [isAuthenticated, fetchNotifications]);
 
   useEffect(() => {
     const handler = (e) => {
@@ -68,8 +72,7 @@ export default function Navbar() {
     if (opening) {
       setLoadingNotifs(true);
       try {
-        const res = await client.get('/api/notifications?page=0&size=15');
-        setNotifications(res.data.content ?? []);
+        await fetchNotifications();
         setNotifCount(0);
       } catch {
         // ignore
@@ -253,7 +256,7 @@ export default function Navbar() {
                         <p className="text-xs text-gray-500 dark:text-slate-400 truncate mt-0.5">{user?.email}</p>
                       </div>
                       <button
-                        onClick={() => { navigate(`/profile/${encodeURIComponent(user?.name?.trim())}`); setDropdownOpen(false); }}
+                        onClick={() => { navigate(`/profile/${encodeURIComponent(user?.handle ?? user?.name?.trim())}`); setDropdownOpen(false); }}
                         className="flex items-center gap-2.5 w-full px-4 py-2.5 text-sm text-gray-700 dark:text-slate-300 hover:bg-gray-50 dark:hover:bg-slate-800 transition-colors"
                       >
                         <svg className="w-4 h-4 text-gray-400 dark:text-slate-500" fill="none" stroke="currentColor" viewBox="0 0 24 24">
@@ -425,7 +428,7 @@ export default function Navbar() {
                   Write a story
                 </Link>
                 <button
-                  onClick={() => { navigate(`/profile/${encodeURIComponent(user?.name?.trim())}`); setMobileOpen(false); }}
+                  onClick={() => { navigate(`/profile/${encodeURIComponent(user?.handle ?? user?.name?.trim())}`); setMobileOpen(false); }}
                   className="flex items-center gap-2 w-full text-left px-3 py-2.5 text-sm font-medium text-gray-700 dark:text-slate-300 hover:bg-gray-50 dark:hover:bg-slate-800 rounded-xl transition-colors"
                 >
                   <svg className="w-4 h-4 text-gray-400" fill="none" stroke="currentColor" viewBox="0 0 24 24">
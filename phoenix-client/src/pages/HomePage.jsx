@@ -91,6 +91,8 @@ export default function HomePage() {
         url = `/api/posts/trending?page=${currentPage}&size=${pageSize}`;
       } else if (activeTab === 'following') {
         url = `/api/posts/following?page=${currentPage}&size=${pageSize}`;
+      } else if (sortOption === 'recommended' && isAuthenticated && !debouncedSearchQuery.trim() && !selectedTag) {
+        url = `/api/posts/for-you?page=${currentPage}&size=${pageSize}`;
       } else {
         url = `/api/posts?page=${currentPage}&size=${pageSize}&sort=${encodeURIComponent(sortOption)}`;
         if (debouncedSearchQuery.trim()) url += `&search=${encodeURIComponent(debouncedSearchQuery.trim())}`;
@@ -186,6 +188,7 @@ export default function HomePage() {
             onChange={handleSortChange}
             className="sm:w-44 px-4 py-2.5 text-sm bg-white dark:bg-slate-900 border border-gray-200 dark:border-slate-700 rounded-full text-gray-700 dark:text-slate-300 focus:outline-none focus:ring-2 focus:ring-green-500/30 focus:border-green-500 transition-colors"
           >
+            {isAuthenticated && <option value="recommended">Recommended</option>}
             <option value="newest">Newest first</option>
             <option value="oldest">Oldest first</option>
             <option value="mostLiked">Most liked</option>
@@ -291,7 +294,7 @@ export default function HomePage() {
                           {post.authorName?.charAt(0)?.toUpperCase()}
                         </div>
                         <Link
-                          to={`/profile/${encodeURIComponent(post.authorName?.trim())}`}
+                          to={`/profile/${encodeURIComponent(post.authorHandle ?? post.authorName?.trim())}`}
                           onClick={(e) => e.stopPropagation()}
                           className="text-sm font-medium text-gray-700 dark:text-slate-300 hover:text-gray-900 dark:hover:text-white transition-colors"
                         >
@@ -18,8 +18,8 @@ export default function LoginPage() {
     setLoading(true);
     try {
       const response = await client.post('/api/auth/login', { email, password });
-      const { token, email: userEmail, name, role } = response.data.data;
-      login(token, { email: userEmail, name, role });
+      const { token, email: userEmail, name, handle, role } = response.data.data;
+      login(token, { email: userEmail, name, handle, role });
       navigate('/');
     } catch (err) {
       setError(err.response?.data?.message || 'Login failed');
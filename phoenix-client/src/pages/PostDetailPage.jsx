@@ -1,6 +1,7 @@
-import { useState, useEffect, useCallback } from 'react';
+import { useState, useEffect, useCallback, useRef } from 'react';
 import { useParams, useNavigate, Link } from 'react-router-dom';
 import client from '../api/client';
+import { openEventStream } from '../api/eventStream';
 import useAuthStore from '../store/authStore';
 import { formatRelativeTime } from '../utils/dateUtils';
 import { sanitizeHtml } from '../utils/sanitize';
@@ -41,7 +42,11 @@ export default function PostDetailPage() {
   const [relatedPosts, setRelatedPosts] = useState([]);
   const [seriesPosts, setSeriesPosts] = useState([]);
   const [reactLoading, setReactLoading] = useState(false);
+  const liveRef = useRef(false);
   const COMMENTS_PAGE_SIZE = 10;
+  const REPLIES_PAGE_SIZE = 20;
+  // Deeper replies line up with the sixth level rather than running off the page
+  const MAX_REPLY_INDENT = 5;
 
   const fetchPost = useCallback(async () => {
     try {
@@ -83,6 +88,15 @@ export default function PostDetailPage() {
         params: { type: reactionType }
       });
       const reactionData = response.data.data;
+      // While the live stream is open our own reaction arrives with everyone else's
+      if (liveRef.current) {
+        setPost(prev => ({
+          ...prev,
+          currentUserReaction: reactionData.currentUserReaction,
+          likedByCurrentUser: reactionData.currentUserReaction != null
+        }));
+        return;
+      }
       setPost(prev => ({
         ...prev,
         reactionCounts: reactionData.reactionCounts,
@@ -120,11 +134,71 @@ export default function PostDetailPage() {
     finally { setCommentsLoading(false); }
   }, [id]);
 
+  // Each comment arrives with its first few replies; the rest are paged in by cursor
+  const fetchMoreReplies = async (commentId, cursor) => {
+    try {
+      const response = await client.get(`/api/posts/${id}/comments/${commentId}/replies`, { params: { cursor, size: REPLIES_PAGE_SIZE } });
+      const paged = response.data.data;
+      setComments(prev => prev.map(c => c.id === commentId
+        ? { ...c, replies: [...c.replies, ...paged.content], repliesCursor: paged.nextCursor }
+        : c));
+    } catch { console.error('Failed to load replies'); }
+  };
+
   useEffect(() => {
     fetchPost();
     fetchComments(0);
   }, [fetchPost, fetchComments]);
 
+  // Live counts: the server pushes changes to reactions, comments and views
+  useEffect(() => {
+    if (!id) return;
+    const applyDelta = (d) => setPost(prev => {
+      if (!prev) return prev;
+      const reactionCounts = { ...(prev.reactionCounts || {}) };
+      Object.entries(d.reactionCounts || {}).forEach(([type, change]) => {
+        reactionCounts[type] = Math.max(0, (reactionCounts[type] || 0) + change);
+      });
+      const totalReactions = Math.max(0, (prev.totalReactions || 0) + d.totalReactions);
+      return {
+        ...prev,
+        reactionCounts,
+        totalReactions,
+        likeCount: totalReactions,
+        commentCount: Math.max(0, (prev.commentCount || 0) + d.commentCount),
+        viewCount: (prev.viewCount || 0) + d.viewCount,
+      };
+    });
+    const applyPresence = (p) => setPost(prev => prev && ({ ...prev, readingNow: p.readingNow }));
+    const close = openEventStream(`/api/posts/${id}/live`, { engagement: applyDelta, presence: applyPresence }, {
+      onOpen: () => {
+        // Changes made while disconnected were missed: reload the counts (without recording a view)
+        if (liveRef.current) {
+          client.get(`/api/posts/${id}/reactions`).then(res => {
+            const r = res.data.data;
+            setPost(prev => prev && ({ ...prev, reactionCounts: r.reactionCounts, totalReactions: r.totalReactions, likeCount: r.totalReactions }));
+          }).catch(() => {});
+        }
+        liveRef.current = true;
+      },
+    });
+    return () => { liveRef.current = false; close(); };
+  }, [id]);
+
+  // "Reading now" heartbeat; the server tells anonymous readers apart by address
+  useEffect(() => {
+    if (!id) return;
+    const beat = () => {
+      if (document.visibilityState !== 'visible') return;
+      client.post(`/api/posts/${id}/presence`)
+        .then(res => setPost(prev => prev && ({ ...prev, readingNow: res.data.data.readingNow })))
+        .catch(() => {});
+    };
+    beat();
+    const interval = setInterval(beat, 30000);
+    return () => clearInterval(interval);
+  }, [id]);
+
   useEffect(() => {
     if (!id) return;
     client.get(`/api/posts/${id}/related`).then(res => {
@@ -347,7 +421,7 @@ export default function PostDetailPage() {
                     {postAuthorInitial}
                   </div>
                   <Link
-                    to={`/profile/${encodeURIComponent(postAuthorName)}`}
+                    to={`/profile/${encodeURIComponent(post.authorHandle ?? postAuthorName)}`}
                     className="font-semibold text-gray-900 dark:text-white hover:text-green-600 dark:hover:text-green-400 transition-colors"
                   >
                     {postAuthorName}
@@ -365,6 +439,12 @@ export default function PostDetailPage() {
                 <span>{post.readingTimeMinutes || 1} min read</span>
                 <span className="text-gray-300 dark:text-slate-700">·</span>
                 <span>{post.viewCount || 0} views</span>
+                {post.readingNow > 1 && (
+                  <>
+                    <span className="text-gray-300 dark:text-slate-700">·</span>
+                    <span className="text-emerald-600 dark:text-emerald-400 font-medium">{post.readingNow} reading now</span>
+                  </>
+                )}
               </div>
             </div>
 
@@ -678,7 +758,7 @@ export default function PostDetailPage() {
                           {commentAuthorName.charAt(0).toUpperCase()}
                         </div>
                         <Link
-                          to={`/profile/${encodeURIComponent(commentAuthorName)}`}
+                          to={`/profile/${encodeURIComponent(comment.authorHandle ?? commentAuthorName)}`}
                           className="text-sm font-semibold text-gray-900 dark:text-white hover:text-green-600 dark:hover:text-green-400 transition-colors"
                         >
                           {commentAuthorName}
@@ -719,7 +799,7 @@ export default function PostDetailPage() {
                             onClick={() => setReplyingToId(replyingToId === comment.id ? null : comment.id)}
                             className="text-xs font-medium text-gray-400 dark:text-slate-500 hover:text-green-600 dark:hover:text-green-400 transition-colors"
                           >
-                            {replyingToId === comment.id ? 'Cancel' : `↩ Reply${comment.replies?.length ? ` · ${comment.replies.length}` : ''}`}
+                            {replyingToId === comment.id ? 'Cancel' : `↩ Reply${comment.replyCount ? ` · ${comment.replyCount}` : ''}`}
                           </button>
                         </div>
                       )}
@@ -754,13 +834,13 @@ export default function PostDetailPage() {
                             const replyAuthorName = (reply.authorName || 'Unknown User').trim();
                             const replyColor = colorFromString(replyAuthorName);
                             return (
-                              <div key={reply.id} className="pt-3 first:pt-0">
+                              <div key={reply.id} className="pt-3 first:pt-0" style={{ marginLeft: `${Math.min((reply.depth || 1) - 1, MAX_REPLY_INDENT) * 1.25}rem` }}>
                                 <div className="flex items-center gap-2 mb-1.5">
                                   <div className={`w-6 h-6 ${replyColor} rounded-full flex items-center justify-center text-white text-xs font-bold flex-shrink-0`}>
                                     {replyAuthorName.charAt(0).toUpperCase()}
                                   </div>
                                   <Link
-                                    to={`/profile/${encodeURIComponent(replyAuthorName)}`}
+                                    to={`/profile/${encodeURIComponent(reply.authorHandle ?? replyAuthorName)}`}
                                     className="text-sm font-semibold text-gray-900 dark:text-white hover:text-green-600 dark:hover:text-green-400 transition-colors"
                                   >
                                     {replyAuthorName}
@@ -793,9 +873,46 @@ export default function PostDetailPage() {
                                 ) : (
                                   <p className="ml-8 text-sm text-gray-700 dark:text-slate-300 whitespace-pre-wrap leading-relaxed">{reply.content}</p>
                                 )}
+                                {isAuthenticated && editingCommentId !== reply.id && (
+                                  <div className="ml-8 mt-1">
+                                    <button
+                                      onClick={() => setReplyingToId(replyingToId === reply.id ? null : reply.id)}
+                                      className="text-xs font-medium text-gray-400 dark:text-slate-500 hover:text-green-600 dark:hover:text-green-400 transition-colors"
+                                    >
+                                      {replyingToId === reply.id ? 'Cancel' : '↩ Reply'}
+                                    </button>
+                                  </div>
+                                )}
+                                {replyingToId === reply.id && (
+                                  <div className="ml-8 mt-2 flex gap-2">
+                                    <textarea
+                                      autoFocus
+                                      value={replyText}
+                                      onChange={(e) => setReplyText(e.target.value)}
+                                      placeholder={`Reply to ${replyAuthorName}…`}
+                                      className="flex-1 px-3 py-2 text-sm border border-gray-200 dark:border-slate-700 bg-gray-50 dark:bg-slate-800 text-gray-900 dark:text-slate-100 placeholder-gray-400 dark:placeholder-slate-500 rounded-xl resize-none focus:outline-none focus:border-green-500 focus:ring-2 focus:ring-green-100 dark:focus:ring-green-900/20"
+                                      rows="2"
+                                    />
+                                    <button
+                                      onClick={() => handleReplySubmit(reply.id)}
+                                      disabled={!replyText.trim()}
+                                      className="self-end px-3 py-2 text-xs font-semibold bg-green-600 text-white rounded-xl hover:bg-green-700 transition-colors disabled:opacity-40 disabled:cursor-not-allowed"
+                                    >
+                                      Reply
+                                    </button>
+                                  </div>
+                                )}
                               </div>
                             );
                           })}
+                          {comment.repliesCursor && (
+                            <button
+                              onClick={() => fetchMoreReplies(comment.id, comment.repliesCursor)}
+                              className="pt-1 text-xs font-medium text-gray-400 dark:text-slate-500 hover:text-green-600 dark:hover:text-green-400 transition-colors"
+                            >
+                              View {comment.replyCount - comment.replies.length} more {comment.replyCount - comment.replies.length === 1 ? 'reply' : 'replies'}
+                            </button>
+                          )}
                         </div>
                       )}
                     </div>
@@ -16,6 +16,11 @@ export default function ProfilePage() {
   const navigate = useNavigate();
   const { user, updateUser } = useAuthStore();
   const [profile, setProfile] = useState(null);
+  // Post cards arrive a page at a time; the profile carries the first
+  const [posts, setPosts] = useState([]);
+  const [postsCursor, setPostsCursor] = useState(null);
+  const [loadingMorePosts, setLoadingMorePosts] = useState(false);
+  const [topPosts, setTopPosts] = useState({ views: [], likes: [] });
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [drafts, setDrafts] = useState([]);
@@ -54,13 +59,38 @@ export default function ProfilePage() {
         setLoading(true);
         const trimmedName = username?.trim();
         const response = await client.get(`/api/users/${encodeURIComponent(trimmedName)}`);
-        setProfile(response.data.data);
+        const data = response.data.data;
+        setProfile(data);
+        setPosts(data.posts?.content || []);
+        setPostsCursor(data.posts?.nextCursor || null);
       } catch { setError('User not found'); }
       finally { setLoading(false); }
     };
     fetchProfile();
   }, [username]);
 
+  const loadMorePosts = async () => {
+    if (!postsCursor) return;
+    setLoadingMorePosts(true);
+    try {
+      const res = await client.get(`/api/users/${encodeURIComponent(username?.trim())}/posts`, { params: { cursor: postsCursor } });
+      const paged = res.data.data;
+      setPosts(prev => [...prev, ...paged.content]);
+      setPostsCursor(paged.nextCursor || null);
+    } catch { console.error('Failed to load more posts'); }
+    finally { setLoadingMorePosts(false); }
+  };
+
+  useEffect(() => {
+    if (!isOwnProfile || activeTab !== 'stats') return;
+    const path = `/api/users/${encodeURIComponent(username?.trim())}/posts`;
+    Promise.all([
+      client.get(path, { params: { sort: 'views', size: 5 } }),
+      client.get(path, { params: { sort: 'likes', size: 5 } }),
+    ]).then(([views, likes]) => setTopPosts({ views: views.data.data.content, likes: likes.data.data.content }))
+      .catch(() => {});
+  }, [isOwnProfile, activeTab, username]);
+
   useEffect(() => {
     if (!isOwnProfile) return;
     client.get('/api/posts/my-drafts').then(res => setDrafts(res.data.data || [])).catch(() => {});
@@ -328,7 +358,7 @@ export default function ProfilePage() {
             </div>
           ) : (
             <div className="divide-y divide-gray-100 dark:divide-slate-800/80">
-              {profile.posts.map((post) => (
+              {posts.map((post) => (
                 <Link key={post.id} to={`/posts/${post.id}`} className="group block py-5 hover:bg-gray-50/60 dark:hover:bg-slate-900/40 -mx-3 px-3 rounded-xl transition-colors">
                   <h3 className="text-base sm:text-lg font-semibold text-gray-900 dark:text-white group-hover:text-green-700 dark:group-hover:text-green-400 transition-colors line-clamp-2 mb-1">
                     {post.title}
@@ -343,6 +373,17 @@ export default function ProfilePage() {
                   </div>
                 </Link>
               ))}
+              {postsCursor && (
+                <div className="flex justify-center pt-6">
+                  <button
+                    onClick={loadMorePosts}
+                    disabled={loadingMorePosts}
+                    className="px-5 py-2 text-sm font-semibold text-gray-700 dark:text-slate-300 bg-gray-100 dark:bg-slate-800 rounded-full hover:bg-gray-200 dark:hover:bg-slate-700 transition-colors disabled:opacity-50"
+                  >
+                    {loadingMorePosts ? 'Loading…' : 'Load more'}
+                  </button>
+                </div>
+              )}
             </div>
           )
         )}
@@ -394,14 +435,14 @@ export default function ProfilePage() {
         )}
         {/* Stats tab */}
         {activeTab === 'stats' && isOwnProfile && (() => {
-          const posts = profile.posts || [];
-          const totalViews = posts.reduce((s, p) => s + (p.viewCount || 0), 0);
-          const totalLikes = posts.reduce((s, p) => s + (p.likeCount || 0), 0);
-          const totalComments = posts.reduce((s, p) => s + (p.commentCount || 0), 0);
+          // Totals cover every published post; the table below only the ones loaded so far
+          const totalViews = profile.totalViews || 0;
+          const totalLikes = profile.totalLikes || 0;
+          const totalComments = profile.totalComments || 0;
           const totalFollowers = profile.followersCount || 0;
 
-          const byViews = [...posts].sort((a, b) => (b.viewCount || 0) - (a.viewCount || 0)).slice(0, 5);
-          const byLikes = [...posts].sort((a, b) => (b.likeCount || 0) - (a.likeCount || 0)).slice(0, 5);
+          const byViews = topPosts.views;
+          const byLikes = topPosts.likes;
           const maxViews = byViews[0]?.viewCount || 1;
           const maxLikes = byLikes[0]?.likeCount || 1;
 
@@ -487,7 +528,7 @@ export default function ProfilePage() {
 
                   {/* Post-level table */}
                   <div className="sm:col-span-2 bg-white dark:bg-slate-900 border border-gray-200 dark:border-slate-800 rounded-2xl p-5">
-                    <h3 className="text-sm font-semibold text-gray-900 dark:text-white mb-4">All Posts Performance</h3>
+                    <h3 className="text-sm font-semibold text-gray-900 dark:text-white mb-4">Posts Performance</h3>
                     <div className="overflow-x-auto">
                       <table className="w-full text-sm">
                         <thead>
@@ -19,8 +19,8 @@ export default function RegisterPage() {
     setLoading(true);
     try {
       const response = await client.post('/api/auth/register', { name, email, password });
-      const { token, email: userEmail, name: userName, role } = response.data.data;
-      login(token, { email: userEmail, name: userName, role });
+      const { token, email: userEmail, name: userName, handle, role } = response.data.data;
+      login(token, { email: userEmail, name: userName, handle, role });
       navigate('/');
     } catch (err) {
       setError(err.response?.data?.message || 'Registration failed');
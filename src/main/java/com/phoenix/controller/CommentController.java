@@ -32,6 +32,16 @@ public class CommentController {
         return ResponseEntity.ok(ApiResponse.success("Comments retrieved successfully", comments));
     }
 
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<ApiResponse<PagedResponse<CommentResponse>>> getReplies(
+            @PathVariable @NonNull UUID postId,
+            @PathVariable @NonNull UUID commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        PagedResponse<CommentResponse> replies = commentService.getReplies(postId, commentId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Replies retrieved successfully", replies));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<CommentResponse>> createComment(
             @PathVariable @NonNull UUID postId,
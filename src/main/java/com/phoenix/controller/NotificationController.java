@@ -2,12 +2,15 @@ package com.phoenix.controller;
 
 import com.phoenix.dto.NotificationResponse;
 import com.phoenix.dto.PagedResponse;
+import com.phoenix.service.NotificationPushService;
 import com.phoenix.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.UUID;
@@ -18,6 +21,7 @@ import java.util.UUID;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
 
     @GetMapping
     public ResponseEntity<PagedResponse<NotificationResponse>> getMyNotifications(
@@ -29,6 +33,12 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /** Server-Sent Events: {@code notification} and {@code unread} events as they happen. */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails userDetails) {
+        return notificationPushService.subscribe(userDetails.getUsername());
+    }
+
     @GetMapping("/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadCount(
             @AuthenticationPrincipal UserDetails userDetails) {
@@ -5,17 +5,31 @@ import com.phoenix.dto.PagedResponse;
 import com.phoenix.dto.PostRequest;
 import com.phoenix.dto.PostResponse;
 import com.phoenix.dto.PostVersionResponse;
+import com.phoenix.entity.User;
+import com.phoenix.exception.UnauthorizedException;
+import com.phoenix.repository.PostQuery;
+import com.phoenix.service.ForYouFeedService;
+import com.phoenix.service.PostEngagementPushService;
+import com.phoenix.service.PostPresenceTracker;
 import com.phoenix.service.PostService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -24,20 +38,49 @@ import java.util.UUID;
 public class PostController {
 
     private final PostService postService;
-
+    private final ForYouFeedService forYouFeedService;
+    private final PostEngagementPushService postEngagementPushService;
+    private final PostPresenceTracker postPresenceTracker;
+
+    /**
+     * Public listing, e.g. {@code ?tags=java,spring&mode=all&exclude=kotlin&from=2025-01-01&premium=false}.
+     * Pass {@code cursor=} (empty) for keyset paging, then each page's {@code nextCursor}.
+     */
     @GetMapping
     public ResponseEntity<ApiResponse<PagedResponse<PostResponse>>> getAllPosts(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String tag,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "all") String mode,
+            @RequestParam(required = false) List<String> exclude,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Boolean premium,
+            @RequestParam(required = false) UUID seriesId,
             @RequestParam(defaultValue = "newest") String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "6") int size) {
-        PagedResponse<PostResponse> posts;
-        if (search != null && !search.trim().isEmpty()) {
-            posts = postService.searchPosts(search, page, size, sort, tag);
-        } else {
-            posts = postService.getAllPosts(page, size, sort, tag);
+            @RequestParam(defaultValue = "6") int size,
+            @RequestParam(required = false) String cursor) {
+        List<String> included = new ArrayList<>(tags != null ? tags : List.of());
+        if (tag != null && !tag.isBlank()) {
+            included.add(tag);
         }
+        PostQuery query = PostQuery.builder()
+                .titleContains(search)
+                .tags(included)
+                .tagMode(PostQuery.TagMode.fromParam(mode))
+                .excludedTags(exclude != null ? exclude : List.of())
+                .createdFrom(from != null ? from.atStartOfDay() : null)
+                .createdBefore(to != null ? to.plusDays(1).atStartOfDay() : null)
+                .premium(premium)
+                .seriesId(seriesId)
+                .sort(PostQuery.Sort.fromParam(sort))
+                .page(page)
+                .size(size)
+                .cursor(cursor)
+                .build();
+        PagedResponse<PostResponse> posts = postService.getAllPosts(query, author);
         return ResponseEntity.ok(ApiResponse.success("Posts retrieved successfully", posts));
     }
 
@@ -92,6 +135,55 @@ public class PostController {
                 postService.getFollowingFeed(page, size, getCurrentUserEmail())));
     }
 
+    /** Personalized ranking of followed authors, favourite tags and trending posts, reused for a short TTL while paging. */
+    @GetMapping("/for-you")
+    public ResponseEntity<ApiResponse<PagedResponse<PostResponse>>> getForYouFeed(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "6") int size,
+            @AuthenticationPrincipal User currentUser) {
+        if (currentUser == null) {
+            throw new UnauthorizedException("Sign in to see your For You feed");
+        }
+        return ResponseEntity.ok(ApiResponse.success("For You feed retrieved",
+                forYouFeedService.getFeed(currentUser.getId(), page, size)));
+    }
+
+    /**
+     * Server-Sent Events: {@code engagement} events with changes to the post's counts.
+     * Only for readers who could open the post itself; drafts stay with their author.
+     */
+    @GetMapping(value = "/{id}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEngagement(@PathVariable @NonNull UUID id, HttpServletRequest request) {
+        postService.checkReadable(id);
+        return postEngagementPushService.subscribe(id, clientKey(request));
+    }
+
+    /**
+     * Presence heartbeat, sent by open post pages every 30 seconds. Signed-in readers
+     * are told apart by account, others by address: an id the client chose could be
+     * varied to inflate the count without bound.
+     */
+    @PostMapping("/{id}/presence")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> heartbeat(@PathVariable @NonNull UUID id,
+                                                                    HttpServletRequest request) {
+        long readingNow = postPresenceTracker.heartbeat(id, clientKey(request));
+        return ResponseEntity.ok(ApiResponse.success("Presence recorded", Map.of("readingNow", readingNow)));
+    }
+
+    /**
+     * The account, or else the address, which behind the proxy is the client's own from
+     * X-Forwarded-For ({@code server.forward-headers-strategy}); not something the
+     * client picks freely.
+     */
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getPrincipal())) {
+            return "user:" + authentication.getName();
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
     @GetMapping("/{id}/related")
     public ResponseEntity<ApiResponse<List<PostResponse>>> getRelatedPosts(@PathVariable @NonNull UUID id) {
         return ResponseEntity.ok(ApiResponse.success("Related posts retrieved", postService.getRelatedPosts(id)));
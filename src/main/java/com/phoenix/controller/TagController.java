@@ -1,11 +1,16 @@
 package com.phoenix.controller;
 
 import com.phoenix.dto.ApiResponse;
-import com.phoenix.repository.TagRepository;
+import com.phoenix.dto.TagUsageResponse;
+import com.phoenix.service.TagBitmapIndex;
+import com.phoenix.service.TagUsageCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -13,11 +18,53 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TagController {
 
-    private final TagRepository tagRepository;
+    private final TagUsageCache tagUsageCache;
+    private final TagBitmapIndex tagBitmapIndex;
 
+    /**
+     * Tag names sorted by usage. Clients revalidate with If-None-Match and get 304 while unchanged.
+     * The ETag hashes the response content, so every instance gives the same tag for the same list.
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<String>>> getAllTags() {
-        List<String> tags = tagRepository.findAllUsedTagNamesSortedByUsage();
-        return ResponseEntity.ok(ApiResponse.success("Tags retrieved successfully", tags));
+    public ResponseEntity<ApiResponse<List<String>>> getAllTags(@RequestParam(required = false) Integer limit) {
+        List<String> tags = tagUsageCache.getTopTags(limit).stream()
+                .map(TagUsageResponse::getName)
+                .toList();
+        return ResponseEntity.ok()
+                .eTag(etag("names", tags))
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success("Tags retrieved successfully", tags));
+    }
+
+    /** Same ordering as {@link #getAllTags}, with the number of visible posts per tag. */
+    @GetMapping("/usage")
+    public ResponseEntity<ApiResponse<List<TagUsageResponse>>> getTagUsage(@RequestParam(required = false) Integer limit) {
+        List<TagUsageResponse> usage = tagUsageCache.getTopTags(limit);
+        return ResponseEntity.ok()
+                .eTag(etag("usage", usage.stream().map(t -> t.getName() + " " + t.getCount()).toList()))
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success("Tag usage retrieved successfully", usage));
+    }
+
+    /** Tags that most often appear together with all of the given tags, e.g. ?tags=java,spring. */
+    @GetMapping("/related")
+    public ResponseEntity<ApiResponse<List<TagUsageResponse>>> getRelatedTags(
+            @RequestParam List<String> tags,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<String> names = tags.stream()
+                .filter(n -> n != null && !n.isBlank())
+                .map(n -> n.trim().toLowerCase())
+                .distinct()
+                .toList();
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("At least one tag is required");
+        }
+        List<TagUsageResponse> related = tagBitmapIndex.relatedTags(names, Math.max(1, limit));
+        return ResponseEntity.ok(ApiResponse.success("Related tags retrieved successfully", related));
+    }
+
+    private static String etag(String view, List<String> lines) {
+        byte[] content = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return "W/\"tags-" + view + "-" + DigestUtils.md5DigestAsHex(content) + "\"";
     }
 }
@@ -2,15 +2,20 @@ package com.phoenix.controller;
 
 import com.phoenix.dto.ApiResponse;
 import com.phoenix.dto.ChangePasswordRequest;
+import com.phoenix.dto.FollowSuggestionResponse;
+import com.phoenix.dto.PagedResponse;
+import com.phoenix.dto.PostCardResponse;
 import com.phoenix.dto.UpdateProfileRequest;
+import java.util.List;
 import java.util.Objects;
 import com.phoenix.dto.UserProfileResponse;
 import com.phoenix.entity.User;
 import com.phoenix.exception.PostNotFoundException;
 import com.phoenix.exception.UnauthorizedException;
-import com.phoenix.repository.LikeRepository;
 import com.phoenix.repository.UserRepository;
 import com.phoenix.service.FollowService;
+import com.phoenix.service.FollowSuggestionService;
+import com.phoenix.service.UserProfileService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -28,72 +33,33 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final LikeRepository likeRepository;
     private final FollowService followService;
+    private final UserProfileService userProfileService;
+    private final FollowSuggestionService followSuggestionService;
     private final PasswordEncoder passwordEncoder;
 
     @GetMapping("/{username}")
-    @Transactional
     public ResponseEntity<ApiResponse<UserProfileResponse>> getUserProfile(
             @PathVariable String username,
             @AuthenticationPrincipal UserDetails userDetails) {
-        String trimmed = username.trim();
-        User user = userRepository.findByName(trimmed)
-                .orElseThrow(() -> new PostNotFoundException("User not found with username: " + trimmed));
-
         String viewerEmail = userDetails != null ? userDetails.getUsername() : null;
-        java.util.Optional<User> viewerOpt = viewerEmail != null ? userRepository.findByEmail(viewerEmail) : java.util.Optional.empty();
-
-        java.time.LocalDateTime now = java.time.LocalDateTime.now(java.time.ZoneId.of("America/New_York"));
-        java.util.List<com.phoenix.entity.Post> publishedPosts = user.getPosts() != null
-                ? user.getPosts().stream()
-                    .filter(p -> p.getStatus() == com.phoenix.entity.PostStatus.PUBLISHED
-                        && (p.getScheduledPublishAt() == null || !p.getScheduledPublishAt().isAfter(now)))
-                    .toList()
-                : java.util.List.of();
-
-        long followersCount = followService.getFollowersCount(username);
-        long followingCount = followService.getFollowingCount(username);
-        boolean followedByCurrentUser = viewerEmail != null && followService.isFollowing(username, viewerEmail);
-
-        var userProfile = UserProfileResponse.builder()
-                .username(user.getName())
-                .email(user.getEmail())
-                .bio(user.getBio())
-                .avatarUrl(user.getAvatarUrl())
-                .websiteUrl(user.getWebsiteUrl())
-                .joinedDate(user.getCreatedAt())
-                .totalPosts(publishedPosts.size())
-                .followersCount(followersCount)
-                .followingCount(followingCount)
-                .followedByCurrentUser(followedByCurrentUser)
-                .posts(!publishedPosts.isEmpty()
-                    ? publishedPosts.stream()
-                        .map(post -> {
-                            long likeCount = likeRepository.countByPostId(post.getId());
-                            boolean liked = viewerOpt.map(v -> likeRepository.existsByPostIdAndUserId(post.getId(), v.getId())).orElse(false);
-                            return com.phoenix.dto.PostResponse.builder()
-                                .id(post.getId())
-                                .title(post.getTitle())
-                                .content(post.getContent())
-                                .authorName(post.getAuthor().getName())
-                                .authorEmail(post.getAuthor().getEmail())
-                                .createdAt(post.getCreatedAt())
-                                .updatedAt(post.getUpdatedAt())
-                                .commentCount(post.getComments() != null ? post.getComments().size() : 0)
-                                .likeCount(likeCount)
-                                .likedByCurrentUser(liked)
-                                .viewCount(post.getViewCount())
-                                .status("PUBLISHED")
-                                .build();
-                        })
-                        .toList()
-                    : java.util.List.of())
-                .build();
-
+        UserProfileResponse userProfile = userProfileService.getProfile(username, viewerEmail);
         return ResponseEntity.ok(ApiResponse.success("User profile retrieved successfully", userProfile));
     }
 
+    @GetMapping("/{username}/posts")
+    public ResponseEntity<ApiResponse<PagedResponse<PostCardResponse>>> getUserPosts(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        String viewerEmail = userDetails != null ? userDetails.getUsername() : null;
+        PagedResponse<PostCardResponse> posts = userProfileService.getPosts(
+                username, viewerEmail, UserProfileService.CardSort.fromParam(sort), cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Posts retrieved successfully", posts));
+    }
+
     @PostMapping("/{username}/follow")
     public ResponseEntity<ApiResponse<Boolean>> toggleFollow(@PathVariable String username) {
         String currentEmail = getCurrentUserEmail();
@@ -103,14 +69,24 @@ public class UserController {
     }
 
     @GetMapping("/{username}/follow-status")
-    public ResponseEntity<ApiResponse<Boolean>> getFollowStatus(@PathVariable String username) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        boolean following = auth != null && auth.isAuthenticated()
-                && !auth.getPrincipal().equals("anonymousUser")
-                && followService.isFollowing(username, auth.getName());
+    public ResponseEntity<ApiResponse<Boolean>> getFollowStatus(
+            @PathVariable String username,
+            @AuthenticationPrincipal User currentUser) {
+        boolean following = currentUser != null && followService.isFollowing(username, currentUser.getId());
         return ResponseEntity.ok(ApiResponse.success("Follow status retrieved", following));
     }
 
+    @GetMapping("/me/suggestions")
+    public ResponseEntity<ApiResponse<List<FollowSuggestionResponse>>> getFollowSuggestions(
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal User currentUser) {
+        if (currentUser == null) {
+            throw new UnauthorizedException("Sign in to see who to follow");
+        }
+        List<FollowSuggestionResponse> suggestions = followSuggestionService.getSuggestions(currentUser.getId(), limit);
+        return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+    }
+
     @PutMapping("/me")
     @Transactional
     public ResponseEntity<ApiResponse<UserProfileResponse>> updateMyProfile(
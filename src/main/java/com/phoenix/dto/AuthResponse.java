@@ -13,6 +13,7 @@ public class AuthResponse {
     private String token;
     private String email;
     private String name;
+    private String handle;
     private String role;
     private String avatarUrl;
 }
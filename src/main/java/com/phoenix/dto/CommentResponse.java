@@ -17,9 +17,17 @@ public class CommentResponse {
     private UUID id;
     private String content;
     private String authorName;
+    /** What profile links use; unlike the name it is unique. */
+    private String authorHandle;
     private String authorEmail;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private UUID parentId;
+    /** 0 for a comment on the post, 1 for a reply to it, and so on. */
+    private int depth;
+    /** The first replies only, at any depth, in display order; the rest come from the replies endpoint. */
     private List<CommentResponse> replies;
+    private long replyCount;
+    /** Pass as {@code cursor} to the replies endpoint for the replies after {@link #replies}; null when all are shown. */
+    private String repliesCursor;
 }
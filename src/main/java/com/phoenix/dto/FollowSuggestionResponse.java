@@ -0,0 +1,23 @@
+package com.phoenix.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/** A suggested author; field order matches the repository's constructor expression. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowSuggestionResponse {
+    private UUID id;
+    private String username;
+    private String avatarUrl;
+    private String bio;
+    private int mutualFollows;
+    private int coReactions;
+    private int sharedTags;
+}
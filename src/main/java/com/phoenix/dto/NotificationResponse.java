@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -17,6 +18,10 @@ public class NotificationResponse {
     private UUID id;
     private NotificationType type;
     private String actorName;
+    /** How many actions this notification stands for, e.g. 42 for "Alice and 41 others reacted". */
+    private int actorCount;
+    /** Up to three most recent actors, newest first. */
+    private List<String> recentActors;
     private String message;
     private UUID postId;
     private String postTitle;
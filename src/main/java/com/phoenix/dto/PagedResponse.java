@@ -19,4 +19,6 @@ public class PagedResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    /** Keyset paging only: pass back as {@code cursor} to fetch the next page; null on the last page. */
+    private String nextCursor;
 }
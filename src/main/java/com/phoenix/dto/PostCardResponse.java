@@ -0,0 +1,28 @@
+package com.phoenix.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A post as listed on a profile: no content or cover, so a page of cards is one
+ * projection query. Built by the constructor expressions in PostRepository, which
+ * follow the field order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCardResponse {
+    private UUID id;
+    private String title;
+    private LocalDateTime createdAt;
+    private long viewCount;
+    private long commentCount;
+    private long likeCount;
+    private boolean likedByCurrentUser;
+}
@@ -0,0 +1,23 @@
+package com.phoenix.dto;
+
+import com.phoenix.entity.ReactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/** Changes to a post's counts since the last push; clients add them to what they loaded. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostEngagementDelta {
+    private UUID postId;
+    private Map<ReactionType, Long> reactionCounts; // only types that changed, e.g. {LIKE: 3, LOVE: -1}
+    private long totalReactions;
+    private long commentCount;
+    private long viewCount;
+}
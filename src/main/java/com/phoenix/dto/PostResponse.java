@@ -21,6 +21,8 @@ public class PostResponse {
     private String title;
     private String content;
     private String authorName;
+    /** What profile links use; unlike the name it is unique. */
+    private String authorHandle;
     private String authorEmail;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -41,8 +43,9 @@ public class PostResponse {
     private boolean paidByCurrentUser;
     private boolean author;
     private long viewCount;
+    private long readingNow; // distinct readers in the last minute, this instance only
     private int readingTimeMinutes;
-    private List<String> tags;
+    private List<String> tags; // by name, not in the order they were entered
     private String status;
     private LocalDateTime scheduledPublishAt;
     private boolean bookmarkedByCurrentUser;
@@ -0,0 +1,15 @@
+package com.phoenix.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagUsageResponse {
+    private String name;
+    private long count; // number of publicly visible posts carrying this tag
+}
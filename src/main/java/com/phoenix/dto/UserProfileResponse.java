@@ -6,7 +6,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 @Builder
@@ -20,8 +19,13 @@ public class UserProfileResponse {
     private String websiteUrl;
     private LocalDateTime joinedDate;
     private int totalPosts;
-    private List<PostResponse> posts;
+    /** The first page of published posts, newest first; later pages come from the user's posts endpoint. */
+    private PagedResponse<PostCardResponse> posts;
     private long followersCount;
     private long followingCount;
     private boolean followedByCurrentUser;
+    // Totals over the published posts, for the stats tab
+    private long totalViews;
+    private long totalLikes;
+    private long totalComments;
 }
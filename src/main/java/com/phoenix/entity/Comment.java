@@ -5,17 +5,25 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_parent_created_at", columnList = "post_id, parent_id, created_at"),
+        @Index(name = "idx_comments_path", columnList = "path", unique = true)
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Builder
@@ -23,6 +31,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class Comment {
 
+    /** Hex characters per path segment: 13 for the creation microsecond, 7 random. */
+    public static final int PATH_SEGMENT_LENGTH = 20;
+    /** Deepest nesting allowed; keeps a path (2000 characters) well inside a btree index entry. */
+    public static final int MAX_DEPTH = 100;
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -38,8 +51,10 @@ public class Comment {
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
 
+    // Cascades in the database too, so a subtree goes in one range delete in any row order
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Comment parent;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -47,6 +62,16 @@ public class Comment {
     @Builder.Default
     private List<Comment> replies = new ArrayList<>();
 
+    /**
+     * Materialized path: the parent's path followed by one segment for this comment.
+     * Ordering a post's comments by path gives threads in display order (depth first,
+     * oldest sibling first), and the subtree of a comment is the range
+     * [path, {@link #subtreeEnd}), so both are index range scans whatever the depth.
+     * Null only on rows written before the column existed, until they are backfilled.
+     */
+    @Column(length = PATH_SEGMENT_LENGTH * MAX_DEPTH)
+    private String path;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -54,4 +79,31 @@ public class Comment {
     @LastModifiedDate
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    /** 0 for a comment on the post, 1 for a reply to it, and so on. */
+    public int getDepth() {
+        return path == null ? 0 : path.length() / PATH_SEGMENT_LENGTH - 1;
+    }
+
+    // Runs after the auditing listener, so createdAt is already set
+    @PrePersist
+    void initPath() {
+        if (path == null) {
+            LocalDateTime created = createdAt != null ? createdAt : LocalDateTime.now(ZoneOffset.UTC);
+            path = (parent != null ? parent.getPath() : "")
+                    + pathSegment(created, ThreadLocalRandom.current().nextInt());
+        }
+    }
+
+    /** One fixed-width path segment; segments sort by creation time, to the microsecond. */
+    public static String pathSegment(LocalDateTime createdAt, int salt) {
+        Instant created = createdAt.toInstant(ZoneOffset.UTC);
+        long micros = created.getEpochSecond() * 1_000_000 + created.getNano() / 1_000;
+        return String.format("%013x%07x", micros, salt & 0xfffffff);
+    }
+
+    /** Exclusive upper bound of the subtree under {@code path}: segments only use 0-9 and a-f. */
+    public static String subtreeEnd(String path) {
+        return path + "g";
+    }
 }
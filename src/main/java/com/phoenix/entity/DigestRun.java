@@ -0,0 +1,56 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of one weekly digest run, keyed by ISO week. Recipients are queued in
+ * id order and {@code lastUserId} is advanced in the same transaction as each
+ * chunk's outbox rows, so a restarted run resumes after it instead of mailing
+ * everyone again.
+ */
+@Entity
+@Table(name = "digest_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DigestRun {
+
+    @Id
+    @Column(length = 20)
+    private String runKey;
+
+    @Column(nullable = false)
+    private UUID lastUserId;
+
+    /** Digests added to the email outbox; delivery is tracked there. */
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int queuedCount;
+
+    /** Subscribers passed over, e.g. for having no email address. */
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int skippedCount;
+
+    /** Digests sent directly, by runs from before the outbox; those runs never queued any. */
+    private int sentCount;
+
+    /** Direct sends that failed, by runs from before the outbox. */
+    private int failedCount;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
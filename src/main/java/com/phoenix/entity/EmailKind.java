@@ -0,0 +1,6 @@
+package com.phoenix.entity;
+
+public enum EmailKind {
+    PASSWORD_RESET,
+    WEEKLY_DIGEST
+}
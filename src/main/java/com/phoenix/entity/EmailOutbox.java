@@ -0,0 +1,77 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An email waiting to be sent. Rows are written in the same transaction as the
+ * change that triggers the mail and delivered afterwards by the outbox sender, so
+ * no request waits on SMTP and a rolled-back request sends nothing.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EmailKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String recipientName;
+
+    private String subject;
+
+    /**
+     * Plain-text body. For {@link EmailKind#WEEKLY_DIGEST} it is the picked post
+     * ids, comma-separated, and the body is rendered from the run's template.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    /** Digest run key for {@link EmailKind#WEEKLY_DIGEST}. */
+    @Column(length = 20)
+    private String runKey;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /** Not sent after this, e.g. when the reset link in it has expired; null for no limit. */
+    private LocalDateTime expiresAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,8 @@
+package com.phoenix.entity;
+
+public enum EmailStatus {
+    PENDING,
+    SENT,
+    /** Gave up after a permanent failure or too many attempts; kept for inspection. */
+    DEAD
+}
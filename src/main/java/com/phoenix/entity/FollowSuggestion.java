@@ -0,0 +1,60 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One "who to follow" entry: an author {@code user} does not follow yet, and why.
+ * Written in bulk by FollowSuggestionService, never edited.
+ */
+@Entity
+@Table(name = "follow_suggestions", indexes = {
+        @Index(name = "idx_follow_suggestions_user_position", columnList = "user_id, position")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowSuggestion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "suggested_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User suggested;
+
+    /** Rank among the user's suggestions, 0 first. */
+    @Column(nullable = false)
+    private int position;
+
+    @Column(nullable = false)
+    private double score;
+
+    /** People the user follows who follow the suggested author. */
+    @Column(nullable = false)
+    private int mutualFollows;
+
+    /** Recent posts both reacted to. */
+    @Column(nullable = false)
+    private int coReactions;
+
+    /** Tags among both their top tags. */
+    @Column(nullable = false)
+    private int sharedTags;
+
+    @Column(nullable = false)
+    private LocalDateTime computedAt;
+}
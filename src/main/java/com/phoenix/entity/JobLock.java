@@ -0,0 +1,41 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease on a named background job. One row per job, created on first
+ * use; the fencing token is bumped on every acquisition so a holder whose lease
+ * expired can tell it has been superseded.
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(length = 200)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Column(nullable = false)
+    private long fencingToken;
+
+    private LocalDateTime acquiredAt;
+}
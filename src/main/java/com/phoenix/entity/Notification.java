@@ -11,8 +11,23 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * One line in a user's notification list. Notifications of the same type on the
+ * same post within one time bucket share a row, identified by {@code coalesceKey}:
+ * later actors bump {@code actorCount} and are prepended to {@code lastActors}
+ * instead of adding rows. Who has been counted is kept in {@link NotificationActor}.
+ * <p>
+ * Read notifications older than {@code app.notifications.archive-after-days} are
+ * moved to {@link NotificationArchive} by the retention job, so this table only
+ * holds what users still page through.
+ */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notifications_recipient_coalesce_key", columnNames = {"recipient_id", "coalesce_key"})
+}, indexes = {
+        @Index(name = "idx_notifications_recipient_read_created_at", columnList = "recipient_id, is_read, created_at"),
+        @Index(name = "idx_notifications_read_created_at", columnList = "is_read, created_at")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Builder
@@ -32,7 +47,7 @@ public class Notification {
     @Column(nullable = false)
     private NotificationType type;
 
-    /** Display name of the person who triggered the notification. */
+    /** Display name of the person who most recently triggered the notification. */
     @Column(nullable = false)
     private String actorName;
 
@@ -52,6 +67,19 @@ public class Notification {
     @Builder.Default
     private boolean isRead = false;
 
+    /** Distinct actors folded into this row. */
+    @Column(nullable = false, columnDefinition = "integer not null default 1")
+    @Builder.Default
+    private int actorCount = 1;
+
+    /** Recent actor names, newest first, newline-terminated; capped at 1000 chars, so only the head is reliable. */
+    @Column(length = 1000)
+    private String lastActors;
+
+    /** Type, post and time bucket shared by the actions in this row. */
+    @Column(length = 100)
+    private String coalesceKey;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,36 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.util.UUID;
+
+/**
+ * Someone counted in a notification's {@code actorCount}. Written by
+ * NotificationWriter so an actor who repeats an action in a later flush (a like
+ * toggled off and on again) is not counted twice; goes when the notification does.
+ */
+@Entity
+@Table(name = "notification_actors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_actors_notification_actor", columnNames = {"notification_id", "actor_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationActor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notification_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Notification notification;
+
+    @Column(nullable = false)
+    private UUID actorId;
+}
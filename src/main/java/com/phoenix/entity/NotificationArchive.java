@@ -0,0 +1,60 @@
+package com.phoenix.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A read notification moved out of {@code notifications} by the retention job,
+ * keeping its original id. Append-only: nothing reads it on the request path,
+ * and the recipient is a plain column so archived rows never block deleting a user.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = {
+        @Index(name = "idx_notification_archive_recipient_created_at", columnList = "recipient_id, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationArchive {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private UUID recipientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    @Column(nullable = false)
+    private String actorName;
+
+    @Column(nullable = false)
+    private String message;
+
+    @Column
+    private UUID postId;
+
+    @Column
+    private String postTitle;
+
+    @Column(nullable = false)
+    private int actorCount;
+
+    @Column(length = 1000)
+    private String lastActors;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
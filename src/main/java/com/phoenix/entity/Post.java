@@ -11,12 +11,18 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.lang.Nullable;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        // Public listings are a range scan on visible_at carrying the (created_at, id) sort key
+        @Index(name = "idx_posts_visible_at_created_at", columnList = "visible_at, created_at, id"),
+        @Index(name = "idx_posts_author_created_at", columnList = "author_id, created_at"),
+        @Index(name = "idx_posts_series_id", columnList = "series_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Builder
@@ -41,14 +47,18 @@ public class Post {
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments;
 
+    // A Set (not a bag) so Hibernate writes only the join rows that actually changed.
+    // A set has no join-row order to preserve, so tags are listed by name rather than as entered.
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
         name = "post_tags",
         joinColumns = @JoinColumn(name = "post_id"),
-        inverseJoinColumns = @JoinColumn(name = "tag_id")
+        inverseJoinColumns = @JoinColumn(name = "tag_id"),
+        indexes = @Index(name = "idx_post_tags_tag_post", columnList = "tag_id, post_id")
     )
+    @OrderBy("name ASC")
     @Builder.Default
-    private List<Tag> tags = new ArrayList<>();
+    private Set<Tag> tags = new LinkedHashSet<>();
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, columnDefinition = "VARCHAR(255) DEFAULT 'PUBLISHED'")
@@ -58,6 +68,13 @@ public class Post {
     @Column(name = "scheduled_publish_at")
     private LocalDateTime scheduledPublishAt;
 
+    /**
+     * When the post became publicly visible; null while it is a draft or still
+     * scheduled. Maintained by PostService on every publishing transition.
+     */
+    @Column(name = "visible_at")
+    private LocalDateTime visibleAt;
+
     @Column(columnDefinition = "TEXT")
     private String coverImageUrl;
 
@@ -93,4 +110,12 @@ public class Post {
     @LastModifiedDate
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    // Rows inserted as already published (imports, fixtures) are visible from creation.
+    @PrePersist
+    void initVisibleAt() {
+        if (visibleAt == null && status == PostStatus.PUBLISHED && scheduledPublishAt == null) {
+            visibleAt = createdAt;
+        }
+    }
 }
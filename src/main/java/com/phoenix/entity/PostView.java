@@ -11,7 +11,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "post_views", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"post_id", "user_id"})
-})
+}, indexes = @Index(name = "idx_post_views_user_id", columnList = "user_id"))
 @Data
 @Builder
 @NoArgsConstructor
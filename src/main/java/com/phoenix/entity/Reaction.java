@@ -15,6 +15,9 @@ import java.util.UUID;
 @Entity
 @Table(name = "reactions", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"post_id", "user_id"})
+}, indexes = {
+        @Index(name = "idx_reactions_type_post", columnList = "type, post_id"),
+        @Index(name = "idx_reactions_user_created_at", columnList = "user_id, created_at")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Data
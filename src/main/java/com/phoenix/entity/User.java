@@ -12,10 +12,13 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_handle", columnList = "handle", unique = true)
+})
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -37,6 +40,10 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String name;
 
+    /** {@link #toHandle canonical} form of the name, unique; what profile and follow URLs resolve by. */
+    @Column(length = 255)
+    private String handle;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private UserRole role;
@@ -68,6 +75,18 @@ public class User implements UserDetails {
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments;
 
+    @PrePersist
+    void initHandle() {
+        if (handle == null && name != null) {
+            handle = toHandle(name);
+        }
+    }
+
+    /** Trimmed, inner whitespace collapsed to one space, lower-cased. */
+    public static String toHandle(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
@@ -0,0 +1,8 @@
+package com.phoenix.event;
+
+/**
+ * Published when emails are added to the outbox, so the sender can deliver them
+ * as soon as the transaction commits instead of on its next poll.
+ */
+public record EmailQueuedEvent(int count) {
+}
@@ -0,0 +1,12 @@
+package com.phoenix.event;
+
+import java.util.UUID;
+
+/**
+ * Published by FollowService when a user follows or unfollows another. The
+ * in-memory follow graph consumes it after the transaction commits.
+ *
+ * @param following true if {@code followerId} now follows {@code followingId}, false if it stopped
+ */
+public record FollowChangedEvent(UUID followerId, UUID followingId, boolean following) {
+}
@@ -0,0 +1,17 @@
+package com.phoenix.event;
+
+import com.phoenix.entity.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A notification to be written once the triggering action commits. Carries ids
+ * and display strings only, so it can outlive the persistence context.
+ *
+ * @param createdAt when the action happened, in UTC
+ */
+public record NotificationRequestedEvent(UUID recipientId, UUID actorId, NotificationType type,
+                                         String actorName, String message, UUID postId, String postTitle,
+                                         LocalDateTime createdAt) {
+}
@@ -0,0 +1,18 @@
+package com.phoenix.event;
+
+import com.phoenix.entity.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published by the notification writer for each group of notifications it has
+ * stored, on the writer's thread.
+ *
+ * @param actorCount   actions stored by this write, not the row's running total
+ * @param newlyUnread  true if the write added an unread row (new, or a read row reopened)
+ */
+public record NotificationWrittenEvent(UUID recipientId, NotificationType type, String actorName, int actorCount,
+                                       String message, UUID postId, String postTitle, LocalDateTime createdAt,
+                                       boolean newlyUnread) {
+}
@@ -0,0 +1,10 @@
+package com.phoenix.event;
+
+/**
+ * Published when a user marks notifications as read.
+ *
+ * @param all   true for "mark all as read", in which case {@code count} is not used
+ * @param count rows marked by a single mark-as-read (0 or 1)
+ */
+public record NotificationsReadEvent(String email, boolean all, int count) {
+}
@@ -0,0 +1,34 @@
+package com.phoenix.event;
+
+import com.phoenix.entity.ReactionType;
+
+import java.util.UUID;
+
+/**
+ * Published when a write changes a post's reaction, comment or view counts.
+ * Live post pages consume it after the transaction commits.
+ *
+ * @param reactionRemoved the reaction the user had before, or null
+ * @param reactionAdded   the reaction the user has now, or null
+ * @param comments        change in comment count
+ * @param views           change in view count
+ */
+public record PostEngagementChangedEvent(
+        UUID postId,
+        ReactionType reactionRemoved,
+        ReactionType reactionAdded,
+        int comments,
+        int views) {
+
+    public static PostEngagementChangedEvent reaction(UUID postId, ReactionType removed, ReactionType added) {
+        return new PostEngagementChangedEvent(postId, removed, added, 0, 0);
+    }
+
+    public static PostEngagementChangedEvent comments(UUID postId, int delta) {
+        return new PostEngagementChangedEvent(postId, null, null, delta, 0);
+    }
+
+    public static PostEngagementChangedEvent view(UUID postId) {
+        return new PostEngagementChangedEvent(postId, null, null, 0, 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.phoenix.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published whenever a post goes live, whether immediately on save or when its
+ * schedule comes due, so caches and feeds can react without polling.
+ *
+ * @param publishedAt the post's visible_at
+ */
+public record PostPublishedEvent(UUID postId, UUID authorId, LocalDateTime publishedAt) {
+}
@@ -0,0 +1,14 @@
+package com.phoenix.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published by PostService whenever a write sets, moves or clears a post's
+ * scheduled publish time, including deletes. The publish wheel consumes it after
+ * the transaction commits.
+ *
+ * @param scheduledPublishAt the new due time in UTC, or null if nothing is pending
+ */
+public record PostScheduleChangedEvent(UUID postId, LocalDateTime scheduledPublishAt) {
+}
@@ -0,0 +1,22 @@
+package com.phoenix.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by PostService whenever a write may change whether a post is publicly
+ * listed or which tags it is listed under. In-memory read models (tag cloud, tag
+ * index) consume it after the transaction commits.
+ *
+ * @param tagsBefore tags the post was listed under before the write; empty if it was not visible
+ * @param tagsAfter  tags the post is listed under after the write; empty if it is not visible
+ */
+public record PostVisibilityChangedEvent(
+        UUID postId,
+        LocalDateTime createdAt,
+        boolean visibleBefore,
+        List<String> tagsBefore,
+        boolean visibleAfter,
+        List<String> tagsAfter) {
+}
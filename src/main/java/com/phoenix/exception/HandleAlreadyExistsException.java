@@ -0,0 +1,7 @@
+package com.phoenix.exception;
+
+public class HandleAlreadyExistsException extends RuntimeException {
+    public HandleAlreadyExistsException(String message) {
+        super(message);
+    }
+}
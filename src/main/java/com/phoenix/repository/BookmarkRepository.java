@@ -2,6 +2,8 @@ package com.phoenix.repository;
 
 import com.phoenix.entity.Bookmark;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -18,4 +20,8 @@ public interface BookmarkRepository extends JpaRepository<Bookmark, UUID> {
     void deleteByPostId(UUID postId);
 
     List<Bookmark> findByUserIdOrderByCreatedAtDesc(UUID userId);
+
+    // For You affinity: (tag name, posts bookmarked) for one user
+    @Query("select t.name, count(b) from Bookmark b join b.post.tags t where b.user.id = :userId group by t.name")
+    List<Object[]> countBookmarkedTagNames(@Param("userId") UUID userId);
 }
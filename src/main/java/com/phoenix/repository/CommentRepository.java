@@ -3,6 +3,7 @@ package com.phoenix.repository;
 import com.phoenix.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,20 +11,48 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, UUID> {
     Page<Comment> findByPostIdOrderByCreatedAtAsc(UUID postId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "author")
     Page<Comment> findByPostIdAndParentIsNullOrderByCreatedAtDesc(UUID postId, Pageable pageable);
     List<Comment> findByParentIdOrderByCreatedAtAsc(UUID parentId);
     long countByPostId(UUID postId);
 
+    // The first :limit descendants of each root, in display order; a root's descendants share
+    // its path, the first 20 characters (Comment.PATH_SEGMENT_LENGTH)
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.id IN (" +
+            "SELECT r.id FROM (SELECT x.id AS id, ROW_NUMBER() OVER (PARTITION BY SUBSTRING(x.path, 1, 20) ORDER BY x.path) AS rank " +
+            "FROM Comment x WHERE x.post.id = :postId AND x.parent IS NOT NULL AND SUBSTRING(x.path, 1, 20) IN :rootPaths) r " +
+            "WHERE r.rank <= :limit) ORDER BY c.path")
+    List<Comment> findFirstDescendants(@Param("postId") UUID postId, @Param("rootPaths") Collection<String> rootPaths,
+                                       @Param("limit") int limit);
+
+    // (root path, descendants) for each root that has any
+    @Query("SELECT SUBSTRING(c.path, 1, 20), COUNT(c) FROM Comment c WHERE c.post.id = :postId AND c.parent IS NOT NULL " +
+            "AND SUBSTRING(c.path, 1, 20) IN :rootPaths GROUP BY SUBSTRING(c.path, 1, 20)")
+    List<Object[]> countDescendants(@Param("postId") UUID postId, @Param("rootPaths") Collection<String> rootPaths);
+
+    // A subtree in display order, after :after and before :end: one range scan over idx_comments_path
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.path > :after AND c.path < :end ORDER BY c.path")
+    List<Comment> findSubtree(@Param("after") String after, @Param("end") String end, Pageable pageable);
+
+    // Rows written before the path column existed whose parent already has one, so paths fill in top down
+    @Query("SELECT c FROM Comment c LEFT JOIN c.parent p WHERE c.path IS NULL AND (p IS NULL OR p.path IS NOT NULL)")
+    List<Comment> findWithoutPath(Pageable pageable);
+
+    // A comment and all its replies, whatever their depth
     @Modifying
-    @Transactional
-    @Query("delete from Comment c where c.post.id = :postId and c.parent is not null")
-    void deleteRepliesByPostId(@Param("postId") UUID postId);
+    @Query("delete from Comment c where c.path >= :path and c.path < :end")
+    int deleteSubtree(@Param("path") String path, @Param("end") String end);
 
-    void deleteByPostId(UUID postId);
+    @Modifying
+    @Transactional
+    @Query("delete from Comment c where c.post.id = :postId")
+    void deleteAllByPostId(@Param("postId") UUID postId);
 }
@@ -0,0 +1,9 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.DigestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DigestRunRepository extends JpaRepository<DigestRun, String> {
+}
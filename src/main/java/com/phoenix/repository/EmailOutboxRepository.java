@@ -0,0 +1,32 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    @Query("select e from EmailOutbox e where e.status = com.phoenix.entity.EmailStatus.PENDING " +
+            "and e.nextAttemptAt <= :now order by e.nextAttemptAt")
+    List<EmailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("update EmailOutbox e set e.status = com.phoenix.entity.EmailStatus.SENT, e.sentAt = :now, " +
+            "e.attempts = e.attempts + 1, e.lastError = null where e.id in :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    // Sent rows are only kept for a while; dead letters stay until someone looks at them
+    @Modifying
+    @Query("delete from EmailOutbox e where e.status = com.phoenix.entity.EmailStatus.SENT and e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,10 +17,6 @@ public interface FollowRepository extends JpaRepository<Follow, UUID> {
     @Transactional
     void deleteByFollowerIdAndFollowingId(UUID followerId, UUID followingId);
 
-    long countByFollowingId(UUID followingId);
-
-    long countByFollowerId(UUID followerId);
-
-    @Query("select f.following.id from Follow f where f.follower.id = :followerId")
-    List<UUID> findFollowingIdsByFollowerId(@Param("followerId") UUID followerId);
+    @Query("select f.follower.id, f.following.id from Follow f where f.follower.id in :followerIds")
+    List<Object[]> findFollowPairsByFollowerIdIn(@Param("followerIds") Collection<UUID> followerIds);
 }
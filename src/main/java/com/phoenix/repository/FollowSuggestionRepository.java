@@ -0,0 +1,35 @@
+package com.phoenix.repository;
+
+import com.phoenix.dto.FollowSuggestionResponse;
+import com.phoenix.entity.FollowSuggestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface FollowSuggestionRepository extends JpaRepository<FollowSuggestion, UUID> {
+
+    // A user's suggestions in rank order with the authors' profiles, minus anyone they
+    // have followed since the batch, in one statement served by
+    // idx_follow_suggestions_user_position and the follows unique key
+    @Query("select new com.phoenix.dto.FollowSuggestionResponse(u.id, u.name, u.avatarUrl, u.bio, " +
+            "s.mutualFollows, s.coReactions, s.sharedTags) " +
+            "from FollowSuggestion s join s.suggested u where s.user.id = :userId " +
+            "and not exists (select f.id from Follow f where f.follower.id = :userId and f.following.id = u.id) " +
+            "order by s.position")
+    List<FollowSuggestionResponse> findResponsesByUserId(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("delete from FollowSuggestion s where s.user.id in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    // Users who dropped out of the computation, e.g. everything they followed was deleted
+    @Modifying
+    @Query("delete from FollowSuggestion s where s.computedAt < :before")
+    int deleteComputedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,40 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    @Modifying
+    @Query(value = "insert into job_locks (name, fencing_token, lease_until) values (:name, 0, :expired) on conflict do nothing",
+            nativeQuery = true)
+    int createIfAbsent(@Param("name") String name, @Param("expired") LocalDateTime expired);
+
+    // Succeeds only when the current lease has run out; the row lock serializes racing nodes.
+    @Modifying
+    @Query("update JobLock l set l.owner = :owner, l.fencingToken = l.fencingToken + 1, l.leaseUntil = :until, " +
+            "l.acquiredAt = :now where l.name = :name and l.leaseUntil < :now")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Query("select l.fencingToken from JobLock l where l.name = :name and l.owner = :owner")
+    Optional<Long> findTokenByNameAndOwner(@Param("name") String name, @Param("owner") String owner);
+
+    @Modifying
+    @Query("update JobLock l set l.leaseUntil = :until where l.name = :name and l.fencingToken = :token and l.leaseUntil >= :now")
+    int renew(@Param("name") String name, @Param("token") long token,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Hands the lock back, keeping it closed until :until so peers with a skewed clock don't rerun the job.
+    @Modifying
+    @Query("update JobLock l set l.owner = null, l.leaseUntil = :until where l.name = :name and l.fencingToken = :token")
+    int release(@Param("name") String name, @Param("token") long token, @Param("until") LocalDateTime until);
+}
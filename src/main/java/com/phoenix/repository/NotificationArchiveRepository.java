@@ -0,0 +1,24 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.NotificationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, UUID> {
+
+    // Copied in the database in one statement; the caller deletes the originals in the same transaction
+    @Modifying
+    @Query(value = "insert into notification_archive (id, recipient_id, type, actor_name, message, post_id, post_title, " +
+            "actor_count, last_actors, created_at, archived_at) " +
+            "select id, recipient_id, type, actor_name, message, post_id, post_title, actor_count, last_actors, " +
+            "created_at, :archivedAt from notifications where id in :ids", nativeQuery = true)
+    int copyFromNotifications(@Param("ids") Collection<UUID> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
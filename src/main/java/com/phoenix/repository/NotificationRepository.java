@@ -1,14 +1,19 @@
 package com.phoenix.repository;
 
 import com.phoenix.entity.Notification;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -18,11 +23,26 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
 
     long countByRecipient_EmailAndIsReadFalse(String email);
 
+    long countByRecipient_IdAndIsReadFalse(UUID recipientId);
+
+    // Oldest first, through idx_notifications_read_created_at
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND n.createdAt < :before ORDER BY n.createdAt")
+    List<UUID> findArchivableIds(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Locks the rows so the notification writer can't reopen one between archiving and deleting it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n.id FROM Notification n WHERE n.id IN :ids AND n.isRead = true")
+    List<UUID> lockReadByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
+
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.recipient.email = :email")
-    void markAsRead(@Param("id") UUID id, @Param("email") String email);
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.recipient.email = :email AND n.isRead = false")
+    int markAsRead(@Param("id") UUID id, @Param("email") String email);
 
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipient.email = :email AND n.isRead = false")
-    void markAllAsRead(@Param("email") String email);
+    int markAllAsRead(@Param("email") String email);
 }
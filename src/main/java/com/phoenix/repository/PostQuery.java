@@ -0,0 +1,103 @@
+package com.phoenix.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters, ordering and paging for a public post listing. Compiled into one SQL
+ * statement by {@link PostQueryPlanner}; null or empty filters are left out.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostQuery {
+
+    public enum Sort {
+        NEWEST, OLDEST, MOST_LIKED;
+
+        /** Maps the API's sort parameter; anything unrecognised falls back to newest. */
+        public static Sort fromParam(String sort) {
+            if ("oldest".equalsIgnoreCase(sort)) {
+                return OLDEST;
+            }
+            if ("mostLiked".equalsIgnoreCase(sort)) {
+                return MOST_LIKED;
+            }
+            return NEWEST;
+        }
+    }
+
+    public enum TagMode {
+        ALL, ANY;
+
+        public static TagMode fromParam(String mode) {
+            if (mode == null || mode.isBlank() || "all".equalsIgnoreCase(mode)) {
+                return ALL;
+            }
+            if ("any".equalsIgnoreCase(mode)) {
+                return ANY;
+            }
+            throw new IllegalArgumentException("Tag mode must be 'all' or 'any'");
+        }
+    }
+
+    private String titleContains;
+
+    /** Normalized (trimmed, lowercase) tag names. */
+    @Builder.Default
+    private List<String> tags = List.of();
+
+    @Builder.Default
+    private TagMode tagMode = TagMode.ALL;
+
+    @Builder.Default
+    private List<String> excludedTags = List.of();
+
+    /** Restricts to these authors when non-null; PostService resolves {@code ?author=} into it. */
+    private List<UUID> authorIds;
+
+    /** Inclusive lower bound on createdAt. */
+    private LocalDateTime createdFrom;
+
+    /** Exclusive upper bound on createdAt. */
+    private LocalDateTime createdBefore;
+
+    private Boolean premium;
+
+    private UUID seriesId;
+
+    @Builder.Default
+    private Sort sort = Sort.NEWEST;
+
+    private int page;
+
+    @Builder.Default
+    private int size = 6;
+
+    /**
+     * Switches to keyset paging when non-null: an empty string asks for the first
+     * page, otherwise it is the {@code nextCursor} of the previous page.
+     */
+    private String cursor;
+
+    public boolean isKeyset() {
+        return cursor != null;
+    }
+
+    /** True when anything other than the tag filters narrows the result. */
+    public boolean hasNonTagFilters() {
+        return (titleContains != null && !titleContains.isBlank())
+                || authorIds != null
+                || createdFrom != null
+                || createdBefore != null
+                || premium != null
+                || seriesId != null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.phoenix.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles a {@link PostQuery} into a single native statement that selects the
+ * (id, created_at) of one page, plus a matching count statement for offset paging.
+ * <p>
+ * Every filter is an AND-ed predicate on {@code posts}. Visibility is a single
+ * range on the materialized {@code visible_at}, answered from
+ * {@code idx_posts_visible_at_created_at}, which also carries the (created_at, id)
+ * sort key; the other filters either narrow through their own index or are
+ * checked on the rows the index yields. Keyset pages add a row-value comparison on
+ * (created_at, id) instead of an offset.
+ * <p>
+ * Only the unfiltered newest and oldest listings read their page straight off
+ * an index. Author, series and tag filters first collect every match through
+ * their own index and then sort those matches by (created_at, id); mostLiked
+ * counts likes for every visible match and sorts all of them. Their cost grows
+ * with the match set, not the page size, and large tags are better served from
+ * the in-memory tag index.
+ */
+final class PostQueryPlanner {
+
+    static final String VISIBLE = "p.visible_at <= ?";
+
+    private static final String TAG_MATCH =
+            "select 1 from post_tags pt join tags t on t.id = pt.tag_id where pt.post_id = p.id and t.name in ";
+
+    /** SQL text with positional parameters, for one page and (offset mode only) the total. */
+    record Plan(String sql, List<Object> params, String countSql, List<Object> countParams) {
+    }
+
+    private PostQueryPlanner() {
+    }
+
+    static Plan plan(PostQuery query, LocalDateTime now) {
+        if (query.isKeyset() && query.getSort() == PostQuery.Sort.MOST_LIKED) {
+            throw new IllegalArgumentException("Cursor paging is only supported for newest and oldest");
+        }
+
+        StringBuilder where = new StringBuilder(" where ").append(VISIBLE);
+        List<Object> params = new ArrayList<>();
+        params.add(now);
+        appendFilters(query, where, params);
+        List<Object> countParams = List.copyOf(params);
+        String countSql = "select count(*) from posts p" + where;
+
+        boolean oldestFirst = query.getSort() == PostQuery.Sort.OLDEST;
+        String direction = oldestFirst ? "asc" : "desc";
+        StringBuilder sql = new StringBuilder("select p.id, p.created_at from posts p");
+        if (query.getSort() == PostQuery.Sort.MOST_LIKED) {
+            sql.append(" left join (select r.post_id, count(*) as like_count from reactions r")
+                    .append(" where r.type = 'LIKE' group by r.post_id) l on l.post_id = p.id");
+        }
+        sql.append(where);
+
+        if (query.isKeyset() && !query.getCursor().isEmpty()) {
+            PostCursor after = PostCursor.decode(query.getCursor());
+            sql.append(" and (p.created_at, p.id) ").append(oldestFirst ? ">" : "<").append(" (?, ?)");
+            params.add(after.createdAt());
+            params.add(after.id());
+        }
+
+        sql.append(" order by ");
+        if (query.getSort() == PostQuery.Sort.MOST_LIKED) {
+            sql.append("coalesce(l.like_count, 0) desc, ");
+        }
+        sql.append("p.created_at ").append(direction).append(", p.id ").append(direction);
+
+        if (query.isKeyset()) {
+            // One extra row tells whether another page follows.
+            sql.append(" limit ?");
+            params.add(query.getSize() + 1);
+            return new Plan(sql.toString(), params, null, null);
+        }
+        sql.append(" limit ? offset ?");
+        params.add(query.getSize());
+        params.add((long) query.getPage() * query.getSize());
+        return new Plan(sql.toString(), params, countSql, countParams);
+    }
+
+    private static void appendFilters(PostQuery query, StringBuilder where, List<Object> params) {
+        if (query.getAuthorIds() != null) {
+            if (query.getAuthorIds().isEmpty()) {
+                where.append(" and 1 = 0");
+            } else {
+                where.append(" and p.author_id in ").append(placeholders(query.getAuthorIds().size()));
+                params.addAll(query.getAuthorIds());
+            }
+        }
+        if (query.getSeriesId() != null) {
+            where.append(" and p.series_id = ?");
+            params.add(query.getSeriesId());
+        }
+        if (query.getPremium() != null) {
+            where.append(" and p.is_premium = ?");
+            params.add(query.getPremium());
+        }
+        if (query.getCreatedFrom() != null) {
+            where.append(" and p.created_at >= ?");
+            params.add(query.getCreatedFrom());
+        }
+        if (query.getCreatedBefore() != null) {
+            where.append(" and p.created_at < ?");
+            params.add(query.getCreatedBefore());
+        }
+        if (query.getTitleContains() != null && !query.getTitleContains().isBlank()) {
+            where.append(" and lower(p.title) like ? escape '\\'");
+            params.add("%" + escapeLike(query.getTitleContains().trim().toLowerCase()) + "%");
+        }
+
+        List<String> tags = query.getTags();
+        if (!tags.isEmpty()) {
+            if (query.getTagMode() == PostQuery.TagMode.ANY || tags.size() == 1) {
+                where.append(" and exists (").append(TAG_MATCH).append(placeholders(tags.size())).append(")");
+                params.addAll(tags);
+            } else {
+                where.append(" and p.id in (select pt.post_id from post_tags pt join tags t on t.id = pt.tag_id")
+                        .append(" where t.name in ").append(placeholders(tags.size()))
+                        .append(" group by pt.post_id having count(*) = ?)");
+                params.addAll(tags);
+                params.add((long) tags.size());
+            }
+        }
+        if (!query.getExcludedTags().isEmpty()) {
+            where.append(" and not exists (").append(TAG_MATCH)
+                    .append(placeholders(query.getExcludedTags().size())).append(")");
+            params.addAll(query.getExcludedTags());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
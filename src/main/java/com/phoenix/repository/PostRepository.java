@@ -1,111 +1,44 @@
 package com.phoenix.repository;
 
+import com.phoenix.dto.PostCardResponse;
 import com.phoenix.entity.Post;
-import com.phoenix.entity.ReactionType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.time.LocalDateTime;
 
 @Repository
-public interface PostRepository extends JpaRepository<Post, UUID> {
-    Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
-    Page<Post> findByTitleContainingIgnoreCaseOrderByCreatedAtDesc(String title, Pageable pageable);
-    Page<Post> findByTitleContainingIgnoreCase(String title, Pageable pageable);
-
-    // Tag filter (Spring Data ManyToMany traversal)
-    Page<Post> findByTags_Name(String tagName, Pageable pageable);
-    Page<Post> findByTitleContainingIgnoreCaseAndTags_Name(String title, String tagName, Pageable pageable);
-    Page<Post> findByStatusAndTags_Name(com.phoenix.entity.PostStatus status, String tagName, Pageable pageable);
-    Page<Post> findByStatusAndTitleContainingIgnoreCaseAndTags_Name(com.phoenix.entity.PostStatus status, String title, String tagName, Pageable pageable);
-    Page<Post> findByStatus(com.phoenix.entity.PostStatus status, Pageable pageable);
-    Page<Post> findByStatusAndTitleContainingIgnoreCase(com.phoenix.entity.PostStatus status, String title, Pageable pageable);
-    List<Post> findByAuthorEmailAndStatus(String authorEmail, com.phoenix.entity.PostStatus status);
-
-    @Query("select p from Post p where p.author.email = :authorEmail and p.status = 'DRAFT' and (p.scheduledPublishAt is null or p.scheduledPublishAt > :now) order by p.updatedAt desc")
-    List<Post> findDraftAndScheduledByAuthorEmail(@Param("authorEmail") String authorEmail, @Param("now") LocalDateTime now);
+public interface PostRepository extends JpaRepository<Post, UUID>, PostSearchRepository {
 
-    List<Post> findByStatusAndScheduledPublishAtLessThanEqual(com.phoenix.entity.PostStatus status, LocalDateTime dateTime);
+    // Profile cards: an author's visible posts with comment and LIKE reaction counts, never touching content or cover
+    String CARDS = "select new com.phoenix.dto.PostCardResponse(p.id, p.title, p.createdAt, p.viewCount, " +
+            "(select count(c) from Comment c where c.post = p), " +
+            "(select count(r) from Reaction r where r.post = p and r.type = com.phoenix.entity.ReactionType.LIKE), " +
+            "case when exists (select r from Reaction r where r.post = p and r.type = com.phoenix.entity.ReactionType.LIKE " +
+            "and r.user.email = :viewerEmail) then true else false end) " +
+            "from Post p where p.author.id = :authorId and p.visibleAt <= :now ";
 
-    @Query(
-        value = "select p from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now)",
-        countQuery = "select count(p) from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now)"
-    )
-    Page<Post> findVisible(@Param("now") LocalDateTime now, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%'))",
-        countQuery = "select count(p) from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%'))"
-    )
-    Page<Post> findVisibleByTitle(@Param("title") String title, @Param("now") LocalDateTime now, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and t.name = :tag",
-        countQuery = "select count(p) from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and t.name = :tag"
-    )
-    Page<Post> findVisibleByTag(@Param("tag") String tag, @Param("now") LocalDateTime now, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%')) and t.name = :tag",
-        countQuery = "select count(p) from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%')) and t.name = :tag"
-    )
-    Page<Post> findVisibleByTitleAndTag(@Param("title") String title, @Param("tag") String tag, @Param("now") LocalDateTime now, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p left join Reaction r on r.post = p and r.type = :likeType where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) group by p order by count(r) desc, p.createdAt desc",
-        countQuery = "select count(p) from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now)"
-    )
-    Page<Post> findAllOrderByLikeCountDesc(@Param("now") LocalDateTime now, @Param("likeType") ReactionType likeType, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p left join Reaction r on r.post = p and r.type = :likeType " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%')) " +
-            "group by p order by count(r) desc, p.createdAt desc",
-        countQuery = "select count(p) from Post p " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%'))"
-    )
-    Page<Post> findByTitleContainingIgnoreCaseOrderByLikeCountDesc(
-        @Param("title") String title,
-        @Param("now") LocalDateTime now,
-        @Param("likeType") ReactionType likeType,
-        Pageable pageable
-    );
+    Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
-    @Query(
-        value = "select p from Post p left join Reaction r on r.post = p and r.type = :likeType join p.tags t " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and t.name = :tag group by p order by count(r) desc, p.createdAt desc",
-        countQuery = "select count(p) from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and t.name = :tag"
-    )
-    Page<Post> findByTagNameOrderByLikeCountDesc(
-        @Param("tag") String tag,
-        @Param("now") LocalDateTime now,
-        @Param("likeType") ReactionType likeType,
-        Pageable pageable
-    );
+    // Whether anyone may read the post: drafts and posts scheduled for later are not visible yet
+    @Query("select count(p) > 0 from Post p where p.id = :id and p.visibleAt <= :now")
+    boolean existsVisibleById(@Param("id") UUID id, @Param("now") LocalDateTime now);
 
-    @Query(
-        value = "select p from Post p left join Reaction r on r.post = p and r.type = :likeType join p.tags t " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%')) and t.name = :tag " +
-            "group by p order by count(r) desc, p.createdAt desc",
-        countQuery = "select count(p) from Post p join p.tags t " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and lower(p.title) like lower(concat('%', :title, '%')) and t.name = :tag"
-    )
-    Page<Post> findByTitleContainingIgnoreCaseAndTagNameOrderByLikeCountDesc(
-        @Param("title") String title,
-        @Param("tag") String tag,
-        @Param("now") LocalDateTime now,
-        @Param("likeType") ReactionType likeType,
-        Pageable pageable
-    );
+    @Query("select p from Post p where p.author.email = :authorEmail and p.status = 'DRAFT' and (p.scheduledPublishAt is null or p.scheduledPublishAt > :now) order by p.updatedAt desc")
+    List<Post> findDraftAndScheduledByAuthorEmail(@Param("authorEmail") String authorEmail, @Param("now") LocalDateTime now);
 
     @Query(
-        "select p from Post p join p.tags t where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and t.name in :tagNames and p.id != :excludeId " +
+        "select p from Post p join p.tags t where p.visibleAt <= :now and t.name in :tagNames and p.id != :excludeId " +
         "group by p order by count(t) desc, p.createdAt desc"
     )
     List<Post> findRelatedPosts(
@@ -115,22 +48,86 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
         Pageable pageable
     );
 
-    @Query("select p from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and p.id != :excludeId order by p.createdAt desc")
+    @Query("select p from Post p where p.visibleAt <= :now and p.id != :excludeId order by p.createdAt desc")
     List<Post> findRecentPostsExcluding(@Param("excludeId") UUID excludeId, @Param("now") LocalDateTime now, Pageable pageable);
 
-    @Query(
-        value = "select p from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and p.author.id in :authorIds order by p.createdAt desc",
-        countQuery = "select count(p) from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and p.author.id in :authorIds"
-    )
-    Page<Post> findByAuthorIdIn(@Param("authorIds") List<UUID> authorIds, @Param("now") LocalDateTime now, Pageable pageable);
-
-    @Query(
-        value = "select p from Post p left join Like l on l.post = p " +
-            "where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and p.createdAt >= :since " +
-            "group by p order by count(l) desc, p.viewCount desc, p.createdAt desc",
-        countQuery = "select count(p) from Post p where p.status = 'PUBLISHED' and (p.scheduledPublishAt is null or p.scheduledPublishAt <= :now) and p.createdAt >= :since"
-    )
-    List<Post> findTopPostsSince(@Param("since") java.time.LocalDateTime since, @Param("now") java.time.LocalDateTime now, Pageable pageable);
+    // Weekly digest candidates: posts that went live in the window,
+    // as (id, author id, author name, title, view count, reaction count, author handle)
+    @Query("select p.id, p.author.id, p.author.name, p.title, p.viewCount, " +
+            "(select count(r) from Reaction r where r.post = p), p.author.handle " +
+            "from Post p where p.visibleAt > :since and p.visibleAt <= :now")
+    List<Object[]> findDigestCandidates(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Query("select p.id, t.id from Post p join p.tags t where p.visibleAt > :since and p.visibleAt <= :now")
+    List<Object[]> findDigestCandidateTags(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    // Newest first through idx_posts_author_created_at; the first page, then keyset pages after (:createdAt, :id)
+    @Query(CARDS + "order by p.createdAt desc, p.id desc")
+    List<PostCardResponse> findCards(@Param("authorId") UUID authorId, @Param("now") LocalDateTime now,
+                                     @Param("viewerEmail") String viewerEmail, Pageable pageable);
+
+    @Query(CARDS + "and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id)) order by p.createdAt desc, p.id desc")
+    List<PostCardResponse> findCardsBefore(@Param("authorId") UUID authorId, @Param("now") LocalDateTime now,
+                                           @Param("viewerEmail") String viewerEmail, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") UUID id, Pageable pageable);
+
+    @Query(CARDS + "order by p.viewCount desc, p.id desc")
+    List<PostCardResponse> findCardsByViews(@Param("authorId") UUID authorId, @Param("now") LocalDateTime now,
+                                            @Param("viewerEmail") String viewerEmail, Pageable pageable);
+
+    @Query(CARDS + "order by (select count(r) from Reaction r where r.post = p and r.type = com.phoenix.entity.ReactionType.LIKE) desc, p.id desc")
+    List<PostCardResponse> findCardsByLikes(@Param("authorId") UUID authorId, @Param("now") LocalDateTime now,
+                                            @Param("viewerEmail") String viewerEmail, Pageable pageable);
+
+    // Fills visible_at for published rows written before the column existed
+    @Modifying
+    @Query("update Post p set p.visibleAt = p.createdAt where p.visibleAt is null and p.status = 'PUBLISHED' and p.scheduledPublishAt is null")
+    int backfillVisibleAt();
+
+    // Scheduled publishing: pending due times, then lock-and-flip of the ones that are due
+    @Query("select p.id, p.scheduledPublishAt from Post p where p.scheduledPublishAt is not null")
+    List<Object[]> findPendingSchedules();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id, p.createdAt, p.author.id, p.scheduledPublishAt from Post p where p.scheduledPublishAt <= :now")
+    List<Object[]> lockDueSchedules(@Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id, p.createdAt, p.author.id, p.scheduledPublishAt from Post p where p.id in :ids and p.scheduledPublishAt <= :now")
+    List<Object[]> lockDueSchedulesIn(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Post p set p.status = com.phoenix.entity.PostStatus.PUBLISHED, p.visibleAt = p.scheduledPublishAt, " +
+            "p.scheduledPublishAt = null, p.updatedAt = :now where p.id in :ids")
+    int publishScheduled(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    @Query("select p.id, t.name from Post p join p.tags t where p.id in :ids")
+    List<Object[]> findTagPairsByPostIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Seed queries for the in-memory tag index (published and no longer scheduled)
+    @Query("select p.id, p.createdAt from Post p where p.status = 'PUBLISHED' and p.scheduledPublishAt is null order by p.createdAt asc")
+    List<Object[]> findListedPostKeys();
+
+    @Query("select p.id, t.name from Post p join p.tags t where p.status = 'PUBLISHED' and p.scheduledPublishAt is null")
+    List<Object[]> findListedPostTagPairs();
+
+    // For You candidates: followed authors' posts that went live since :since, newest first
+    @Query("select p.id from Post p where p.author.id in :authorIds and p.visibleAt > :since and p.visibleAt <= :now " +
+            "order by p.visibleAt desc")
+    List<UUID> findRecentIdsByAuthorIdIn(@Param("authorIds") Collection<UUID> authorIds, @Param("since") LocalDateTime since,
+                                         @Param("now") LocalDateTime now, Pageable pageable);
+
+    // For You trending pool: posts that went live since :since with the most reactions
+    @Query("select p.id from Post p where p.visibleAt > :since and p.visibleAt <= :now " +
+            "order by (select count(r) from Reaction r where r.post = p) desc, p.visibleAt desc")
+    List<UUID> findTrendingIds(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // For You ranking features of the candidates still visible:
+    // (id, author id, visible at, view count, reaction count, comment count)
+    @Query("select p.id, p.author.id, p.visibleAt, p.viewCount, " +
+            "(select count(r) from Reaction r where r.post = p), (select count(c) from Comment c where c.post = p) " +
+            "from Post p where p.id in :ids and p.visibleAt <= :now")
+    List<Object[]> findRankingFeatures(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
 
     // Series helpers
     List<Post> findBySeries_IdOrderBySeriesOrder(UUID seriesId);
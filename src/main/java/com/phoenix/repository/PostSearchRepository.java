@@ -0,0 +1,22 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.Post;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Composable public post listing; mixed into {@link PostRepository}. */
+public interface PostSearchRepository {
+
+    /**
+     * One page of posts visible at {@code now} matching {@code query}, in display order.
+     *
+     * @param posts         the page, with the rest of each entity loaded lazily
+     * @param totalElements total matches in offset mode; -1 in keyset mode, which skips counting
+     * @param nextCursor    cursor for the following page in keyset mode, null on the last page
+     */
+    record Result(List<Post> posts, long totalElements, boolean hasNext, String nextCursor) {
+    }
+
+    Result search(PostQuery query, LocalDateTime now);
+}
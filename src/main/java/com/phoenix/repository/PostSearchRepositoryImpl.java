@@ -0,0 +1,86 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.Post;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs a {@link PostQueryPlanner} plan: the planned statement picks the ids of one
+ * page, then those rows are loaded in a single select and put back in plan order.
+ */
+class PostSearchRepositoryImpl implements PostSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Result search(PostQuery query, LocalDateTime now) {
+        PostQueryPlanner.Plan plan = PostQueryPlanner.plan(query, now);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = bind(entityManager.createNativeQuery(plan.sql()), plan.params())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", StandardBasicTypes.UUID)
+                .addScalar("created_at", StandardBasicTypes.LOCAL_DATE_TIME)
+                .getResultList();
+
+        boolean hasNext;
+        long total;
+        String nextCursor = null;
+        if (query.isKeyset()) {
+            hasNext = rows.size() > query.getSize();
+            if (hasNext) {
+                rows = rows.subList(0, query.getSize());
+                Object[] last = rows.get(rows.size() - 1);
+                nextCursor = new PostCursor((LocalDateTime) last[1], (UUID) last[0]).encode();
+            }
+            total = -1;
+        } else {
+            total = ((Number) bind(entityManager.createNativeQuery(plan.countSql()), plan.countParams())
+                    .getSingleResult()).longValue();
+            hasNext = (long) (query.getPage() + 1) * query.getSize() < total;
+        }
+
+        List<UUID> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((UUID) row[0]);
+        }
+        return new Result(load(ids), total, hasNext, nextCursor);
+    }
+
+    private List<Post> load(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Post> byId = new HashMap<>();
+        entityManager.createQuery("select p from Post p where p.id in :ids", Post.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(p -> byId.put(p.getId(), p));
+        List<Post> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Post post = byId.get(id);
+            if (post != null) {
+                ordered.add(post);
+            }
+        }
+        return ordered;
+    }
+
+    private static Query bind(Query query, List<Object> params) {
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query;
+    }
+}
@@ -2,14 +2,21 @@ package com.phoenix.repository;
 
 import com.phoenix.entity.PostView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PostViewRepository extends JpaRepository<PostView, UUID> {
     boolean existsByPostIdAndUserId(UUID postId, UUID userId);
 
+    // For You affinity: (tag name, posts viewed) for one user, through idx_post_views_user_id
+    @Query("select t.name, count(v) from PostView v, Post p join p.tags t where p.id = v.postId and v.userId = :userId group by t.name")
+    List<Object[]> countViewedTagNames(@Param("userId") UUID userId);
+
     @org.springframework.transaction.annotation.Transactional
     void deleteByPostId(UUID postId);
 }
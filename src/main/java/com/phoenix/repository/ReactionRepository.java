@@ -12,6 +12,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -41,4 +43,14 @@ public interface ReactionRepository extends JpaRepository<Reaction, UUID> {
     
     @Query("SELECT r.type, COUNT(r) FROM Reaction r WHERE r.post.id = :postId GROUP BY r.type")
     List<Object[]> countReactionsByType(@Param("postId") UUID postId);
+
+    // Tag affinity for the weekly digest: (user id, tag id, reactions) per user since :since
+    @Query("SELECT r.user.id, t.id, COUNT(r) FROM Reaction r JOIN r.post.tags t " +
+            "WHERE r.user.id IN :userIds AND r.createdAt >= :since GROUP BY r.user.id, t.id")
+    List<Object[]> countReactedTagsByUserIdIn(@Param("userIds") Collection<UUID> userIds, @Param("since") LocalDateTime since);
+
+    // For You affinity: (tag name, reactions) for one user since :since, through idx_reactions_user_created_at
+    @Query("SELECT t.name, COUNT(r) FROM Reaction r JOIN r.post.tags t " +
+            "WHERE r.user.id = :userId AND r.createdAt >= :since GROUP BY t.name")
+    List<Object[]> countReactedTagNames(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
 }
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,7 +15,9 @@ public interface TagRepository extends JpaRepository<Tag, UUID> {
 
     Optional<Tag> findByName(String name);
 
-    // All tags that are actually used in at least one post, sorted by usage count desc then name asc
-    @Query("select t.name from Tag t inner join t.posts p group by t.name order by count(p) desc, t.name asc")
-    List<String> findAllUsedTagNamesSortedByUsage();
+    List<Tag> findByNameIn(Collection<String> names);
+
+    // Usage counts over published, no-longer-scheduled posts; seeds TagUsageCache
+    @Query("select t.name, count(p) from Tag t inner join t.posts p where p.status = 'PUBLISHED' and p.scheduledPublishAt is null group by t.name")
+    List<Object[]> countPublishedUsageByTagName();
 }
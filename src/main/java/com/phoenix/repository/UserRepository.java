@@ -1,11 +1,14 @@
 package com.phoenix.repository;
 
 import com.phoenix.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,10 +17,42 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE TRIM(u.name) = TRIM(:name)")
-    Optional<User> findByName(@Param("name") String name);
+    // Served by idx_users_handle; callers pass User.toHandle(name)
+    @Query("select u.id from User u where u.handle = :handle")
+    Optional<UUID> findIdByHandle(@Param("handle") String handle);
 
     boolean existsByEmail(String email);
 
-    List<User> findByEmailDigestEnabled(boolean emailDigestEnabled);
+    boolean existsByHandle(String handle);
+
+    // Users from before the handle column, oldest first so they keep the unsuffixed handle
+    @Query("select u.id, u.name from User u where u.handle is null order by u.createdAt, u.id")
+    List<Object[]> findWithoutHandle(Pageable pageable);
+
+    // :suffixed is the handle with like wildcards escaped, followed by '-%'
+    @Query("select u.handle from User u where u.handle = :handle or u.handle like :suffixed escape '\\'")
+    List<String> findHandlesStartingWith(@Param("handle") String handle, @Param("suffixed") String suffixed);
+
+    @Modifying
+    @Query("update User u set u.handle = :handle where u.id = :id")
+    int setHandle(@Param("id") UUID id, @Param("handle") String handle);
+
+    // Profile header as (id, name, email, bio, avatar, website, joined, posts, followers, following,
+    // followed by viewer, views, likes, comments), counted over visible posts in one statement
+    @Query("select u.id, u.name, u.email, u.bio, u.avatarUrl, u.websiteUrl, u.createdAt, " +
+            "(select count(p) from Post p where p.author = u and p.visibleAt <= :now), " +
+            "(select count(f) from Follow f where f.following = u), " +
+            "(select count(f) from Follow f where f.follower = u), " +
+            "case when exists (select f from Follow f where f.following = u and f.follower.email = :viewerEmail) then true else false end, " +
+            "(select coalesce(sum(p.viewCount), 0) from Post p where p.author = u and p.visibleAt <= :now), " +
+            "(select count(r) from Reaction r where r.post.author = u and r.post.visibleAt <= :now " +
+            "and r.type = com.phoenix.entity.ReactionType.LIKE), " +
+            "(select count(c) from Comment c where c.post.author = u and c.post.visibleAt <= :now) " +
+            "from User u where u.id = :id")
+    List<Object[]> findProfileHeader(@Param("id") UUID id, @Param("now") LocalDateTime now,
+                                     @Param("viewerEmail") String viewerEmail);
+
+    // Digest recipients as (id, email, name), keyset-paged by id
+    @Query("select u.id, u.email, u.name from User u where u.emailDigestEnabled = true and u.id > :after order by u.id")
+    List<Object[]> findDigestRecipientsAfter(@Param("after") UUID after, Pageable pageable);
 }
@@ -33,6 +33,7 @@ public class AdminService {
     private final BookmarkRepository bookmarkRepository;
     private final PaymentRepository paymentRepository;
     private final PostViewRepository postViewRepository;
+    private final PostService postService;
 
     @Transactional
     public List<PostResponse> getAllPostsForAdmin() {
@@ -55,11 +56,11 @@ public class AdminService {
         Post post = postRepository.findById(Objects.requireNonNull(postId))
                 .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + postId));
         likeRepository.deleteByPostId(postId);
-        commentRepository.deleteRepliesByPostId(postId);
-        commentRepository.deleteByPostId(postId);
+        commentRepository.deleteAllByPostId(postId);
         bookmarkRepository.deleteByPostId(postId);
         paymentRepository.deleteByPostId(postId);
         postViewRepository.deleteByPostId(postId);
+        postService.publishListingRemoved(post);
         postRepository.delete(Objects.requireNonNull(post));
     }
 
@@ -69,6 +70,7 @@ public class AdminService {
                 .title(post.getTitle())
                 .content(post.getContent())
                 .authorName(post.getAuthor().getName())
+                .authorHandle(post.getAuthor().getHandle())
                 .authorEmail(post.getAuthor().getEmail())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
@@ -9,18 +9,22 @@ import com.phoenix.entity.PasswordResetToken;
 import com.phoenix.entity.User;
 import com.phoenix.entity.UserRole;
 import com.phoenix.exception.EmailAlreadyExistsException;
+import com.phoenix.exception.HandleAlreadyExistsException;
 import com.phoenix.repository.PasswordResetTokenRepository;
 import com.phoenix.repository.UserRepository;
 import com.phoenix.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,7 +33,10 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final Duration RESET_TOKEN_TTL = Duration.ofHours(1);
+
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
@@ -44,6 +51,9 @@ public class AuthService {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new EmailAlreadyExistsException("Email already exists");
         }
+        if (userDirectory.isTaken(request.getName())) {
+            throw new HandleAlreadyExistsException("Name is already taken");
+        }
 
         User user = User.builder()
                 .email(request.getEmail().trim())
@@ -52,7 +62,16 @@ public class AuthService {
                 .role(UserRole.ROLE_USER)
                 .build();
 
-        userRepository.save(Objects.requireNonNull(user));
+        try {
+            userRepository.saveAndFlush(Objects.requireNonNull(user));
+        } catch (DataIntegrityViolationException e) {
+            // Someone registered the same email or name between the checks above and this insert
+            String constraint = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (constraint.contains("idx_users_handle")) {
+                throw new HandleAlreadyExistsException("Name is already taken");
+            }
+            throw new EmailAlreadyExistsException("Email already exists");
+        }
 
         String token = jwtTokenProvider.generateToken(user);
 
@@ -60,6 +79,7 @@ public class AuthService {
                 .token(token)
                 .email(user.getEmail())
                 .name(user.getName())
+                .handle(user.getHandle())
                 .role(user.getRole().name().replace("ROLE_", ""))
                 .avatarUrl(user.getAvatarUrl())
                 .build();
@@ -82,6 +102,7 @@ public class AuthService {
                 .token(token)
                 .email(user.getEmail())
                 .name(user.getName())
+                .handle(user.getHandle())
                 .role(user.getRole().name().replace("ROLE_", ""))
                 .avatarUrl(user.getAvatarUrl())
                 .build();
@@ -99,22 +120,16 @@ public class AuthService {
             PasswordResetToken resetToken = PasswordResetToken.builder()
                     .token(rawToken)
                     .user(user)
-                    .expiresAt(Objects.requireNonNull(LocalDateTime.now().plusHours(1)))
+                    .expiresAt(Objects.requireNonNull(LocalDateTime.now().plus(RESET_TOKEN_TTL)))
                     .used(false)
                     .build();
 
             passwordResetTokenRepository.save(Objects.requireNonNull(resetToken));
 
             String resetLink = frontendUrl + "/reset-password?token=" + rawToken;
-            try {
-                emailService.sendPasswordResetEmail(user.getEmail(), resetLink);
-            } catch (Exception e) {
-                // Log the real SMTP error server-side but do not propagate to the caller.
-                // The endpoint always returns HTTP 200 to prevent email enumeration attacks.
-                org.slf4j.LoggerFactory.getLogger(AuthService.class)
-                        .error("[SMTP] Failed to send password reset email to {} (userId={}): {}",
-                                user.getEmail(), user.getId(), e.getMessage(), e);
-            }
+            // Queued with this transaction; delivery (and any SMTP error) happens off the request thread,
+            // and stops once the link in it has expired.
+            emailService.queuePasswordResetEmail(user.getEmail(), resetLink, RESET_TOKEN_TTL);
         });
     }
 
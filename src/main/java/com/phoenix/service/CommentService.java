@@ -7,12 +7,18 @@ import com.phoenix.entity.Comment;
 import com.phoenix.entity.NotificationType;
 import com.phoenix.entity.Post;
 import com.phoenix.entity.User;
+import com.phoenix.event.PostEngagementChangedEvent;
 import com.phoenix.exception.PostNotFoundException;
 import com.phoenix.exception.UnauthorizedException;
 import com.phoenix.repository.CommentRepository;
 import com.phoenix.repository.PostRepository;
 import com.phoenix.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -21,21 +27,39 @@ import org.springframework.stereotype.Service;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CommentService {
 
+    private static final int MAX_REPLIES_PAGE = 50;
+    private static final int BACKFILL_BATCH = 1000;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional
+    @Value("${app.comments.inline-replies:3}")
+    private int inlineReplies;
+
+    /**
+     * One page of top-level comments, newest first, each with its first
+     * {@code app.comments.inline-replies} replies in display order, at any depth, and
+     * its reply count. Takes the same four queries however many comments and replies
+     * there are: the page with its authors, the page count, the ranked first replies
+     * with theirs, and the counts.
+     */
+    @Transactional(readOnly = true)
     public PagedResponse<CommentResponse> getCommentsByPostId(@NonNull UUID postId, int page, int size) {
         if (!postRepository.existsById(Objects.requireNonNull(postId))) {
             throw new PostNotFoundException("Post not found with id: " + postId);
@@ -44,12 +68,8 @@ public class CommentService {
         PageRequest pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         Page<Comment> commentPage = commentRepository.findByPostIdAndParentIsNullOrderByCreatedAtDesc(postId, pageable);
 
-        List<CommentResponse> content = commentPage.getContent().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-
         return PagedResponse.<CommentResponse>builder()
-                .content(content)
+                .content(withReplies(postId, commentPage.getContent()))
                 .pageNumber(commentPage.getNumber())
                 .pageSize(commentPage.getSize())
                 .totalElements(commentPage.getTotalElements())
@@ -59,6 +79,49 @@ public class CommentService {
                 .build();
     }
 
+    /**
+     * The replies under {@code commentId} at every depth, in display order, after
+     * {@code cursor} (a comment's {@code repliesCursor} or the previous page's
+     * {@code nextCursor}; null to start from the first reply). One range scan over the
+     * comment's path, however deep the thread goes. Keyset paging, so the total is not
+     * counted.
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<CommentResponse> getReplies(@NonNull UUID postId, @NonNull UUID commentId, String cursor, int size) {
+        if (size < 1 || size > MAX_REPLIES_PAGE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_REPLIES_PAGE);
+        }
+        if (!postRepository.existsById(Objects.requireNonNull(postId))) {
+            throw new PostNotFoundException("Post not found with id: " + postId);
+        }
+        Comment comment = commentRepository.findById(Objects.requireNonNull(commentId))
+                .filter(c -> c.getPost().getId().equals(postId))
+                .orElseThrow(() -> new RuntimeException("Comment not found"));
+
+        boolean first = cursor == null || cursor.isBlank();
+        String after = first ? comment.getPath() : cursor;
+        if (!after.startsWith(comment.getPath()) || after.length() % Comment.PATH_SEGMENT_LENGTH != 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        List<Comment> replies = commentRepository.findSubtree(after, Comment.subtreeEnd(comment.getPath()),
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = replies.size() > size;
+        if (hasNext) {
+            replies = replies.subList(0, size);
+        }
+        return PagedResponse.<CommentResponse>builder()
+                .content(replies.stream().map(this::convertToResponse).collect(Collectors.toList()))
+                .pageNumber(0)
+                .pageSize(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .first(first)
+                .last(!hasNext)
+                .nextCursor(hasNext ? replies.get(replies.size() - 1).getPath() : null)
+                .build();
+    }
+
     @Transactional
     public CommentResponse createComment(@NonNull UUID postId, CommentRequest request, String userEmail) {
         Post post = postRepository.findById(Objects.requireNonNull(postId))
@@ -75,27 +138,30 @@ public class CommentService {
         Comment parent = null;
         if (request.getParentId() != null) {
             parent = commentRepository.findById(Objects.requireNonNull(request.getParentId()))
+                    .filter(c -> c.getPost().getId().equals(postId))
                     .orElseThrow(() -> new RuntimeException("Parent comment not found"));
+            if (parent.getDepth() + 1 >= Comment.MAX_DEPTH) {
+                throw new IllegalArgumentException("Replies can be nested at most " + (Comment.MAX_DEPTH - 1) + " deep");
+            }
             builder.parent(parent);
         }
 
         Comment savedComment = commentRepository.save(Objects.requireNonNull(builder.build()));
+        eventPublisher.publishEvent(PostEngagementChangedEvent.comments(post.getId(), 1));
 
         if (parent != null) {
             notificationService.createNotification(
-                    parent.getAuthor(),
+                    parent.getAuthor().getId(),
                     NotificationType.REPLY,
-                    author.getName(),
-                    author.getEmail(),
+                    author,
                     author.getName() + " replied to your comment",
                     post.getId(),
                     post.getTitle());
         } else {
             notificationService.createNotification(
-                    post.getAuthor(),
+                    post.getAuthor().getId(),
                     NotificationType.COMMENT,
-                    author.getName(),
-                    author.getEmail(),
+                    author,
                     author.getName() + " commented on your post \"" + post.getTitle() + "\"",
                     post.getId(),
                     post.getTitle());
@@ -115,7 +181,8 @@ public class CommentService {
 
         comment.setContent(request.getContent());
         Comment updated = commentRepository.save(comment);
-        return convertToResponse(updated);
+        return updated.getParent() == null ? withReplies(updated.getPost().getId(), List.of(updated)).get(0)
+                : convertToResponse(updated);
     }
 
     @Transactional
@@ -127,33 +194,81 @@ public class CommentService {
             throw new UnauthorizedException("You are not authorized to delete this comment");
         }
 
-        commentRepository.delete(comment);
+        int deleted = commentRepository.deleteSubtree(comment.getPath(), Comment.subtreeEnd(comment.getPath()));
+        eventPublisher.publishEvent(PostEngagementChangedEvent.comments(comment.getPost().getId(), -deleted));
     }
 
-    private CommentResponse convertToResponse(Comment comment) {
-        List<CommentResponse> replies = (comment.getReplies() == null) ? List.of()
-                : comment.getReplies().stream()
-                        .map(r -> CommentResponse.builder()
-                                .id(r.getId())
-                                .content(r.getContent())
-                                .authorName(r.getAuthor().getName())
-                                .authorEmail(r.getAuthor().getEmail())
-                                .createdAt(r.getCreatedAt())
-                                .updatedAt(r.getUpdatedAt())
-                                .parentId(comment.getId())
-                                .replies(List.of())
-                                .build())
-                        .collect(Collectors.toList());
+    /** Gives paths to comments written before the column existed, a level per pass. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillPaths() {
+        int updated = 0;
+        List<Comment> batch;
+        while (!(batch = commentRepository.findWithoutPath(PageRequest.of(0, BACKFILL_BATCH))).isEmpty()) {
+            for (Comment comment : batch) {
+                String parentPath = comment.getParent() != null ? comment.getParent().getPath() : "";
+                comment.setPath(parentPath + Comment.pathSegment(comment.getCreatedAt(),
+                        (int) comment.getId().getLeastSignificantBits()));
+            }
+            commentRepository.saveAllAndFlush(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            log.info("Backfilled paths for {} comments", updated);
+        }
+    }
+
+    /**
+     * Converts top-level {@code comments} with their first replies and reply counts,
+     * in two queries for the lot. A root's path is the prefix of all its replies'.
+     */
+    private List<CommentResponse> withReplies(UUID postId, List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return List.of();
+        }
+        List<String> rootPaths = comments.stream().map(Comment::getPath).collect(Collectors.toList());
 
+        Map<String, List<Comment>> firstReplies = new HashMap<>();
+        for (Comment reply : commentRepository.findFirstDescendants(postId, rootPaths, inlineReplies)) {
+            firstReplies.computeIfAbsent(rootPath(reply), path -> new ArrayList<>()).add(reply);
+        }
+        Map<String, Long> replyCounts = new HashMap<>();
+        for (Object[] row : commentRepository.countDescendants(postId, rootPaths)) {
+            replyCounts.put((String) row[0], (Long) row[1]);
+        }
+
+        List<CommentResponse> responses = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            List<Comment> replies = firstReplies.getOrDefault(comment.getPath(), List.of());
+            long replyCount = replyCounts.getOrDefault(comment.getPath(), 0L);
+            CommentResponse response = convertToResponse(comment);
+            response.setReplies(replies.stream().map(this::convertToResponse).collect(Collectors.toList()));
+            response.setReplyCount(replyCount);
+            if (replyCount > replies.size() && !replies.isEmpty()) {
+                response.setRepliesCursor(replies.get(replies.size() - 1).getPath());
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private static String rootPath(Comment comment) {
+        return comment.getPath().substring(0, Comment.PATH_SEGMENT_LENGTH);
+    }
+
+    /** The comment alone; its replies are left out rather than loaded one by one. */
+    private CommentResponse convertToResponse(Comment comment) {
         return CommentResponse.builder()
                 .id(comment.getId())
                 .content(comment.getContent())
                 .authorName(comment.getAuthor().getName())
+                .authorHandle(comment.getAuthor().getHandle())
                 .authorEmail(comment.getAuthor().getEmail())
                 .createdAt(comment.getCreatedAt())
                 .updatedAt(comment.getUpdatedAt())
                 .parentId(comment.getParent() != null ? comment.getParent().getId() : null)
-                .replies(replies)
+                .depth(comment.getDepth())
+                .replies(List.of())
                 .build();
     }
 }
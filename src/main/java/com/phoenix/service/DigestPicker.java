@@ -0,0 +1,301 @@
+package com.phoenix.service;
+
+import com.phoenix.service.EmailDigestService.DigestPost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Chooses each subscriber's digest posts in memory, from one load of the week's
+ * candidate posts plus per-chunk batches of follow and tag-affinity rows.
+ * <p>
+ * Candidates get dense int indexes; posts by author and by tag are stored as
+ * compressed int arrays ordered by popularity. A user's score for a post is its
+ * normalized popularity, plus {@value #FOLLOW_BOOST} if the user follows the
+ * author, plus up to {@value #AFFINITY_BOOST} for tags the user has reacted to
+ * recently. Only posts reachable from the user's follows, their top
+ * {@value #MAX_TAGS_PER_USER} tags (at most {@value #MAX_POSTS_PER_TAG} posts each)
+ * or the global top list are scored, so the work per user is bounded and a run is
+ * linear in users and posts. Not thread-safe: it reuses scratch arrays between users.
+ */
+final class DigestPicker {
+
+    static final int PICKS = 5;
+    private static final int MAX_TAGS_PER_USER = 10;
+    private static final int MAX_POSTS_PER_TAG = 50;
+    private static final double FOLLOW_BOOST = 2.0;
+    private static final double AFFINITY_BOOST = 1.0;
+
+    private final List<DigestPost> posts;
+    private final double[] popularity;
+    private final int[] globalTop;
+    private final Map<UUID, Integer> authorIndex = new HashMap<>();
+    private final Csr postsByAuthor;
+    private final Map<UUID, Integer> tagIndex = new HashMap<>();
+    private final Csr postsByTag;
+
+    // Per-user scratch, valid where stamp[post] == generation
+    private final int[] stamp;
+    private final boolean[] followed;
+    private final double[] affinity;
+    private final int[] touched;
+    private int touchedCount;
+    private int generation;
+
+    /**
+     * @param candidates rows of (post id, author id, author name, title, view count, reaction count, author handle)
+     * @param postTags   rows of (post id, tag id) for the candidates
+     */
+    DigestPicker(List<Object[]> candidates, List<Object[]> postTags) {
+        int count = candidates.size();
+        posts = new ArrayList<>(count);
+        popularity = new double[count];
+        Map<UUID, Integer> postIndex = new HashMap<>(count * 2);
+        int[] postAuthor = new int[count];
+        double max = 0;
+        for (int i = 0; i < count; i++) {
+            Object[] row = candidates.get(i);
+            UUID postId = (UUID) row[0];
+            long views = ((Number) row[4]).longValue();
+            long reactions = ((Number) row[5]).longValue();
+            posts.add(new DigestPost(postId, (String) row[3], (String) row[2], (String) row[6], views));
+            postIndex.put(postId, i);
+            postAuthor[i] = authorIndex.computeIfAbsent((UUID) row[1], k -> authorIndex.size());
+            popularity[i] = reactions + views / 100.0;
+            max = Math.max(max, popularity[i]);
+        }
+        if (max > 0) {
+            for (int i = 0; i < count; i++) {
+                popularity[i] /= max;
+            }
+        }
+
+        int[] byPopularity = rankByPopularity();
+        globalTop = Arrays.copyOf(byPopularity, Math.min(PICKS, count));
+        postsByAuthor = Csr.group(authorIndex.size(), byPopularity, postAuthor, Integer.MAX_VALUE);
+
+        int[] tagOfPair = new int[postTags.size()];
+        int[] postOfPair = new int[postTags.size()];
+        int pairs = 0;
+        for (Object[] row : postTags) {
+            Integer post = postIndex.get((UUID) row[0]);
+            if (post != null) {
+                postOfPair[pairs] = post;
+                tagOfPair[pairs] = tagIndex.computeIfAbsent((UUID) row[1], k -> tagIndex.size());
+                pairs++;
+            }
+        }
+        postsByTag = Csr.groupPairs(tagIndex.size(), tagOfPair, postOfPair, pairs, popularity, MAX_POSTS_PER_TAG);
+
+        stamp = new int[count];
+        followed = new boolean[count];
+        affinity = new double[count];
+        touched = new int[count];
+    }
+
+    boolean isEmpty() {
+        return posts.isEmpty();
+    }
+
+    /** Candidate posts; picks are indexes into this list. */
+    List<DigestPost> posts() {
+        return posts;
+    }
+
+    /**
+     * Picks for every user of one chunk.
+     *
+     * @param followPairs rows of (follower id, followed id) for the chunk's users
+     * @param tagCounts   rows of (user id, tag id, reaction count) for the chunk's users
+     * @return up to {@link #PICKS} post indexes per user, best first
+     */
+    Map<UUID, int[]> pickFor(List<UUID> userIds, List<Object[]> followPairs, List<Object[]> tagCounts) {
+        Map<UUID, Integer> userIndex = new HashMap<>(userIds.size() * 2);
+        for (UUID userId : userIds) {
+            userIndex.putIfAbsent(userId, userIndex.size());
+        }
+
+        int[] followUser = new int[followPairs.size()];
+        int[] followAuthor = new int[followPairs.size()];
+        int follows = 0;
+        for (Object[] row : followPairs) {
+            Integer user = userIndex.get((UUID) row[0]);
+            Integer author = authorIndex.get((UUID) row[1]);
+            if (user != null && author != null) {
+                followUser[follows] = user;
+                followAuthor[follows] = author;
+                follows++;
+            }
+        }
+        Csr authorsByUser = Csr.groupPairs(userIndex.size(), followUser, followAuthor, follows, null, Integer.MAX_VALUE);
+
+        // Each tag entry packs (reaction count, tag) into a long so sorting ranks by count.
+        int[] tagUser = new int[tagCounts.size()];
+        long[] tagEntry = new long[tagCounts.size()];
+        int tagEntries = 0;
+        for (Object[] row : tagCounts) {
+            Integer user = userIndex.get((UUID) row[0]);
+            Integer tag = tagIndex.get((UUID) row[1]);
+            if (user != null && tag != null) {
+                tagUser[tagEntries] = user;
+                tagEntry[tagEntries] = (((Number) row[2]).longValue() << 32) | tag;
+                tagEntries++;
+            }
+        }
+        int[] tagStart = new int[userIndex.size() + 1];
+        long[] tagsByUser = Csr.groupLongs(userIndex.size(), tagUser, tagEntry, tagEntries, tagStart);
+
+        Map<UUID, int[]> picks = new HashMap<>(userIndex.size() * 2);
+        userIndex.forEach((userId, user) -> picks.put(userId, pick(
+                authorsByUser, user, tagsByUser, tagStart[user], tagStart[user + 1])));
+        return picks;
+    }
+
+    private int[] pick(Csr authorsByUser, int user, long[] tagsByUser, int tagFrom, int tagTo) {
+        generation++;
+        touchedCount = 0;
+
+        for (int i = authorsByUser.start[user]; i < authorsByUser.start[user + 1]; i++) {
+            int author = authorsByUser.values[i];
+            for (int j = postsByAuthor.start[author]; j < postsByAuthor.start[author + 1]; j++) {
+                followed[touch(postsByAuthor.values[j])] = true;
+            }
+        }
+
+        if (tagTo > tagFrom) {
+            Arrays.sort(tagsByUser, tagFrom, tagTo);
+            double topCount = tagsByUser[tagTo - 1] >>> 32;
+            for (int i = tagTo - 1; i >= Math.max(tagFrom, tagTo - MAX_TAGS_PER_USER); i--) {
+                int tag = (int) tagsByUser[i];
+                double weight = (tagsByUser[i] >>> 32) / topCount;
+                for (int j = postsByTag.start[tag]; j < postsByTag.start[tag + 1]; j++) {
+                    affinity[touch(postsByTag.values[j])] += weight;
+                }
+            }
+        }
+
+        for (int post : globalTop) {
+            touch(post);
+        }
+
+        int[] best = new int[Math.min(PICKS, touchedCount)];
+        double[] bestScore = new double[best.length];
+        int filled = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int post = touched[i];
+            double score = popularity[post]
+                    + (followed[post] ? FOLLOW_BOOST : 0)
+                    + AFFINITY_BOOST * Math.min(1.0, affinity[post]);
+            if (filled < best.length) {
+                filled++;
+            } else if (score <= bestScore[filled - 1]) {
+                continue;
+            }
+            int at = filled - 1;
+            while (at > 0 && bestScore[at - 1] < score) {
+                best[at] = best[at - 1];
+                bestScore[at] = bestScore[at - 1];
+                at--;
+            }
+            best[at] = post;
+            bestScore[at] = score;
+        }
+        return best;
+    }
+
+    private int touch(int post) {
+        if (stamp[post] != generation) {
+            stamp[post] = generation;
+            followed[post] = false;
+            affinity[post] = 0;
+            touched[touchedCount++] = post;
+        }
+        return post;
+    }
+
+    private int[] rankByPopularity() {
+        Integer[] order = new Integer[popularity.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(popularity[b], popularity[a]));
+        int[] ranked = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ranked[i] = order[i];
+        }
+        return ranked;
+    }
+
+    /** Compressed int lists: the values for key k are values[start[k]] until start[k + 1]. */
+    private record Csr(int[] start, int[] values) {
+
+        /** Groups {@code items} (in their given order) by {@code keyOf[item]}, keeping at most {@code cap} per key. */
+        static Csr group(int keys, int[] items, int[] keyOf, int cap) {
+            int[] keyOfPair = new int[items.length];
+            for (int i = 0; i < items.length; i++) {
+                keyOfPair[i] = keyOf[items[i]];
+            }
+            return groupPairs(keys, keyOfPair, items, items.length, null, cap);
+        }
+
+        /**
+         * Groups {@code values[i]} by {@code keys[i]} for the first {@code size} pairs. With
+         * {@code rank}, each group is ordered by descending rank before capping.
+         */
+        static Csr groupPairs(int keyCount, int[] keys, int[] values, int size, double[] rank, int cap) {
+            int[] start = new int[keyCount + 1];
+            for (int i = 0; i < size; i++) {
+                start[keys[i] + 1]++;
+            }
+            for (int k = 0; k < keyCount; k++) {
+                start[k + 1] += start[k];
+            }
+            int[] grouped = new int[size];
+            int[] next = Arrays.copyOf(start, keyCount);
+            for (int i = 0; i < size; i++) {
+                grouped[next[keys[i]]++] = values[i];
+            }
+            if (rank == null && cap == Integer.MAX_VALUE) {
+                return new Csr(start, grouped);
+            }
+
+            int[] cappedStart = new int[keyCount + 1];
+            int[] capped = new int[size];
+            int out = 0;
+            for (int k = 0; k < keyCount; k++) {
+                int[] group = Arrays.copyOfRange(grouped, start[k], start[k + 1]);
+                if (rank != null) {
+                    group = Arrays.stream(group).boxed()
+                            .sorted((a, b) -> Double.compare(rank[b], rank[a]))
+                            .mapToInt(Integer::intValue)
+                            .toArray();
+                }
+                int keep = Math.min(cap, group.length);
+                System.arraycopy(group, 0, capped, out, keep);
+                out += keep;
+                cappedStart[k + 1] = out;
+            }
+            return new Csr(cappedStart, Arrays.copyOf(capped, out));
+        }
+
+        /** Like {@link #groupPairs} for long values, writing group offsets into {@code start}. */
+        static long[] groupLongs(int keyCount, int[] keys, long[] values, int size, int[] start) {
+            for (int i = 0; i < size; i++) {
+                start[keys[i] + 1]++;
+            }
+            for (int k = 0; k < keyCount; k++) {
+                start[k + 1] += start[k];
+            }
+            long[] grouped = new long[size];
+            int[] next = Arrays.copyOf(start, keyCount);
+            for (int i = 0; i < size; i++) {
+                grouped[next[keys[i]]++] = values[i];
+            }
+            return grouped;
+        }
+    }
+}
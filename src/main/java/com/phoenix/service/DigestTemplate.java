@@ -0,0 +1,270 @@
+package com.phoenix.service;
+
+import com.phoenix.service.EmailDigestService.DigestPost;
+import jakarta.activation.DataHandler;
+import jakarta.activation.DataSource;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.internet.PreencodedMimeBodyPart;
+import org.springframework.web.util.HtmlUtils;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The weekly digest, rendered once per run.
+ * <p>
+ * Every fixed piece of the HTML (header, intro for each pick count, one card per
+ * candidate post, rank badges, footer) is rendered once and quoted-printable encoded
+ * into shared byte arrays, each ending in a soft line break so pieces can be
+ * concatenated. A recipient's body is a list of those arrays with their encoded
+ * name spliced in, served straight to the SMTP writer without copying; the subject
+ * header is encoded once too. Per recipient this leaves escaping and encoding the
+ * name plus the message objects themselves.
+ */
+final class DigestTemplate {
+
+    private static final String SUBJECT = "📬 Your Weekly Phoenix Digest";
+    private static final String QUOTED_PRINTABLE = "quoted-printable";
+    private static final byte[] SOFT_BREAK = "=\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_LINE_LENGTH = 76;
+
+    private final byte[] head;
+    private final byte[][] intros;
+    private final byte[] cardOpen;
+    private final byte[][] ranks;
+    private final byte[][] cards;
+    private final byte[] tail;
+    private final String encodedSubject;
+
+    private DigestTemplate(String frontendUrl, List<DigestPost> posts, LocalDate date) {
+        head = encode(renderHead(date));
+        intros = new byte[DigestPicker.PICKS + 1][];
+        ranks = new byte[DigestPicker.PICKS + 1][];
+        for (int count = 1; count <= DigestPicker.PICKS; count++) {
+            intros[count] = encode(renderIntro(count));
+            ranks[count] = encode(String.valueOf(count));
+        }
+        cardOpen = encode(renderCardOpen());
+        cards = new byte[posts.size()][];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = encode(renderCard(frontendUrl, posts.get(i)));
+        }
+        tail = encode(renderTail(frontendUrl));
+        try {
+            encodedSubject = MimeUtility.encodeText(SUBJECT, "UTF-8", "B");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Renders the digest pieces for {@code posts}; picks passed later index into this list. */
+    static DigestTemplate render(String frontendUrl, List<DigestPost> posts, LocalDate date) {
+        return new DigestTemplate(frontendUrl, posts, date);
+    }
+
+    /** Size of the shared, encoded pieces for a five-post digest, in bytes. */
+    int sharedSize() {
+        int size = head.length + intros[DigestPicker.PICKS].length + tail.length;
+        for (int i = 0; i < Math.min(DigestPicker.PICKS, cards.length); i++) {
+            size += cardOpen.length + ranks[i + 1].length + cards[i].length;
+        }
+        return size;
+    }
+
+    /**
+     * Addresses {@code message} to {@code email} and fills in the digest body for
+     * {@code name} showing the candidate posts at {@code picks}, in order.
+     */
+    void fill(MimeMessage message, String email, String name, int[] picks) throws MessagingException {
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email));
+        message.setHeader("Subject", encodedSubject);
+
+        PreencodedMimeBodyPart html = new PreencodedMimeBodyPart(QUOTED_PRINTABLE);
+        // Set up front so the body is not scanned to choose an encoding.
+        html.setHeader("Content-Transfer-Encoding", QUOTED_PRINTABLE);
+        html.setDataHandler(new DataHandler(body(name, picks)));
+        MimeMultipart related = new MimeMultipart("related");
+        related.addBodyPart(html);
+        message.setContent(related);
+    }
+
+    /** The encoded body for {@code name} and {@code picks}, sharing the rendered pieces. */
+    DataSource body(String name, int[] picks) {
+        if (picks.length == 0 || picks.length > DigestPicker.PICKS) {
+            throw new IllegalArgumentException("A digest shows 1 to " + DigestPicker.PICKS + " posts");
+        }
+        byte[][] parts = new byte[4 + 3 * picks.length][];
+        int at = 0;
+        parts[at++] = head;
+        parts[at++] = encode(HtmlUtils.htmlEscape(name, "UTF-8"));
+        parts[at++] = intros[picks.length];
+        for (int i = 0; i < picks.length; i++) {
+            parts[at++] = cardOpen;
+            parts[at++] = ranks[i + 1];
+            parts[at++] = cards[picks[i]];
+        }
+        parts[at] = tail;
+        return new SplicedHtml(parts);
+    }
+
+    /**
+     * Quoted-printable encodes {@code text} as UTF-8, ending with a soft line break.
+     * Hand-rolled because MimeUtility's encoder stream costs tens of KB per call.
+     */
+    private static byte[] encode(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length + utf8.length / 4 + SOFT_BREAK.length);
+        int column = 0;
+        for (int i = 0; i < utf8.length; i++) {
+            int b = utf8[i] & 0xff;
+            // A space may not end a line, and this segment's last line ends where the next begins.
+            boolean literal = (b >= 33 && b <= 126 && b != '=') || (b == ' ' && i < utf8.length - 1);
+            int width = literal ? 1 : 3;
+            if (column + width > MAX_LINE_LENGTH - 1) {
+                out.writeBytes(SOFT_BREAK);
+                column = 0;
+            }
+            if (literal) {
+                out.write(b);
+            } else {
+                out.write('=');
+                out.write(HEX[b >> 4]);
+                out.write(HEX[b & 0xf]);
+            }
+            column += width;
+        }
+        out.writeBytes(SOFT_BREAK);
+        return out.toByteArray();
+    }
+
+    private record SplicedHtml(byte[][] parts) implements DataSource {
+
+        @Override
+        public InputStream getInputStream() {
+            List<InputStream> streams = new ArrayList<>(parts.length);
+            for (byte[] part : parts) {
+                streams.add(new ByteArrayInputStream(part));
+            }
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Digest body is read-only");
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/html; charset=UTF-8";
+        }
+
+        @Override
+        public String getName() {
+            return "digest.html";
+        }
+    }
+
+    private static String renderHead(LocalDate date) {
+        StringBuilder html = new StringBuilder(1024);
+        String currentWeek = date.format(DateTimeFormatter.ofPattern("MMMM d, yyyy"));
+
+        html.append("<!DOCTYPE html>");
+        html.append("<html><head><meta charset='UTF-8'></head><body style='font-family: -apple-system, BlinkMacSystemFont, \"Segoe UI\", Roboto, sans-serif; line-height: 1.6; color: #333; max-width: 600px; margin: 0 auto; padding: 20px;'>");
+
+        // Header
+        html.append("<div style='text-align: center; padding: 20px 0; border-bottom: 3px solid #10b981;'>");
+        html.append("<h1 style='margin: 0; color: #10b981; font-size: 28px;'>🔥 Phoenix Weekly</h1>");
+        html.append("<p style='margin: 5px 0 0 0; color: #6b7280; font-size: 14px;'>").append(currentWeek).append("</p>");
+        html.append("</div>");
+
+        // Greeting, continued by the recipient's name
+        html.append("<div style='margin: 30px 0;'>");
+        html.append("<p style='font-size: 16px; margin: 0;'>Hi ");
+        return html.toString();
+    }
+
+    private static String renderIntro(int count) {
+        StringBuilder html = new StringBuilder(256);
+        html.append(",</p>");
+        html.append("<p style='color: #6b7280; margin: 10px 0 0 0;'>Here ").append(count == 1 ? "is " : "are ").append(count)
+                .append(count == 1 ? " post" : " posts").append(" from the past week picked for you:</p>");
+        html.append("</div>");
+
+        // Post cards
+        html.append("<div style='margin: 20px 0;'>");
+        return html.toString();
+    }
+
+    private static String renderCardOpen() {
+        // Rank badge, continued by the rank
+        return "<div style='background: #f9fafb; border-radius: 12px; padding: 20px; margin-bottom: 15px; border-left: 4px solid #10b981;'>"
+                + "<div style='display: inline-block; background: #10b981; color: white; font-weight: bold; font-size: 12px; padding: 4px 10px; border-radius: 12px; margin-bottom: 10px;'>#";
+    }
+
+    private static String renderCard(String frontendUrl, DigestPost post) {
+        StringBuilder html = new StringBuilder(1024);
+        String postUrl = frontendUrl + "/posts/" + post.id();
+        // By handle like the client's profile links (names are not unique), then escaped for the quoted attribute
+        String profile = post.authorHandle() != null ? post.authorHandle() : post.authorName().trim();
+        String authorUrl = HtmlUtils.htmlEscape(frontendUrl + "/profile/"
+                + UriUtils.encodePathSegment(profile, StandardCharsets.UTF_8), "UTF-8");
+
+        html.append("</div>");
+
+        // Title
+        html.append("<h2 style='margin: 10px 0; font-size: 20px; color: #111827;'>");
+        html.append("<a href='").append(postUrl).append("' style='color: #111827; text-decoration: none;'>").append(HtmlUtils.htmlEscape(post.title(), "UTF-8")).append("</a>");
+        html.append("</h2>");
+
+        // Metadata
+        html.append("<p style='margin: 10px 0; font-size: 13px; color: #6b7280;'>");
+        html.append("By <a href='").append(authorUrl).append("' style='color: #10b981; text-decoration: none; font-weight: 600;'>").append(HtmlUtils.htmlEscape(post.authorName(), "UTF-8")).append("</a>");
+        html.append(" • ").append(post.viewCount()).append(" views");
+        html.append("</p>");
+
+        // Read more button
+        html.append("<a href='").append(postUrl).append("' style='display: inline-block; margin-top: 10px; padding: 10px 20px; background: #10b981; color: white; text-decoration: none; border-radius: 8px; font-size: 14px; font-weight: 600;'>");
+        html.append("Read Post →");
+        html.append("</a>");
+
+        html.append("</div>");
+        return html.toString();
+    }
+
+    private static String renderTail(String frontendUrl) {
+        StringBuilder html = new StringBuilder(1024);
+        html.append("</div>");
+
+        // Footer
+        html.append("<div style='margin-top: 40px; padding-top: 20px; border-top: 1px solid #e5e7eb; text-align: center; font-size: 12px; color: #9ca3af;'>");
+        html.append("<p style='margin: 5px 0;'>You're receiving this because you subscribed to weekly digests.</p>");
+        html.append("<p style='margin: 5px 0;'>");
+        html.append("<a href='").append(frontendUrl).append("/profile' style='color: #10b981;'>Manage preferences</a>");
+        html.append(" | ");
+        html.append("<a href='").append(frontendUrl).append("' style='color: #10b981;'>Visit Phoenix</a>");
+        html.append("</p>");
+        html.append("<p style='margin: 15px 0 5px 0; color: #6b7280;'>&copy; 2026 Phoenix Blog Platform. All rights reserved.</p>");
+        html.append("</div>");
+
+        html.append("</body></html>");
+        return html.toString();
+    }
+}
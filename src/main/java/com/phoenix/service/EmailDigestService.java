@@ -1,161 +1,228 @@
 package com.phoenix.service;
 
-import com.phoenix.entity.Post;
-import com.phoenix.entity.User;
+import com.phoenix.entity.DigestRun;
+import com.phoenix.entity.EmailKind;
+import com.phoenix.entity.EmailOutbox;
+import com.phoenix.repository.DigestRunRepository;
+import com.phoenix.repository.FollowRepository;
 import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.ReactionRepository;
 import com.phoenix.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Weekly digest of the past week's posts, picked per subscriber.
+ * <p>
+ * Recipients are streamed from the database in id-ordered chunks. Each chunk's
+ * digests are queued in the email outbox in the same transaction that advances
+ * the run's {@link DigestRun} checkpoint, so a crashed run resumes exactly where
+ * it stopped; {@link EmailOutboxSender} handles delivery, rate limiting and retries.
+ * <p>
+ * The week's candidate posts are loaded once per run into a {@link DigestPicker};
+ * each chunk then costs one follow query and one tag-affinity query, and the picks
+ * for the whole chunk are computed in memory. An outbox row holds only the picked
+ * post ids: every candidate's card is rendered once per run by
+ * {@link DigestTemplate} and spliced into each recipient's body at send time.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailDigestService {
 
-    private final JavaMailSender mailSender;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final ReactionRepository reactionRepository;
+    private final DigestRunRepository digestRunRepository;
+    private final EmailService emailService;
+    private final JobLockService jobLockService;
+    private final PlatformTransactionManager transactionManager;
 
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
+    @Value("${app.digest.chunk-size:500}")
+    private int chunkSize;
+
+    private RunTemplate currentTemplate;
+
+    private static final String DIGEST_JOB = "weekly-digest";
+    private static final Duration DIGEST_LEASE = Duration.ofMinutes(10);
+    private static final UUID BEFORE_FIRST_USER = new UUID(0, 0);
+    private static final int AFFINITY_DAYS = 90;
+
+    /** A candidate post, detached from the session so sender threads can read it. */
+    record DigestPost(UUID id, String title, String authorName, String authorHandle, long viewCount) {
+    }
+
+    /** A run's rendered template and the card index of each candidate post. */
+    private record RunTemplate(String runKey, DigestTemplate template, Map<UUID, Integer> cardOf) {
+    }
+
     /**
-     * Scheduled to run every Monday at 9:00 AM
-     * Cron: second, minute, hour, day of month, month, day of week
-     * 0 0 9 * * MON = 9 AM every Monday
+     * Triggered every Monday at 9:00 AM by {@link ScheduledJobs}.
+     * Every instance fires; the job lock lets one of them queue the digests. It stays
+     * closed for an hour so a node with a late clock doesn't queue them twice.
      */
-    @Scheduled(cron = "0 0 9 * * MON")
     public void sendWeeklyDigest() {
-        log.info("Starting weekly email digest job...");
-        
-        LocalDateTime now = LocalDateTime.now(java.time.ZoneOffset.UTC);
-        LocalDateTime oneWeekAgo = now.minusWeeks(1);
-        List<Post> topPosts = postRepository.findTopPostsSince(oneWeekAgo, now, PageRequest.of(0, 5));
+        if (!jobLockService.runExclusively(DIGEST_JOB, DIGEST_LEASE, Duration.ofHours(1), this::sendWeeklyDigest)) {
+            log.info("Weekly digest is being sent by another instance");
+        }
+    }
+
+    /** Checkpoint key for the run covering {@code date}: its ISO week, e.g. 2026-W43. */
+    static String runKey(LocalDate date) {
+        return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
 
-        if (topPosts.isEmpty()) {
+    /**
+     * Addresses {@code message} to an outbox row's recipient and fills in their
+     * digest. Called concurrently by the outbox sender.
+     */
+    void fill(MimeMessage message, EmailOutbox email) throws MessagingException {
+        RunTemplate run = templateFor(email.getRunKey());
+        int[] picks = Arrays.stream(email.getBody().split(","))
+                .map(id -> run.cardOf().get(UUID.fromString(id)))
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (picks.length == 0) {
+            throw new MessagingException("None of the posts picked for " + email.getRecipient() + " are still live");
+        }
+        run.template().fill(message, email.getRecipient(), email.getRecipientName(), picks);
+    }
+
+    private void sendWeeklyDigest(JobLockService.Lease lease) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        String runKey = runKey(now.toLocalDate());
+        DigestRun run = digestRunRepository.findById(runKey).orElse(null);
+        if (run != null && run.getCompletedAt() != null) {
+            log.info("Weekly digest {} was already sent", runKey);
+            return;
+        }
+
+        // A resumed run keeps the candidate window it started with.
+        LocalDateTime startedAt = run == null ? now : run.getStartedAt();
+        DigestPicker picker = loadCandidates(startedAt, true);
+        if (picker.isEmpty()) {
             log.info("No posts from the past week. Skipping digest.");
             return;
         }
 
-        List<User> subscribedUsers = userRepository.findByEmailDigestEnabled(true);
-        log.info("Sending digest to {} subscribed users", subscribedUsers.size());
+        if (run == null) {
+            run = DigestRun.builder().runKey(runKey).lastUserId(BEFORE_FIRST_USER).startedAt(startedAt).build();
+            log.info("Starting weekly email digest {}", runKey);
+        } else {
+            log.info("Resuming weekly email digest {} after user {}", runKey, run.getLastUserId());
+        }
+        cacheTemplate(runKey, picker, startedAt);
 
-        int successCount = 0;
-        int failureCount = 0;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        while (true) {
+            List<Object[]> chunk = userRepository.findDigestRecipientsAfter(run.getLastUserId(), PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            if (!jobLockService.renew(lease, DIGEST_LEASE)) {
+                log.warn("Weekly digest {} lost its lock; stopping at user {}", runKey, run.getLastUserId());
+                return;
+            }
 
-        for (User user : subscribedUsers) {
-            try {
-                sendDigestEmail(user, topPosts);
-                successCount++;
-            } catch (Exception e) {
-                failureCount++;
-                log.error("Failed to send digest to {}: {}", user.getEmail(), e.getMessage());
+            DigestRun progress = run;
+            run = transaction.execute(status -> queueChunk(progress, chunk, picker, now));
+            if (chunk.size() < chunkSize) {
+                break;
             }
         }
 
-        log.info("Weekly digest completed. Success: {}, Failed: {}", successCount, failureCount);
+        run.setCompletedAt(LocalDateTime.now(ZoneOffset.UTC));
+        run = digestRunRepository.save(run);
+        log.info("Weekly digest {} completed. Queued: {}, Skipped: {}", runKey, run.getQueuedCount(), run.getSkippedCount());
     }
 
-    private void sendDigestEmail(User user, List<Post> topPosts) throws MessagingException {
-        String email = user.getEmail();
-        if (email == null || email.isEmpty()) {
-            log.warn("User {} has no email address, skipping digest", user.getName());
-            return;
+    private DigestRun queueChunk(DigestRun run, List<Object[]> chunk, DigestPicker picker, LocalDateTime now) {
+        List<UUID> userIds = chunk.stream().map(row -> (UUID) row[0]).toList();
+        Map<UUID, int[]> picks = picker.pickFor(userIds,
+                followRepository.findFollowPairsByFollowerIdIn(userIds),
+                reactionRepository.countReactedTagsByUserIdIn(userIds, now.minusDays(AFFINITY_DAYS)));
+
+        List<EmailOutbox> emails = new ArrayList<>(chunk.size());
+        for (Object[] row : chunk) {
+            String email = (String) row[1];
+            int[] userPicks = picks.get((UUID) row[0]);
+            if (email == null || email.isEmpty() || userPicks.length == 0) {
+                continue;
+            }
+            StringJoiner postIds = new StringJoiner(",");
+            for (int pick : userPicks) {
+                postIds.add(picker.posts().get(pick).id().toString());
+            }
+            emails.add(EmailOutbox.builder()
+                    .kind(EmailKind.WEEKLY_DIGEST)
+                    .recipient(email)
+                    .recipientName((String) row[2])
+                    .runKey(run.getRunKey())
+                    .body(postIds.toString())
+                    .build());
         }
+        emailService.queueAll(emails);
 
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        run.setLastUserId((UUID) chunk.get(chunk.size() - 1)[0]);
+        run.setQueuedCount(run.getQueuedCount() + emails.size());
+        run.setSkippedCount(run.getSkippedCount() + chunk.size() - emails.size());
+        run.setUpdatedAt(LocalDateTime.now(ZoneOffset.UTC));
+        return digestRunRepository.save(run);
+    }
 
-        helper.setTo(email);
-        helper.setSubject("📬 Your Weekly Phoenix Digest");
+    /** Candidates are the posts that went live in the week before {@code until}. */
+    private DigestPicker loadCandidates(LocalDateTime until, boolean withTags) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        LocalDateTime since = until.minusWeeks(1);
+        return readOnly.execute(status -> new DigestPicker(
+                postRepository.findDigestCandidates(since, until),
+                withTags ? postRepository.findDigestCandidateTags(since, until) : List.of()));
+    }
 
-        String htmlContent = buildDigestHtml(user, topPosts);
-        if (htmlContent != null) {
-            helper.setText(htmlContent, true);
+    private synchronized void cacheTemplate(String runKey, DigestPicker picker, LocalDateTime startedAt) {
+        List<DigestPost> posts = picker.posts();
+        Map<UUID, Integer> cardOf = new HashMap<>(posts.size() * 2);
+        for (int i = 0; i < posts.size(); i++) {
+            cardOf.put(posts.get(i).id(), i);
         }
-
-        mailSender.send(message);
-        log.debug("Digest sent to {}", email);
+        currentTemplate = new RunTemplate(runKey,
+                DigestTemplate.render(frontendUrl, posts, startedAt.toLocalDate()), cardOf);
     }
 
-    private String buildDigestHtml(User user, List<Post> topPosts) {
-        StringBuilder html = new StringBuilder();
-        String currentWeek = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM d, yyyy"));
-
-        html.append("<!DOCTYPE html>");
-        html.append("<html><head><meta charset='UTF-8'></head><body style='font-family: -apple-system, BlinkMacSystemFont, \"Segoe UI\", Roboto, sans-serif; line-height: 1.6; color: #333; max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        
-        // Header
-        html.append("<div style='text-align: center; padding: 20px 0; border-bottom: 3px solid #10b981;'>");
-        html.append("<h1 style='margin: 0; color: #10b981; font-size: 28px;'>🔥 Phoenix Weekly</h1>");
-        html.append("<p style='margin: 5px 0 0 0; color: #6b7280; font-size: 14px;'>").append(currentWeek).append("</p>");
-        html.append("</div>");
-
-        // Greeting
-        html.append("<div style='margin: 30px 0;'>");
-        html.append("<p style='font-size: 16px; margin: 0;'>Hi ").append(user.getName()).append(",</p>");
-        html.append("<p style='color: #6b7280; margin: 10px 0 0 0;'>Here are the top ").append(topPosts.size()).append(" posts from the past week you might enjoy:</p>");
-        html.append("</div>");
-
-        // Post cards
-        html.append("<div style='margin: 20px 0;'>");
-        for (int i = 0; i < topPosts.size(); i++) {
-            Post post = topPosts.get(i);
-            String postUrl = frontendUrl + "/posts/" + post.getId();
-            String authorUrl = frontendUrl + "/profile/" + post.getAuthor().getName();
-            
-            html.append("<div style='background: #f9fafb; border-radius: 12px; padding: 20px; margin-bottom: 15px; border-left: 4px solid #10b981;'>");
-            
-            // Rank badge
-            html.append("<div style='display: inline-block; background: #10b981; color: white; font-weight: bold; font-size: 12px; padding: 4px 10px; border-radius: 12px; margin-bottom: 10px;'>");
-            html.append("#").append(i + 1);
-            html.append("</div>");
-            
-            // Title
-            html.append("<h2 style='margin: 10px 0; font-size: 20px; color: #111827;'>");
-            html.append("<a href='").append(postUrl).append("' style='color: #111827; text-decoration: none;'>").append(post.getTitle()).append("</a>");
-            html.append("</h2>");
-            
-            // Metadata
-            html.append("<p style='margin: 10px 0; font-size: 13px; color: #6b7280;'>");
-            html.append("By <a href='").append(authorUrl).append("' style='color: #10b981; text-decoration: none; font-weight: 600;'>").append(post.getAuthor().getName()).append("</a>");
-            html.append(" • ").append(post.getViewCount()).append(" views");
-            html.append("</p>");
-            
-            // Read more button
-            html.append("<a href='").append(postUrl).append("' style='display: inline-block; margin-top: 10px; padding: 10px 20px; background: #10b981; color: white; text-decoration: none; border-radius: 8px; font-size: 14px; font-weight: 600;'>");
-            html.append("Read Post →");
-            html.append("</a>");
-            
-            html.append("</div>");
+    /** The run's template, re-rendered from its candidate window if this instance has not got it. */
+    private synchronized RunTemplate templateFor(String runKey) {
+        if (currentTemplate == null || !currentTemplate.runKey().equals(runKey)) {
+            DigestRun run = digestRunRepository.findById(runKey)
+                    .orElseThrow(() -> new IllegalStateException("Unknown digest run " + runKey));
+            cacheTemplate(runKey, loadCandidates(run.getStartedAt(), false), run.getStartedAt());
         }
-        html.append("</div>");
-
-        // Footer
-        html.append("<div style='margin-top: 40px; padding-top: 20px; border-top: 1px solid #e5e7eb; text-align: center; font-size: 12px; color: #9ca3af;'>");
-        html.append("<p style='margin: 5px 0;'>You're receiving this because you subscribed to weekly digests.</p>");
-        html.append("<p style='margin: 5px 0;'>");
-        html.append("<a href='").append(frontendUrl).append("/profile' style='color: #10b981;'>Manage preferences</a>");
-        html.append(" | ");
-        html.append("<a href='").append(frontendUrl).append("' style='color: #10b981;'>Visit Phoenix</a>");
-        html.append("</p>");
-        html.append("<p style='margin: 15px 0 5px 0; color: #6b7280;'>&copy; 2026 Phoenix Blog Platform. All rights reserved.</p>");
-        html.append("</div>");
-
-        html.append("</body></html>");
-
-        return html.toString();
+        return currentTemplate;
     }
 }
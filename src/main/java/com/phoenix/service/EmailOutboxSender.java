@@ -0,0 +1,249 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.EmailOutbox;
+import com.phoenix.entity.EmailStatus;
+import com.phoenix.event.EmailQueuedEvent;
+import com.phoenix.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers the email outbox.
+ * <p>
+ * One instance drains at a time, under a job lock. Due rows are read in batches
+ * and sent concurrently on virtual threads, capped by a concurrency limit and by a
+ * token bucket sized to the SMTP provider's rate limit; each batch's results are
+ * then written back in one transaction. A failed send is retried with exponential
+ * backoff (with jitter, from {@value #BASE_BACKOFF_SECONDS}s up to
+ * {@value #MAX_BACKOFF_MINUTES} minutes) and dead-lettered after
+ * {@code app.email.max-attempts} tries, on an invalid address, or when the next try
+ * would fall after the row's {@code expiresAt} (a password reset outlives its link by
+ * no more than that). Delivery is at-least-once: a crash between sending and
+ * recording the batch resends it.
+ * <p>
+ * Drains run after every commit that queues mail and on a fixed poll for retries;
+ * mail queued while a drain is running is left to that drain rather than starting
+ * another.
+ * Metric: {@code phoenix.email.delivery} (counter, by outcome sent/retry/dead).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxSender {
+
+    private static final String OUTBOX_JOB = "email-outbox";
+    private static final Duration OUTBOX_LEASE = Duration.ofMinutes(5);
+    private static final Duration KEEP_SENT = Duration.ofDays(7);
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_MINUTES = 360;
+
+    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailDigestService emailDigestService;
+    private final JobLockService jobLockService;
+    private final JobRunner jobRunner;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${app.email.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.email.concurrency:16}")
+    private int concurrency;
+
+    @Value("${app.email.smtp-rate-per-second:10}")
+    private double smtpRatePerSecond;
+
+    @Value("${app.email.max-attempts:8}")
+    private int maxAttempts;
+
+    private TokenBucket smtpRate;
+    private TransactionTemplate transaction;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        // One bucket per provider; there is a single configured SMTP provider.
+        smtpRate = new TokenBucket(smtpRatePerSecond, Math.max(1, smtpRatePerSecond));
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        wakeRequested.set(true);
+        // A running drain sees the request and goes round again, so a burst of mail starts one drain.
+        // Claimed here rather than when the drain starts, or mail queued in between would submit again.
+        if (draining.compareAndSet(false, true) && jobRunner.submit(ScheduledJob.EMAIL_OUTBOX, this::drain) == null) {
+            // Skipped: the run still in progress checks the request again before it returns
+            draining.set(false);
+        }
+    }
+
+    /** Sends everything that is due. Triggered by {@link ScheduledJobs} and after mail is queued. */
+    public void drain() {
+        // Mail queued while a drain is finishing would otherwise wait for the next poll.
+        do {
+            draining.set(true);
+            do {
+                wakeRequested.set(false);
+                jobLockService.runExclusively(OUTBOX_JOB, OUTBOX_LEASE, Duration.ZERO, this::drain);
+            } while (wakeRequested.get() && !Thread.currentThread().isInterrupted());
+            draining.set(false);
+            // Queued after the last check but while still flagged as draining: nobody else will start a drain
+        } while (wakeRequested.get() && !Thread.currentThread().isInterrupted());
+    }
+
+    private void drain(JobLockService.Lease lease) {
+        transaction.executeWithoutResult(status ->
+                emailOutboxRepository.deleteSentBefore(LocalDateTime.now(ZoneOffset.UTC).minus(KEEP_SENT)));
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                List<EmailOutbox> batch = emailOutboxRepository.findDue(LocalDateTime.now(ZoneOffset.UTC),
+                        PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+                if (!jobLockService.renew(lease, OUTBOX_LEASE)) {
+                    log.warn("Email outbox lost its lock; leaving {} due emails", batch.size());
+                    return;
+                }
+
+                List<Future<Exception>> sends = new ArrayList<>(batch.size());
+                for (EmailOutbox email : batch) {
+                    sends.add(senders.submit(() -> sendLimited(inFlight, email)));
+                }
+                List<Exception> failures = new ArrayList<>(batch.size());
+                for (Future<Exception> send : sends) {
+                    failures.add(send.get());
+                }
+                record(batch, failures);
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Email outbox drain interrupted; unsent emails stay queued");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Email sender failed", e.getCause());
+        }
+    }
+
+    /** @return null once sent, otherwise why not */
+    private Exception sendLimited(Semaphore inFlight, EmailOutbox email) throws InterruptedException {
+        if (email.getExpiresAt() != null && !email.getExpiresAt().isAfter(LocalDateTime.now(ZoneOffset.UTC))) {
+            return new IllegalStateException("Expired at " + email.getExpiresAt() + " before it could be sent");
+        }
+        inFlight.acquire();
+        try {
+            smtpRate.acquire();
+            send(email);
+            return null;
+        } catch (MessagingException | RuntimeException e) {
+            return e;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void send(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        if (fromEmail != null && !fromEmail.isEmpty()) {
+            message.setFrom(new InternetAddress(fromEmail));
+        }
+        switch (email.getKind()) {
+            case PASSWORD_RESET -> {
+                message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress(email.getRecipient()));
+                message.setSubject(email.getSubject(), "UTF-8");
+                message.setText(email.getBody(), "UTF-8");
+            }
+            case WEEKLY_DIGEST -> emailDigestService.fill(message, email);
+        }
+        mailSender.send(message);
+        log.debug("{} email sent to {}", email.getKind(), email.getRecipient());
+    }
+
+    private void record(List<EmailOutbox> batch, List<Exception> failures) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<UUID> sent = new ArrayList<>(batch.size());
+        List<EmailOutbox> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            Exception failure = failures.get(i);
+            if (failure == null) {
+                sent.add(email.getId());
+                continue;
+            }
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(truncate(failure.getClass().getSimpleName() + ": " + failure.getMessage()));
+            LocalDateTime retryAt = now.plus(backoff(email.getAttempts()));
+            boolean expires = email.getExpiresAt() != null && !retryAt.isBefore(email.getExpiresAt());
+            if (failure instanceof AddressException || email.getAttempts() >= maxAttempts || expires) {
+                email.setStatus(EmailStatus.DEAD);
+                log.error("Giving up on {} email to {} after {} attempts: {}",
+                        email.getKind(), email.getRecipient(), email.getAttempts(), email.getLastError());
+            } else {
+                email.setNextAttemptAt(retryAt);
+                log.warn("Sending {} email to {} failed (attempt {}), retrying at {}: {}",
+                        email.getKind(), email.getRecipient(), email.getAttempts(), email.getNextAttemptAt(),
+                        email.getLastError());
+            }
+            failed.add(email);
+        }
+
+        transaction.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                emailOutboxRepository.markSent(sent, now);
+            }
+            emailOutboxRepository.saveAll(failed);
+        });
+        meterRegistry.counter("phoenix.email.delivery", "outcome", "sent").increment(sent.size());
+        for (EmailOutbox email : failed) {
+            meterRegistry.counter("phoenix.email.delivery", "outcome",
+                    email.getStatus() == EmailStatus.DEAD ? "dead" : "retry").increment();
+        }
+    }
+
+    /** Delay before the next try after {@code attempts} failures, with up to 20% jitter. */
+    static Duration backoff(int attempts) {
+        long seconds = Math.min(BASE_BACKOFF_SECONDS << Math.min(attempts - 1, 20), MAX_BACKOFF_MINUTES * 60);
+        return Duration.ofSeconds(seconds + ThreadLocalRandom.current().nextLong(seconds / 5 + 1));
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
@@ -1,41 +1,65 @@
 package com.phoenix.service;
 
+import com.phoenix.entity.EmailKind;
+import com.phoenix.entity.EmailOutbox;
+import com.phoenix.event.EmailQueuedEvent;
+import com.phoenix.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Queues outgoing email in the outbox. Nothing here talks to SMTP: rows commit
+ * with the caller's transaction and {@link EmailOutboxSender} delivers them.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    /** The mail is dead-lettered rather than sent once {@code validFor}, the life of the link, has passed. */
+    @Transactional
+    public void queuePasswordResetEmail(String toEmail, String resetLink, Duration validFor) {
+        queueAll(List.of(EmailOutbox.builder()
+                .kind(EmailKind.PASSWORD_RESET)
+                .recipient(toEmail)
+                .expiresAt(LocalDateTime.now(ZoneOffset.UTC).plus(validFor))
+                .subject("Phoenix Blog - Password Reset Request")
+                .body(
+                    "Hello,\n\n" +
+                    "You requested a password reset for your Phoenix Blog account.\n\n" +
+                    "Click the link below to reset your password (valid for 1 hour):\n" +
+                    resetLink + "\n\n" +
+                    "If you did not request this, please ignore this email.\n\n" +
+                    "The Phoenix Blog Team"
+                )
+                .build()));
+        log.info("Password reset email queued for {}", toEmail);
+    }
 
-    public void sendPasswordResetEmail(String toEmail, String resetLink) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Phoenix Blog - Password Reset Request");
-            message.setText(
-                "Hello,\n\n" +
-                "You requested a password reset for your Phoenix Blog account.\n\n" +
-                "Click the link below to reset your password (valid for 1 hour):\n" +
-                resetLink + "\n\n" +
-                "If you did not request this, please ignore this email.\n\n" +
-                "The Phoenix Blog Team"
-            );
-            mailSender.send(message);
-            log.info("Password reset email sent to {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send password reset email to {}: {}", toEmail, e.getMessage(), e);
-            throw new RuntimeException("Failed to send reset email: " + e.getMessage(), e);
+    /** Adds {@code emails} to the outbox, due now unless they already have a time set. */
+    @Transactional
+    public void queueAll(List<EmailOutbox> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (EmailOutbox email : emails) {
+            if (email.getNextAttemptAt() == null) {
+                email.setNextAttemptAt(now);
+            }
         }
+        emailOutboxRepository.saveAll(emails);
+        eventPublisher.publishEvent(new EmailQueuedEvent(emails.size()));
     }
 }
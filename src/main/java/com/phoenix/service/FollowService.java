@@ -3,20 +3,27 @@ package com.phoenix.service;
 import com.phoenix.entity.Follow;
 import com.phoenix.entity.NotificationType;
 import com.phoenix.entity.User;
+import com.phoenix.event.FollowChangedEvent;
 import com.phoenix.exception.PostNotFoundException;
 import com.phoenix.repository.FollowRepository;
 import com.phoenix.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.UUID;
+
 @Service
 @RequiredArgsConstructor
 public class FollowService {
 
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final FollowGraph followGraph;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Toggle follow on a user. Returns true if now following, false if unfollowed.
@@ -26,23 +33,27 @@ public class FollowService {
     public boolean toggleFollow(String targetUsername, String currentUserEmail) {
         User follower = userRepository.findByEmail(currentUserEmail)
                 .orElseThrow(() -> new PostNotFoundException("User not found"));
-        User following = userRepository.findByName(targetUsername)
+        UUID followingId = userDirectory.findId(targetUsername)
                 .orElseThrow(() -> new PostNotFoundException("User not found: " + targetUsername));
 
-        if (follower.getId().equals(following.getId())) {
+        if (follower.getId().equals(followingId)) {
             throw new IllegalArgumentException("You cannot follow yourself");
         }
 
-        if (followRepository.existsByFollowerIdAndFollowingId(follower.getId(), following.getId())) {
-            followRepository.deleteByFollowerIdAndFollowingId(follower.getId(), following.getId());
+        if (followRepository.existsByFollowerIdAndFollowingId(follower.getId(), followingId)) {
+            followRepository.deleteByFollowerIdAndFollowingId(follower.getId(), followingId);
+            eventPublisher.publishEvent(new FollowChangedEvent(follower.getId(), followingId, false));
             return false;
         } else {
-            followRepository.save(Follow.builder().follower(follower).following(following).build());
+            followRepository.save(Follow.builder()
+                    .follower(follower)
+                    .following(userRepository.getReferenceById(followingId))
+                    .build());
+            eventPublisher.publishEvent(new FollowChangedEvent(follower.getId(), followingId, true));
             notificationService.createNotification(
-                    following,
+                    followingId,
                     NotificationType.FOLLOW,
-                    follower.getName(),
-                    follower.getEmail(),
+                    follower,
                     follower.getName() + " started following you",
                     null,
                     null);
@@ -50,22 +61,28 @@ public class FollowService {
         }
     }
 
-    public boolean isFollowing(String targetUsername, String currentUserEmail) {
-        User follower = userRepository.findByEmail(currentUserEmail).orElse(null);
-        User following = userRepository.findByName(targetUsername).orElse(null);
-        if (follower == null || following == null) return false;
-        return followRepository.existsByFollowerIdAndFollowingId(follower.getId(), following.getId());
+    /**
+     * Read from the database rather than {@link FollowGraph}: the graph only sees
+     * follows made on other instances at its next rebuild, and a stale "not following"
+     * here would make the profile's button undo the follow it shows as missing.
+     */
+    public boolean isFollowing(String targetUsername, UUID currentUserId) {
+        return userDirectory.findId(targetUsername)
+                .map(id -> followRepository.existsByFollowerIdAndFollowingId(currentUserId, id))
+                .orElse(false);
     }
 
+    /** From {@link FollowGraph}; may lag follows made on other instances by one rebuild interval. */
     public long getFollowersCount(String username) {
-        return userRepository.findByName(username)
-                .map(u -> followRepository.countByFollowingId(u.getId()))
+        return userDirectory.findId(username)
+                .map(followGraph::followersCount)
                 .orElse(0L);
     }
 
+    /** From {@link FollowGraph}; may lag follows made on other instances by one rebuild interval. */
     public long getFollowingCount(String username) {
-        return userRepository.findByName(username)
-                .map(u -> followRepository.countByFollowerId(u.getId()))
+        return userDirectory.findId(username)
+                .map(followGraph::followingCount)
                 .orElse(0L);
     }
 }
@@ -0,0 +1,306 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.PagedResponse;
+import com.phoenix.dto.PostResponse;
+import com.phoenix.entity.Post;
+import com.phoenix.event.PostPublishedEvent;
+import com.phoenix.repository.BookmarkRepository;
+import com.phoenix.repository.PostQuery.TagMode;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.PostViewRepository;
+import com.phoenix.repository.ReactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Personalized "For You" feed, built in four stages and cached per user.
+ * <ol>
+ *   <li><b>affinity</b>: the user's tag weights from their reactions, bookmarks and
+ *   views; the top {@value #TOP_TAGS} are kept.</li>
+ *   <li><b>candidates</b>: recent posts by followed authors ({@link FollowGraph}),
+ *   the newest posts carrying a top tag ({@link TagBitmapIndex}) and a trending
+ *   pool shared by all users.</li>
+ *   <li><b>ranking</b>: one query loads each candidate's counters, then every
+ *   candidate is scored on recency, engagement and affinity, at most
+ *   {@value #MAX_PER_AUTHOR} per author.</li>
+ *   <li><b>hydration</b>: only the requested page is loaded and converted.</li>
+ * </ol>
+ * The ranked ids are kept for {@code app.posts.for-you-ttl-ms}, so paging through
+ * the feed ranks once; when an author publishes, their followers' rankings are
+ * dropped so the new post shows up without waiting out the TTL. Each stage records {@code phoenix.feed.for-you} with its
+ * {@code stage} tag, including p99, and cache lookups count under
+ * {@code phoenix.feed.for-you.cache}.
+ */
+@Service
+public class ForYouFeedService {
+
+    static final int TOP_TAGS = 10;
+    static final int MAX_PER_AUTHOR = 3;
+    private static final int FOLLOWED_CANDIDATES = 200;
+    private static final int TAG_CANDIDATES = 200;
+    private static final int TRENDING_CANDIDATES = 100;
+    /** Largest followed-author list sent to the database; past it an arbitrary subset is queried. */
+    private static final int MAX_FOLLOWED_AUTHORS = 1000;
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final Duration CANDIDATE_WINDOW = Duration.ofDays(14);
+    private static final Duration REACTION_WINDOW = Duration.ofDays(90);
+
+    static final double REACTION_AFFINITY = 3.0;
+    static final double BOOKMARK_AFFINITY = 4.0;
+    static final double VIEW_AFFINITY = 1.0;
+    static final double RECENCY_WEIGHT = 2.0;
+    static final double RECENCY_HALF_LIFE_HOURS = 24.0;
+    static final double ENGAGEMENT_WEIGHT = 0.5;
+    static final double AFFINITY_WEIGHT = 2.0;
+    static final double FOLLOWED_WEIGHT = 1.5;
+
+    private final PostService postService;
+    private final PostRepository postRepository;
+    private final ReactionRepository reactionRepository;
+    private final BookmarkRepository bookmarkRepository;
+    private final PostViewRepository postViewRepository;
+    private final FollowGraph followGraph;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final long ttlNanos;
+
+    private final Timer affinityTimer;
+    private final Timer candidatesTimer;
+    private final Timer rankingTimer;
+    private final Timer hydrationTimer;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Map<UUID, Ranked> rankedByUser = new ConcurrentHashMap<>();
+    private volatile Ranked trending;
+
+    /** A ranked list of post ids and when it goes stale, in {@link System#nanoTime()}. */
+    private record Ranked(List<UUID> postIds, long expiresAt) {
+    }
+
+    /** What ranking needs to know about one candidate. */
+    record Candidate(UUID postId, UUID authorId, LocalDateTime visibleAt, long views, long reactions,
+                     long comments, List<String> tags) {
+    }
+
+    public ForYouFeedService(PostService postService, PostRepository postRepository,
+                             ReactionRepository reactionRepository, BookmarkRepository bookmarkRepository,
+                             PostViewRepository postViewRepository, FollowGraph followGraph,
+                             TagBitmapIndex tagBitmapIndex, MeterRegistry meterRegistry,
+                             @Value("${app.posts.for-you-ttl-ms:60000}") long ttlMillis) {
+        this.postService = postService;
+        this.postRepository = postRepository;
+        this.reactionRepository = reactionRepository;
+        this.bookmarkRepository = bookmarkRepository;
+        this.postViewRepository = postViewRepository;
+        this.followGraph = followGraph;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+        this.affinityTimer = stageTimer(meterRegistry, "affinity");
+        this.candidatesTimer = stageTimer(meterRegistry, "candidates");
+        this.rankingTimer = stageTimer(meterRegistry, "ranking");
+        this.hydrationTimer = stageTimer(meterRegistry, "hydration");
+        this.hits = meterRegistry.counter("phoenix.feed.for-you.cache", "result", "hit");
+        this.misses = meterRegistry.counter("phoenix.feed.for-you.cache", "result", "miss");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("phoenix.feed.for-you")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public PagedResponse<PostResponse> getFeed(UUID userId, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page index must not be negative and page size must be at least one");
+        }
+        List<UUID> ranked = ranked(userId);
+        int from = (int) Math.min(ranked.size(), (long) page * size);
+        int to = Math.min(ranked.size(), from + size);
+        List<PostResponse> content = hydrationTimer.record(() -> hydrate(ranked.subList(from, to)));
+        return PagedResponse.<PostResponse>builder()
+                .content(content)
+                .pageNumber(page)
+                .pageSize(size)
+                .totalElements(ranked.size())
+                .totalPages((ranked.size() + size - 1) / size)
+                .first(page == 0)
+                .last(to >= ranked.size())
+                .build();
+    }
+
+    private List<UUID> ranked(UUID userId) {
+        long now = System.nanoTime();
+        Ranked cached = rankedByUser.get(userId);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            hits.increment();
+            return cached.postIds();
+        }
+        misses.increment();
+        List<UUID> postIds = rank(userId);
+        if (rankedByUser.size() >= MAX_CACHED_USERS && !rankedByUser.containsKey(userId)) {
+            Iterator<UUID> victims = rankedByUser.keySet().iterator();
+            if (victims.hasNext()) {
+                victims.next();
+                victims.remove();
+            }
+        }
+        rankedByUser.put(userId, new Ranked(postIds, System.nanoTime() + ttlNanos));
+        return postIds;
+    }
+
+    /** A followed author's new post is a candidate the cached rankings have never seen. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostPublished(PostPublishedEvent event) {
+        if (rankedByUser.isEmpty()) {
+            return;
+        }
+        Set<UUID> followers = new HashSet<>(followGraph.followers(event.authorId()));
+        rankedByUser.keySet().removeIf(followers::contains);
+    }
+
+    private List<UUID> rank(UUID userId) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Map<String, Double> affinity = affinityTimer.record(() -> affinity(userId, now));
+        Set<UUID> followed = new HashSet<>(followGraph.following(userId));
+        Set<UUID> candidates = candidatesTimer.record(() -> candidates(followed, affinity.keySet(), now));
+        return rankingTimer.record(() -> {
+            List<Candidate> loaded = loadCandidates(candidates, now);
+            return rank(loaded, userId, followed, affinity, now);
+        });
+    }
+
+    /** The user's top tags, each weighted 0..1 relative to their strongest. */
+    private Map<String, Double> affinity(UUID userId, LocalDateTime now) {
+        Map<String, Double> weights = new HashMap<>();
+        addAffinity(weights, reactionRepository.countReactedTagNames(userId, now.minus(REACTION_WINDOW)), REACTION_AFFINITY);
+        addAffinity(weights, bookmarkRepository.countBookmarkedTagNames(userId), BOOKMARK_AFFINITY);
+        addAffinity(weights, postViewRepository.countViewedTagNames(userId), VIEW_AFFINITY);
+        double strongest = weights.values().stream().mapToDouble(Double::doubleValue).max().orElse(1);
+        Map<String, Double> top = new HashMap<>();
+        weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP_TAGS)
+                .forEach(e -> top.put(e.getKey(), e.getValue() / strongest));
+        return top;
+    }
+
+    private static void addAffinity(Map<String, Double> weights, List<Object[]> counts, double weight) {
+        for (Object[] row : counts) {
+            weights.merge((String) row[0], weight * ((Number) row[1]).doubleValue(), Double::sum);
+        }
+    }
+
+    private Set<UUID> candidates(Set<UUID> followed, Set<String> topTags, LocalDateTime now) {
+        Set<UUID> candidates = new LinkedHashSet<>();
+        if (!followed.isEmpty()) {
+            List<UUID> authors = followed.stream().limit(MAX_FOLLOWED_AUTHORS).toList();
+            candidates.addAll(postRepository.findRecentIdsByAuthorIdIn(authors, now.minus(CANDIDATE_WINDOW), now,
+                    PageRequest.of(0, FOLLOWED_CANDIDATES)));
+        }
+        if (!topTags.isEmpty()) {
+            candidates.addAll(tagBitmapIndex.query(topTags, TagMode.ANY, List.of(), false, 0, TAG_CANDIDATES).postIds());
+        }
+        candidates.addAll(trending(now));
+        return candidates;
+    }
+
+    /** Shared by every user, so it is refreshed at most once per TTL. */
+    private List<UUID> trending(LocalDateTime now) {
+        Ranked pool = trending;
+        if (pool == null || System.nanoTime() - pool.expiresAt() >= 0) {
+            pool = new Ranked(postRepository.findTrendingIds(now.minus(CANDIDATE_WINDOW), now,
+                    PageRequest.of(0, TRENDING_CANDIDATES)), System.nanoTime() + ttlNanos);
+            trending = pool;
+        }
+        return pool.postIds();
+    }
+
+    private List<Candidate> loadCandidates(Set<UUID> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, List<String>> tags = new HashMap<>();
+        for (Object[] row : postRepository.findTagPairsByPostIdIn(ids)) {
+            tags.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        List<Candidate> candidates = new ArrayList<>(ids.size());
+        for (Object[] row : postRepository.findRankingFeatures(ids, now)) {
+            UUID postId = (UUID) row[0];
+            candidates.add(new Candidate(postId, (UUID) row[1], (LocalDateTime) row[2], (Long) row[3],
+                    (Long) row[4], (Long) row[5], tags.getOrDefault(postId, List.of())));
+        }
+        return candidates;
+    }
+
+    /**
+     * Best first: {@value #RECENCY_WEIGHT} halving every {@value #RECENCY_HALF_LIFE_HOURS}
+     * hours, {@value #ENGAGEMENT_WEIGHT} per log of reactions, comments (double) and views
+     * (a tenth), up to {@value #AFFINITY_WEIGHT} for the user's tags and
+     * {@value #FOLLOWED_WEIGHT} for a followed author. The user's own posts are left out.
+     */
+    static List<UUID> rank(List<Candidate> candidates, UUID userId, Set<UUID> followed,
+                           Map<String, Double> affinity, LocalDateTime now) {
+        Map<UUID, Double> scores = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            double ageHours = Math.max(0, Duration.between(candidate.visibleAt(), now).toMinutes() / 60.0);
+            double engagement = candidate.reactions() + 2.0 * candidate.comments() + candidate.views() / 10.0;
+            double tagAffinity = 0;
+            for (String tag : candidate.tags()) {
+                tagAffinity += affinity.getOrDefault(tag, 0.0);
+            }
+            double score = RECENCY_WEIGHT * Math.pow(0.5, ageHours / RECENCY_HALF_LIFE_HOURS)
+                    + ENGAGEMENT_WEIGHT * Math.log1p(engagement)
+                    + AFFINITY_WEIGHT * Math.min(1, tagAffinity)
+                    + (followed.contains(candidate.authorId()) ? FOLLOWED_WEIGHT : 0);
+            scores.put(candidate.postId(), score);
+        }
+
+        Map<UUID, Integer> perAuthor = new HashMap<>();
+        List<UUID> ranked = new ArrayList<>(candidates.size());
+        candidates.stream()
+                .filter(candidate -> !candidate.authorId().equals(userId))
+                .sorted(Comparator.comparingDouble((Candidate c) -> scores.get(c.postId())).reversed()
+                        .thenComparing(Candidate::visibleAt, Comparator.reverseOrder())
+                        .thenComparing(Candidate::postId))
+                .forEach(candidate -> {
+                    if (perAuthor.merge(candidate.authorId(), 1, Integer::sum) <= MAX_PER_AUTHOR) {
+                        ranked.add(candidate.postId());
+                    }
+                });
+        return List.copyOf(ranked);
+    }
+
+    private List<PostResponse> hydrate(List<UUID> postIds) {
+        Map<UUID, Post> byId = new HashMap<>();
+        postRepository.findAllById(postIds).forEach(p -> byId.put(p.getId(), p));
+        return postIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(postService::convertToResponse)
+                .toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.phoenix.service;
+
+import com.phoenix.repository.JobLockRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide mutual exclusion for scheduled jobs, backed by the job_locks table.
+ * <p>
+ * A lock is a lease: the holder owns it until {@code leaseUntil}, after which any
+ * node may take it over. Every acquisition bumps the fencing token, so a holder that
+ * stalled past its lease finds its {@link #renew} rejected and must stop. Lease
+ * times come from each node's UTC clock, so lease lengths should comfortably exceed
+ * expected clock skew.
+ * <p>
+ * Metrics: {@code phoenix.job.lock.acquire} (timer, tagged by job and result) and
+ * {@code phoenix.job.lock.held} (gauge, 1 while this instance holds the job's lock).
+ */
+@Service
+@Slf4j
+public class JobLockService {
+
+    private static final LocalDateTime EXPIRED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /** A held lock; {@code token} is the fencing token of this acquisition. */
+    public record Lease(String name, long token, LocalDateTime acquiredAt) {
+    }
+
+    private final JobLockRepository jobLockRepository;
+    private final TransactionTemplate requiresNew;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId;
+    private final Map<String, AtomicLong> held = new ConcurrentHashMap<>();
+
+    public JobLockService(JobLockRepository jobLockRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.jobLockRepository = jobLockRepository;
+        this.meterRegistry = meterRegistry;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // pid@host plus a random suffix, so two contexts in one JVM are distinct owners
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Runs {@code job} only if this instance wins the named lock. The lock is held for
+     * at most {@code lockAtMostFor} unless renewed, and once released stays closed
+     * until {@code lockAtLeastFor} after acquisition. If called inside a transaction,
+     * release waits until that transaction completes.
+     *
+     * @return true if the job ran on this instance
+     */
+    public boolean runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Consumer<Lease> job) {
+        Optional<Lease> lease = tryAcquire(name, lockAtMostFor);
+        if (lease.isEmpty()) {
+            log.debug("Job {} is running elsewhere; skipping on {}", name, instanceId);
+            return false;
+        }
+        try {
+            job.accept(lease.get());
+        } finally {
+            releaseAfterCompletion(lease.get(), lockAtLeastFor);
+        }
+        return true;
+    }
+
+    public Optional<Lease> tryAcquire(String name, Duration leaseFor) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<Lease> lease = requiresNew.execute(status -> {
+            LocalDateTime now = utcNow();
+            jobLockRepository.createIfAbsent(name, EXPIRED);
+            if (jobLockRepository.acquire(name, instanceId, now, now.plus(leaseFor)) == 0) {
+                return Optional.<Lease>empty();
+            }
+            return jobLockRepository.findTokenByNameAndOwner(name, instanceId)
+                    .map(token -> new Lease(name, token, now));
+        });
+        sample.stop(meterRegistry.timer("phoenix.job.lock.acquire",
+                "job", name, "result", lease.isPresent() ? "acquired" : "busy"));
+        if (lease.isPresent()) {
+            heldGauge(name).set(1);
+        }
+        return lease;
+    }
+
+    /**
+     * Extends the lease to {@code leaseFor} from now. Fails once the lease has
+     * expired or another node has taken the lock, in which case the caller must
+     * stop working under it.
+     */
+    public boolean renew(Lease lease, Duration leaseFor) {
+        boolean renewed = Boolean.TRUE.equals(requiresNew.execute(status -> {
+            LocalDateTime now = utcNow();
+            return jobLockRepository.renew(lease.name(), lease.token(), now, now.plus(leaseFor)) == 1;
+        }));
+        if (!renewed) {
+            heldGauge(lease.name()).set(0);
+            log.warn("Lost lock {} (token {}) on {}", lease.name(), lease.token(), instanceId);
+        }
+        return renewed;
+    }
+
+    public void release(Lease lease, Duration lockAtLeastFor) {
+        LocalDateTime reopenAt = lease.acquiredAt().plus(lockAtLeastFor);
+        requiresNew.executeWithoutResult(status ->
+                jobLockRepository.release(lease.name(), lease.token(), reopenAt.isAfter(utcNow()) ? reopenAt : EXPIRED));
+        heldGauge(lease.name()).set(0);
+    }
+
+    private void releaseAfterCompletion(Lease lease, Duration lockAtLeastFor) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(lease, lockAtLeastFor);
+                }
+            });
+        } else {
+            release(lease, lockAtLeastFor);
+        }
+    }
+
+    private AtomicLong heldGauge(String name) {
+        return held.computeIfAbsent(name, job -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("phoenix.job.lock.held", value, AtomicLong::get)
+                    .tag("job", job)
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    private LocalDateTime utcNow() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
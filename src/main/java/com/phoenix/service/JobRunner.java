@@ -0,0 +1,140 @@
+package com.phoenix.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link ScheduledJob}s off the scheduler thread: IO jobs each on their own
+ * virtual threads, CPU jobs on one platform pool of half the cores shared between them.
+ * <p>
+ * A run is skipped while the previous run of the same job is still going, and is
+ * interrupted once it exceeds the job's timeout (a job that ignores interrupts
+ * keeps its slot until it returns). Metrics, all tagged by job:
+ * {@code phoenix.job.duration} (timer, by outcome), {@code phoenix.job.lag} (time
+ * from trigger to start), {@code phoenix.job.last.success} (epoch seconds) and
+ * {@code phoenix.job.skipped}.
+ */
+@Component
+@Slf4j
+public class JobRunner {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<ScheduledJob, ExecutorService> executors = new EnumMap<>(ScheduledJob.class);
+    private final Map<ScheduledJob, AtomicBoolean> running = new EnumMap<>(ScheduledJob.class);
+    private final Map<ScheduledJob, AtomicLong> lastSuccess = new EnumMap<>(ScheduledJob.class);
+    private final ScheduledExecutorService watchdog;
+
+    public JobRunner(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // A job never overlaps itself, so a pool per job would only ever use one thread;
+        // sharing one lets concurrent CPU jobs spread without exceeding half the cores
+        int cpuThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ExecutorService cpuPool = new ThreadPoolExecutor(cpuThreads, cpuThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("job-cpu-"));
+        for (ScheduledJob job : ScheduledJob.values()) {
+            executors.put(job, job.getKind() == ScheduledJob.Kind.IO
+                    ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-" + job.getJobName() + "-", 0).factory())
+                    : cpuPool);
+            running.put(job, new AtomicBoolean());
+            AtomicLong success = new AtomicLong();
+            lastSuccess.put(job, success);
+            Gauge.builder("phoenix.job.last.success", success, AtomicLong::get)
+                    .tag("job", job.getJobName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("job-watchdog-"));
+    }
+
+    /**
+     * Starts a run of {@code job} on its executor.
+     *
+     * @return the running task, or null if the previous run has not finished
+     */
+    public Future<?> submit(ScheduledJob job, Runnable body) {
+        return submit(job, job.getTimeout(), body);
+    }
+
+    Future<?> submit(ScheduledJob job, Duration timeout, Runnable body) {
+        AtomicBoolean busy = running.get(job);
+        if (!busy.compareAndSet(false, true)) {
+            Counter.builder("phoenix.job.skipped").tag("job", job.getJobName()).register(meterRegistry).increment();
+            log.warn("Skipping {}: previous run still in progress", job.getJobName());
+            return null;
+        }
+
+        long triggeredAt = System.nanoTime();
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = executors.get(job).submit(() -> {
+                started.set(true);
+                long startedAt = System.nanoTime();
+                meterRegistry.timer("phoenix.job.lag", "job", job.getJobName())
+                        .record(startedAt - triggeredAt, TimeUnit.NANOSECONDS);
+                String outcome = "failure";
+                try {
+                    body.run();
+                    outcome = "success";
+                    lastSuccess.get(job).set(System.currentTimeMillis() / 1000);
+                } catch (RuntimeException e) {
+                    log.error("Job {} failed: {}", job.getJobName(), e.getMessage(), e);
+                } finally {
+                    if (timedOut.get()) {
+                        outcome = "timeout";
+                    }
+                    Timer.builder("phoenix.job.duration")
+                            .tags("job", job.getJobName(), "outcome", outcome)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    busy.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            busy.set(false);
+            throw e;
+        }
+
+        watchdog.schedule(() -> {
+            if (!task.isDone()) {
+                timedOut.set(true);
+                log.warn("Job {} exceeded its {} timeout; interrupting", job.getJobName(), timeout);
+                // Cancelled before it started, the body never runs and so never frees the slot.
+                if (task.cancel(true) && !started.get()) {
+                    busy.set(false);
+                }
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return task;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        executors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        return Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+}
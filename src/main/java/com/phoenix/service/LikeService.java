@@ -51,10 +51,9 @@ public class LikeService {
             likeRepository.save(Objects.requireNonNull(like));
             long newCount = likeRepository.countByPost(post);
             notificationService.createNotification(
-                    post.getAuthor(),
+                    post.getAuthor().getId(),
                     NotificationType.LIKE,
-                    user.getName(),
-                    user.getEmail(),
+                    user,
                     user.getName() + " liked your post \"" + post.getTitle() + "\"",
                     post.getId(),
                     post.getTitle());
@@ -0,0 +1,38 @@
+package com.phoenix.service;
+
+import java.util.Arrays;
+
+/**
+ * Growable {@code long[]} for bulk loads, so streamed rows are kept as primitives
+ * instead of boxed {@code Long}s or {@code Object[]} rows. Not thread-safe; fill one
+ * per loader thread.
+ */
+final class LongBuffer {
+
+    private long[] values;
+    private int size;
+
+    LongBuffer(int initialCapacity) {
+        values = new long[Math.max(16, initialCapacity)];
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1));
+        }
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Sorts the filled part in place, ascending. */
+    void sort() {
+        Arrays.parallelSort(values, 0, size);
+    }
+}
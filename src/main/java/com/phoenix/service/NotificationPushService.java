@@ -0,0 +1,259 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.NotificationResponse;
+import com.phoenix.entity.User;
+import com.phoenix.event.NotificationWrittenEvent;
+import com.phoenix.event.NotificationsReadEvent;
+import com.phoenix.exception.TooManyRequestsException;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Live notification stream: one registry entry per connected user, holding their
+ * open {@link SseEmitter}s (one per tab).
+ * <p>
+ * Each write pushes a {@code notification} event to every open stream of the
+ * recipient. {@link NotificationWrittenEvent}s and {@link NotificationsReadEvent}s
+ * are only hints that the unread count moved: it is recounted from the database
+ * (an index-only count) and pushed as an {@code unread} event, so the stream never
+ * drifts from {@code /unread-count}, whatever other instances, retention or a lost
+ * event did in between. Recounts for one user are single-flight: a burst of writes
+ * costs one count, and the last count sent is never older than the last hint. A
+ * comment line is sent every {@code app.notifications.heartbeat-ms} so proxies
+ * keep idle streams open and dead ones are noticed and removed.
+ * <p>
+ * An idle stream holds no thread, only its emitter and socket; sends run on
+ * virtual threads so a slow client never stalls the notification writer.
+ * Streams are per instance: a write on another instance is not pushed until
+ * its events are, though the next recount includes it. Each instance holds at
+ * most {@code app.notifications.max-streams-per-user} streams for one account;
+ * past that a subscribe is refused with {@link TooManyRequestsException}.
+ * Metric: {@code phoenix.notifications.stream.connections} (gauge, open streams).
+ */
+@Component
+@Slf4j
+public class NotificationPushService {
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final long streamTimeoutMs;
+    private final long heartbeatMs;
+    private final int maxStreamsPerUser;
+
+    private final Map<UUID, Subscriber> byId = new ConcurrentHashMap<>();
+    private final Map<String, Subscriber> byEmail = new ConcurrentHashMap<>();
+    private final AtomicLong connections = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** A connected user: their open streams, and whether a recount of their unread notifications is queued. */
+    private static final class Subscriber {
+        private final UUID userId;
+        private final String email;
+        private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean recountQueued = new AtomicBoolean();
+
+        private Subscriber(UUID userId, String email) {
+            this.userId = userId;
+            this.email = email;
+        }
+    }
+
+    public NotificationPushService(NotificationRepository notificationRepository, UserRepository userRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.notifications.stream-timeout-ms:1800000}") long streamTimeoutMs,
+                                   @Value("${app.notifications.heartbeat-ms:25000}") long heartbeatMs,
+                                   @Value("${app.notifications.max-streams-per-user:8}") int maxStreamsPerUser) {
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+    }
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("phoenix.notifications.stream.connections", connections, AtomicLong::get)
+                .register(meterRegistry);
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        byId.values().forEach(subscriber -> subscriber.emitters.forEach(SseEmitter::complete));
+        senders.shutdown();
+    }
+
+    /**
+     * Opens a stream for {@code email} and sends it the current unread count.
+     *
+     * @throws TooManyRequestsException if the account already has its maximum of open streams here
+     */
+    public SseEmitter subscribe(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        Subscriber subscriber;
+        synchronized (this) {
+            subscriber = byId.get(user.getId());
+            if (subscriber != null && subscriber.emitters.size() >= maxStreamsPerUser) {
+                throw new TooManyRequestsException("Too many notification streams open for this account");
+            }
+            if (subscriber == null) {
+                subscriber = new Subscriber(user.getId(), user.getEmail());
+                byId.put(subscriber.userId, subscriber);
+                byEmail.put(subscriber.email, subscriber);
+            }
+            subscriber.emitters.add(emitter);
+        }
+        connections.incrementAndGet();
+        Subscriber registered = subscriber;
+        emitter.onCompletion(() -> remove(registered, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(registered, emitter));
+
+        // Registered before counting, so any write from here on triggers a later recount
+        long unread = notificationRepository.countByRecipient_IdAndIsReadFalse(user.getId());
+        send(subscriber, emitter, SseEmitter.event().name("unread").data(Map.of("count", unread)));
+        return emitter;
+    }
+
+    @EventListener
+    public void onNotificationWritten(NotificationWrittenEvent event) {
+        Subscriber subscriber = byId.get(event.recipientId());
+        if (subscriber == null) {
+            return;
+        }
+        NotificationResponse notification = NotificationResponse.builder()
+                .type(event.type())
+                .actorName(event.actorName())
+                .actorCount(event.actorCount())
+                .message(event.message())
+                .postId(event.postId())
+                .postTitle(event.postTitle())
+                .createdAt(event.createdAt())
+                .build();
+        pushAll(subscriber, () -> SseEmitter.event().name("notification").data(notification));
+        if (event.newlyUnread()) {
+            recount(subscriber);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsRead(NotificationsReadEvent event) {
+        Subscriber subscriber = byEmail.get(event.email());
+        if (subscriber == null || (!event.all() && event.count() == 0)) {
+            return;
+        }
+        recount(subscriber);
+    }
+
+    /**
+     * Queues a recount of the subscriber's unread notifications unless one is queued
+     * already. The flag is cleared before counting, so a hint that arrives while a
+     * count runs queues another; counting and sending under the subscriber's lock
+     * keeps a stale count from overtaking a fresh one.
+     */
+    private void recount(Subscriber subscriber) {
+        if (!subscriber.recountQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                synchronized (subscriber) {
+                    subscriber.recountQueued.set(false);
+                    long unread = notificationRepository.countByRecipient_IdAndIsReadFalse(subscriber.userId);
+                    for (SseEmitter emitter : subscriber.emitters) {
+                        send(subscriber, emitter, SseEmitter.event().name("unread").data(Map.of("count", unread)));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscriber.recountQueued.set(false);
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : byId.values()) {
+            pushAll(subscriber, () -> SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    /** Sends the events, in order, to each of the subscriber's streams. A built event can only be sent once. */
+    @SafeVarargs
+    private void pushAll(Subscriber subscriber, Supplier<SseEmitter.SseEventBuilder>... events) {
+        for (SseEmitter emitter : subscriber.emitters) {
+            try {
+                senders.execute(() -> {
+                    for (Supplier<SseEmitter.SseEventBuilder> event : events) {
+                        if (!send(subscriber, emitter, event.get())) {
+                            return;
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the notification writer's final flush comes after the streams are closed
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container may not tell us until the next write
+            log.debug("Dropping notification stream for user {}: {}", subscriber.userId, e.getMessage());
+            remove(subscriber, emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Subscriber subscriber, SseEmitter emitter) {
+        synchronized (this) {
+            if (!subscriber.emitters.remove(emitter)) {
+                return;
+            }
+            if (subscriber.emitters.isEmpty()) {
+                byId.remove(subscriber.userId, subscriber);
+                byEmail.remove(subscriber.email, subscriber);
+            }
+        }
+        connections.decrementAndGet();
+    }
+}
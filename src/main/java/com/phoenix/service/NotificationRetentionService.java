@@ -0,0 +1,90 @@
+package com.phoenix.service;
+
+import com.phoenix.repository.NotificationArchiveRepository;
+import com.phoenix.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the {@code notifications} table small: read notifications older than
+ * {@code app.notifications.archive-after-days} are moved to
+ * {@code notification_archive}. Unread ones stay however old they are.
+ * <p>
+ * Rows move oldest first in batches of {@code app.notifications.archive-batch-size};
+ * each batch is locked, copied with one insert-select and deleted in the same
+ * transaction, so a crash leaves every row in exactly one table and a row the
+ * notification writer reopens meanwhile stays put. One instance runs at a time,
+ * under a job lock. Metric: {@code phoenix.notifications.archived} (counter, rows).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private static final String RETENTION_JOB = "notification-retention";
+    private static final Duration RETENTION_LEASE = Duration.ofMinutes(10);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationArchiveRepository notificationArchiveRepository;
+    private final JobLockService jobLockService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.archive-after-days:90}")
+    private int archiveAfterDays;
+
+    @Value("${app.notifications.archive-batch-size:5000}")
+    private int batchSize;
+
+    /** Triggered nightly by {@link ScheduledJobs}. */
+    public void archive() {
+        if (!jobLockService.runExclusively(RETENTION_JOB, RETENTION_LEASE, Duration.ZERO, this::archive)) {
+            log.info("Notification archiving is running on another instance");
+        }
+    }
+
+    private void archive(JobLockService.Lease lease) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime before = now.minusDays(archiveAfterDays);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long archived = 0;
+        while (true) {
+            List<UUID> ids = notificationRepository.findArchivableIds(before, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            if (!jobLockService.renew(lease, RETENTION_LEASE)) {
+                log.warn("Notification archiving lost its lock after {} rows", archived);
+                break;
+            }
+
+            Integer moved = transaction.execute(status -> {
+                List<UUID> stillRead = notificationRepository.lockReadByIdIn(ids);
+                if (stillRead.isEmpty()) {
+                    return 0;
+                }
+                int copied = notificationArchiveRepository.copyFromNotifications(stillRead, now);
+                notificationRepository.deleteByIdIn(stillRead);
+                return copied;
+            });
+            archived += moved == null ? 0 : moved;
+            meterRegistry.counter("phoenix.notifications.archived").increment(moved == null ? 0 : moved);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Archived {} read notifications older than {}", archived, before);
+    }
+}
@@ -5,14 +5,20 @@ import com.phoenix.dto.PagedResponse;
 import com.phoenix.entity.Notification;
 import com.phoenix.entity.NotificationType;
 import com.phoenix.entity.User;
+import com.phoenix.event.NotificationRequestedEvent;
+import com.phoenix.event.NotificationsReadEvent;
 import com.phoenix.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -23,29 +29,22 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Creates a notification. Skips if recipient and actor are the same user.
+     * Requests a notification for {@code recipientId}. Skips if the recipient is the
+     * actor. Nothing is written here: {@link NotificationWriter} batches the insert
+     * after the caller's transaction commits, so a rolled-back action notifies no one.
      */
-    @Transactional
-    public void createNotification(User recipient, NotificationType type,
-                                   String actorName, String actorEmail,
+    public void createNotification(UUID recipientId, NotificationType type, User actor,
                                    String message, UUID postId, String postTitle) {
         // Don't notify yourself
-        if (recipient.getEmail().equalsIgnoreCase(actorEmail)) {
+        if (Objects.equals(recipientId, actor.getId())) {
             return;
         }
 
-        Notification notification = Notification.builder()
-                .recipient(recipient)
-                .type(type)
-                .actorName(actorName)
-                .message(message)
-                .postId(postId)
-                .postTitle(postTitle)
-                .build();
-
-        notificationRepository.save(Objects.requireNonNull(notification));
+        eventPublisher.publishEvent(new NotificationRequestedEvent(recipientId, actor.getId(), type,
+                actor.getName(), message, postId, postTitle, LocalDateTime.now(ZoneOffset.UTC)));
     }
 
     @Transactional
@@ -69,31 +68,60 @@ public class NotificationService {
                 .build();
     }
 
-    @Transactional
+    /** Always from the database, the one count every instance and stream agrees on. */
+    @Transactional(readOnly = true)
     public long getUnreadCount(String email) {
         return notificationRepository.countByRecipient_EmailAndIsReadFalse(email);
     }
 
     @Transactional
     public void markAsRead(UUID id, String email) {
-        notificationRepository.markAsRead(id, email);
+        int marked = notificationRepository.markAsRead(id, email);
+        eventPublisher.publishEvent(new NotificationsReadEvent(email, false, marked));
     }
 
     @Transactional
     public void markAllAsRead(String email) {
-        notificationRepository.markAllAsRead(email);
+        int marked = notificationRepository.markAllAsRead(email);
+        eventPublisher.publishEvent(new NotificationsReadEvent(email, true, marked));
     }
 
     private NotificationResponse toResponse(Notification n) {
+        List<String> recentActors = recentActors(n);
         return NotificationResponse.builder()
                 .id(n.getId())
                 .type(n.getType())
                 .actorName(n.getActorName())
-                .message(n.getMessage())
+                .actorCount(n.getActorCount())
+                .recentActors(recentActors)
+                .message(n.getActorCount() > 1 ? coalescedMessage(n) : n.getMessage())
                 .postId(n.getPostId())
                 .postTitle(n.getPostTitle())
                 .isRead(n.isRead())
                 .createdAt(n.getCreatedAt())
                 .build();
     }
+
+    private static List<String> recentActors(Notification n) {
+        if (n.getLastActors() == null) {
+            return List.of(n.getActorName());
+        }
+        return Arrays.stream(n.getLastActors().split("\n"))
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .limit(3)
+                .toList();
+    }
+
+    /** e.g. "Alice and 41 others reacted to your post "Title"" */
+    private static String coalescedMessage(Notification n) {
+        int others = n.getActorCount() - 1;
+        String actors = n.getActorName() + " and " + others + (others == 1 ? " other " : " others ");
+        return actors + switch (n.getType()) {
+            case LIKE -> "reacted to your post \"" + n.getPostTitle() + "\"";
+            case COMMENT -> "commented on your post \"" + n.getPostTitle() + "\"";
+            case REPLY -> "replied to your comment";
+            case FOLLOW -> "started following you";
+        };
+    }
 }
@@ -0,0 +1,346 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.NotificationType;
+import com.phoenix.event.NotificationRequestedEvent;
+import com.phoenix.event.NotificationWrittenEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes notifications off the request path, coalescing bursts into one row.
+ * <p>
+ * Committed {@link NotificationRequestedEvent}s are appended to a bounded
+ * in-memory buffer. A single writer thread folds them into aggregates keyed by
+ * (recipient, type, post, time bucket of {@code app.notifications.bucket-minutes})
+ * and, once the oldest aggregate has waited {@code app.notifications.coalesce-ms} or
+ * {@code app.notifications.batch-size} aggregates are pending, writes them all in one
+ * transaction: one JDBC batch of inserts for keys that have no row yet, one recording
+ * the actors in {@code notification_actors}, then batches of updates that add the
+ * actors new to each row and reopen it if it was read. An actor already counted in a
+ * row, say a like toggled off and on again after the row was written, adds nothing and
+ * notifies no one. A viral post therefore costs one row per recipient, type and bucket
+ * rather than one per like. A failed batch rolls the whole write back, so the aggregates
+ * can be retried one by one without counting anyone twice. Each aggregate that changed
+ * its row is published after commit as a {@link NotificationWrittenEvent}, saying
+ * whether it added an unread row, for live push.
+ * <p>
+ * When the buffer is full new notifications are dropped rather than blocking the
+ * action that triggered them, and anything not yet written when the process dies
+ * is lost: notifications are best-effort. Metrics: {@code phoenix.notifications.buffered}
+ * (gauge), {@code phoenix.notifications.dropped}, {@code phoenix.notifications.requested}
+ * and {@code phoenix.notifications.rows} (counters, the latter tagged inserted/updated;
+ * requested over inserted is the storage saving) and {@code phoenix.notifications.flush}
+ * (timer, one per write).
+ */
+@Component
+@Slf4j
+public class NotificationWriter {
+
+    private static final int RECENT_ACTORS = 3;
+
+    // Existing last_actors are kept after the new names and the whole value cut to the column size.
+    private static final String UPDATE = "update notifications set actor_count = actor_count + ?, actor_name = ?, " +
+            "message = ?, post_title = ?, last_actors = left(cast(? as varchar(1000)) || coalesce(last_actors, ''), 1000), " +
+            "is_read = false, created_at = ? where recipient_id = ? and coalesce_key = ? and is_read = ";
+
+    // Starts with no actors; the update that follows adds them
+    private static final String INSERT = "insert into notifications " +
+            "(id, recipient_id, type, actor_name, message, post_id, post_title, is_read, created_at, " +
+            "actor_count, coalesce_key) values (?, ?, ?, ?, ?, ?, ?, false, ?, 0, ?) " +
+            "on conflict do nothing";
+
+    // Changes no row when the actor is already counted in the notification
+    private static final String INSERT_ACTOR = "insert into notification_actors (id, notification_id, actor_id) " +
+            "select ?, id, ? from notifications where recipient_id = ? and coalesce_key = ? on conflict do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<NotificationRequestedEvent> buffer;
+    private final int batchSize;
+    private final long coalesceNanos;
+    private final long bucketSeconds;
+    private final Counter dropped;
+    private final Counter requested;
+    private final Counter inserted;
+    private final Counter updated;
+    private final Timer flushTimer;
+    private Thread writer;
+    private volatile boolean running = true;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                              @Value("${app.notifications.buffer-size:10000}") int bufferSize,
+                              @Value("${app.notifications.batch-size:500}") int batchSize,
+                              @Value("${app.notifications.coalesce-ms:2000}") long coalesceMillis,
+                              @Value("${app.notifications.bucket-minutes:60}") long bucketMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(coalesceMillis);
+        this.bucketSeconds = TimeUnit.MINUTES.toSeconds(bucketMinutes);
+        this.dropped = meterRegistry.counter("phoenix.notifications.dropped");
+        this.requested = meterRegistry.counter("phoenix.notifications.requested");
+        this.inserted = meterRegistry.counter("phoenix.notifications.rows", "write", "inserted");
+        this.updated = meterRegistry.counter("phoenix.notifications.rows", "write", "updated");
+        this.flushTimer = meterRegistry.timer("phoenix.notifications.flush");
+        Gauge.builder("phoenix.notifications.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer = Thread.ofPlatform().name("notification-writer").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationRequested(NotificationRequestedEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.increment();
+            log.warn("Notification buffer full; dropping {} notification for {}", event.type(), event.recipientId());
+        }
+    }
+
+    /** Identifies the row a notification folds into, e.g. LIKE:{postId}:1792396800. */
+    String coalesceKey(NotificationType type, UUID postId, LocalDateTime createdAt) {
+        long epochSecond = createdAt.toEpochSecond(ZoneOffset.UTC);
+        return type + ":" + (postId == null ? "-" : postId) + ":" + (epochSecond - Math.floorMod(epochSecond, bucketSeconds));
+    }
+
+    private void run() {
+        Map<Key, Aggregate> pending = new LinkedHashMap<>();
+        long oldestAt = 0;
+        while (running || !buffer.isEmpty() || !pending.isEmpty()) {
+            try {
+                long waitNanos = pending.isEmpty() ? TimeUnit.MILLISECONDS.toNanos(200)
+                        : oldestAt + coalesceNanos - System.nanoTime();
+                NotificationRequestedEvent event = waitNanos > 0 && running
+                        ? buffer.poll(waitNanos, TimeUnit.NANOSECONDS) : buffer.poll();
+                if (event != null) {
+                    if (pending.isEmpty()) {
+                        oldestAt = System.nanoTime();
+                    }
+                    add(pending, event);
+                }
+                if (!pending.isEmpty() && (pending.size() >= batchSize || !running && event == null
+                        || System.nanoTime() - oldestAt >= coalesceNanos)) {
+                    write(new ArrayList<>(pending.values()));
+                    pending.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private void add(Map<Key, Aggregate> pending, NotificationRequestedEvent event) {
+        requested.increment();
+        String coalesceKey = coalesceKey(event.type(), event.postId(), event.createdAt());
+        pending.computeIfAbsent(new Key(event.recipientId(), coalesceKey), key -> new Aggregate(key, event)).add(event);
+    }
+
+    private void write(List<Aggregate> aggregates) {
+        List<NotificationWrittenEvent> written;
+        try {
+            written = flushTimer.record(() -> transaction.execute(status -> upsert(aggregates)));
+        } catch (RuntimeException e) {
+            if (aggregates.size() > 1) {
+                // One bad row (e.g. a recipient deleted meanwhile) rolls the batch back; retry singly to isolate it.
+                for (Aggregate aggregate : aggregates) {
+                    write(List.of(aggregate));
+                }
+                return;
+            }
+            dropped.increment(aggregates.get(0).count);
+            log.error("Failed to write {} notification for {}: {}",
+                    aggregates.get(0).type, aggregates.get(0).key.recipientId(), e.getMessage());
+            return;
+        }
+        if (written != null) {
+            written.forEach(eventPublisher::publishEvent);
+        }
+    }
+
+    private List<NotificationWrittenEvent> upsert(List<Aggregate> aggregates) {
+        // A retry after a rollback counts from scratch
+        aggregates.forEach(a -> a.added = 0);
+        // Rows for keys seen for the first time, so that every aggregate has a row to record its actors against
+        int[][] inserts = jdbcTemplate.batchUpdate(INSERT, aggregates, aggregates.size(), (ps, a) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, a.key.recipientId());
+            ps.setString(3, a.type.name());
+            ps.setString(4, a.actorName);
+            ps.setString(5, a.message);
+            ps.setObject(6, a.postId);
+            ps.setString(7, a.postTitle);
+            ps.setTimestamp(8, Timestamp.valueOf(a.createdAt));
+            ps.setString(9, a.key.coalesceKey());
+        });
+        Set<Aggregate> created = changedRows(aggregates, inserts);
+
+        List<Actor> actors = new ArrayList<>();
+        for (Aggregate a : aggregates) {
+            for (UUID actorId : a.actorIds) {
+                actors.add(new Actor(a, actorId));
+            }
+        }
+        int[][] counted = jdbcTemplate.batchUpdate(INSERT_ACTOR, actors, actors.size(), (ps, actor) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, actor.actorId());
+            ps.setObject(3, actor.aggregate().key.recipientId());
+            ps.setString(4, actor.aggregate().key.coalesceKey());
+        });
+        for (Actor actor : changedRows(actors, counted)) {
+            actor.aggregate().added++;
+        }
+        List<Aggregate> changed = aggregates.stream().filter(a -> a.added > 0).toList();
+        if (changed.isEmpty()) {
+            return List.of();
+        }
+
+        // Rows that were unread (including those just inserted), then rows read since that this reopens
+        List<Aggregate> notUnread = update(changed, false);
+        List<Aggregate> missing = update(notUnread, true);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException(missing.size() + " notification rows vanished while being written");
+        }
+        inserted.increment(created.size());
+        updated.increment(changed.size() - created.size());
+
+        Set<Aggregate> reopened = Collections.newSetFromMap(new IdentityHashMap<>());
+        reopened.addAll(notUnread);
+        List<NotificationWrittenEvent> written = new ArrayList<>(changed.size());
+        for (Aggregate a : changed) {
+            written.add(new NotificationWrittenEvent(a.key.recipientId(), a.type, a.actorName, a.added, a.message,
+                    a.postId, a.postTitle, a.createdAt, created.contains(a) || reopened.contains(a)));
+        }
+        return written;
+    }
+
+    /** Adds each aggregate to its row if that row's read flag is {@code read}; returns those with no such row. */
+    private List<Aggregate> update(List<Aggregate> aggregates, boolean read) {
+        if (aggregates.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE + read, aggregates, aggregates.size(), (ps, a) -> {
+            ps.setInt(1, a.added);
+            ps.setString(2, a.actorName);
+            ps.setString(3, a.message);
+            ps.setString(4, a.postTitle);
+            ps.setString(5, a.recentActors());
+            ps.setTimestamp(6, Timestamp.valueOf(a.createdAt));
+            ps.setObject(7, a.key.recipientId());
+            ps.setString(8, a.key.coalesceKey());
+        });
+        Set<Aggregate> matched = changedRows(aggregates, counts);
+        return aggregates.stream().filter(a -> !matched.contains(a)).toList();
+    }
+
+    /** The items whose statement changed a row; a driver may report SUCCESS_NO_INFO (-2) instead of a count. */
+    private static <T> Set<T> changedRows(List<T> items, int[][] counts) {
+        Set<T> matching = Collections.newSetFromMap(new IdentityHashMap<>());
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    matching.add(items.get(i));
+                }
+                i++;
+            }
+        }
+        return matching;
+    }
+
+    private record Key(UUID recipientId, String coalesceKey) {
+    }
+
+    private record Actor(Aggregate aggregate, UUID actorId) {
+    }
+
+    /** Pending notifications for one key; the newest action supplies the display fields. */
+    private static final class Aggregate {
+
+        private final Key key;
+        private final NotificationType type;
+        private final UUID postId;
+        private final Set<UUID> actorIds = new HashSet<>();
+        private final LinkedHashSet<String> recentActors = new LinkedHashSet<>();
+        private int count;
+        /** Actors not yet counted in the row, known once written. */
+        private int added;
+        private String actorName;
+        private String message;
+        private String postTitle;
+        private LocalDateTime createdAt;
+
+        Aggregate(Key key, NotificationRequestedEvent first) {
+            this.key = key;
+            this.type = first.type();
+            this.postId = first.postId();
+        }
+
+        void add(NotificationRequestedEvent event) {
+            // Toggling within the window counts once
+            if (!actorIds.add(event.actorId())) {
+                return;
+            }
+            count++;
+            actorName = event.actorName();
+            message = event.message();
+            postTitle = event.postTitle();
+            if (createdAt == null || event.createdAt().isAfter(createdAt)) {
+                createdAt = event.createdAt();
+            }
+            recentActors.remove(event.actorName());
+            recentActors.addFirst(event.actorName());
+            if (recentActors.size() > RECENT_ACTORS) {
+                recentActors.removeLast();
+            }
+        }
+
+        String recentActors() {
+            StringBuilder names = new StringBuilder();
+            for (String name : recentActors) {
+                names.append(name).append('\n');
+            }
+            return names.toString();
+        }
+    }
+}
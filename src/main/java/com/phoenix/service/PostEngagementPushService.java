@@ -0,0 +1,293 @@
+package com.phoenix.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenix.dto.PostEngagementDelta;
+import com.phoenix.entity.ReactionType;
+import com.phoenix.event.PostEngagementChangedEvent;
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Live counts for open post pages: readers subscribe to a post's stream and get
+ * {@code engagement} events carrying the change in its reaction, comment and view
+ * counts, so a hot post never has to be reloaded (which would also record a view).
+ * <p>
+ * Changes are only gathered for posts somebody is watching. They are summed per
+ * post and pushed at most every {@code app.posts.live-push-ms}, so a burst of a
+ * thousand reactions costs each subscriber one event. Each push is serialized
+ * once and written to every subscriber from virtual threads; an idle subscriber
+ * holds no thread. A comment line every {@code app.posts.live-heartbeat-ms} keeps
+ * idle streams open through proxies and clears out closed ones.
+ * <p>
+ * Every {@code app.posts.live-presence-ms} watched posts whose reader count from
+ * {@link PostPresenceTracker} has changed also get a {@code presence} event.
+ * <p>
+ * Streams are per instance, like the notification stream: changes made on another
+ * instance are not pushed, and a client that reconnects should reload its counts.
+ * Each instance holds at most {@code app.posts.live-max-per-post} streams for one
+ * post and {@code app.posts.live-max-per-client} for one client; past either a
+ * subscribe is refused with {@link TooManyRequestsException}. Streams of a post
+ * that stops being public are closed.
+ * Metric: {@code phoenix.posts.live.connections} (gauge, open streams).
+ */
+@Component
+@Slf4j
+public class PostEngagementPushService {
+
+    private static final ReactionType[] REACTION_TYPES = ReactionType.values();
+
+    private final PostPresenceTracker postPresenceTracker;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long streamTimeoutMs;
+    private final long pushMs;
+    private final long heartbeatMs;
+    private final long presenceMs;
+    private final int maxPerPost;
+    private final int maxPerClient;
+
+    private final Map<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<SseEmitter, String> clientOf = new ConcurrentHashMap<>();
+    private final Map<String, Integer> streamsPerClient = new ConcurrentHashMap<>();
+    private final Map<UUID, Delta> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastReadingNow = new ConcurrentHashMap<>();
+    private final AtomicLong connections = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-engagement-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Changes to one post since its last push. Only mutated inside {@code pending.compute}. */
+    private static final class Delta {
+        private final long[] reactions = new long[REACTION_TYPES.length];
+        private long comments;
+        private long views;
+
+        private void add(PostEngagementChangedEvent event) {
+            if (event.reactionRemoved() != null) {
+                reactions[event.reactionRemoved().ordinal()]--;
+            }
+            if (event.reactionAdded() != null) {
+                reactions[event.reactionAdded().ordinal()]++;
+            }
+            comments += event.comments();
+            views += event.views();
+        }
+    }
+
+    public PostEngagementPushService(PostPresenceTracker postPresenceTracker,
+                                     ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                     @Value("${app.posts.live-timeout-ms:1800000}") long streamTimeoutMs,
+                                     @Value("${app.posts.live-push-ms:250}") long pushMs,
+                                     @Value("${app.posts.live-heartbeat-ms:25000}") long heartbeatMs,
+                                     @Value("${app.posts.live-presence-ms:5000}") long presenceMs,
+                                     @Value("${app.posts.live-max-per-post:5000}") int maxPerPost,
+                                     @Value("${app.posts.live-max-per-client:8}") int maxPerClient) {
+        this.postPresenceTracker = postPresenceTracker;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.pushMs = pushMs;
+        this.heartbeatMs = heartbeatMs;
+        this.presenceMs = presenceMs;
+        this.maxPerPost = maxPerPost;
+        this.maxPerClient = maxPerClient;
+    }
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("phoenix.posts.live.connections", connections, AtomicLong::get).register(meterRegistry);
+        ticker.scheduleAtFixedRate(this::pushPending, pushMs, pushMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::pushPresence, presenceMs, presenceMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        senders.shutdown();
+    }
+
+    /**
+     * Opens a stream of count changes for {@code postId} on behalf of {@code clientKey}.
+     * The caller must already have checked that the client may read the post.
+     */
+    public SseEmitter subscribe(UUID postId, String clientKey) {
+        if (streamsPerClient.merge(clientKey, 1, Integer::sum) > maxPerClient) {
+            release(clientKey);
+            throw new TooManyRequestsException("Too many live streams open from this client");
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        boolean[] added = new boolean[1];
+        subscribers.compute(postId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxPerPost) {
+                added[0] = set.add(emitter);
+            }
+            return set.isEmpty() ? null : set;
+        });
+        if (!added[0]) {
+            release(clientKey);
+            throw new TooManyRequestsException("Too many readers are watching this post live");
+        }
+        clientOf.put(emitter, clientKey);
+        connections.incrementAndGet();
+        emitter.onCompletion(() -> remove(postId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(postId, emitter));
+        return emitter;
+    }
+
+    /** A post that is no longer public must stop streaming to readers who could see it before. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisibilityChanged(PostVisibilityChangedEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(event.postId());
+        if (event.visibleAfter() || emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            remove(event.postId(), emitter);
+            emitter.complete();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEngagementChanged(PostEngagementChangedEvent event) {
+        if (!subscribers.containsKey(event.postId())) {
+            return;
+        }
+        pending.compute(event.postId(), (id, delta) -> {
+            Delta sum = delta != null ? delta : new Delta();
+            sum.add(event);
+            return sum;
+        });
+    }
+
+    private void pushPending() {
+        for (UUID postId : pending.keySet()) {
+            Delta delta = pending.remove(postId);
+            Set<SseEmitter> emitters = subscribers.get(postId);
+            if (delta == null || emitters == null || emitters.isEmpty()) {
+                continue;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(toResponse(postId, delta));
+            } catch (JsonProcessingException e) {
+                log.error("Could not serialize engagement for post {}", postId, e);
+                continue;
+            }
+            for (SseEmitter emitter : emitters) {
+                submit(postId, emitter, () -> SseEmitter.event().name("engagement").data(json));
+            }
+        }
+    }
+
+    private static PostEngagementDelta toResponse(UUID postId, Delta delta) {
+        Map<ReactionType, Long> reactions = new EnumMap<>(ReactionType.class);
+        long total = 0;
+        for (ReactionType type : REACTION_TYPES) {
+            long change = delta.reactions[type.ordinal()];
+            if (change != 0) {
+                reactions.put(type, change);
+                total += change;
+            }
+        }
+        return PostEngagementDelta.builder()
+                .postId(postId)
+                .reactionCounts(reactions)
+                .totalReactions(total)
+                .commentCount(delta.comments)
+                .viewCount(delta.views)
+                .build();
+    }
+
+    /** Pushes {@code presence} events for watched posts whose reader count changed. */
+    private void pushPresence() {
+        lastReadingNow.keySet().retainAll(subscribers.keySet());
+        subscribers.forEach((postId, emitters) -> {
+            long readingNow = postPresenceTracker.readingNow(postId);
+            Long previous = lastReadingNow.put(postId, readingNow);
+            if (previous != null && previous == readingNow) {
+                return;
+            }
+            String json = "{\"postId\":\"" + postId + "\",\"readingNow\":" + readingNow + "}";
+            for (SseEmitter emitter : emitters) {
+                submit(postId, emitter, () -> SseEmitter.event().name("presence").data(json));
+            }
+        });
+    }
+
+    private void sendHeartbeats() {
+        subscribers.forEach((postId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                submit(postId, emitter, () -> SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    /** A built event can only be sent once, so each send builds its own. */
+    private void submit(UUID postId, SseEmitter emitter, Supplier<SseEmitter.SseEventBuilder> event) {
+        try {
+            senders.execute(() -> send(postId, emitter, event.get()));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void send(UUID postId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container may not tell us until the next write
+            remove(postId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(UUID postId, SseEmitter emitter) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(postId, (id, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (removed[0]) {
+            connections.decrementAndGet();
+            String clientKey = clientOf.remove(emitter);
+            if (clientKey != null) {
+                release(clientKey);
+            }
+        }
+    }
+
+    private void release(String clientKey) {
+        streamsPerClient.computeIfPresent(clientKey, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
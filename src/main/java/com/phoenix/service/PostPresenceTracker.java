@@ -0,0 +1,181 @@
+package com.phoenix.service;
+
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "N people reading now": distinct readers who sent a presence heartbeat for a
+ * post within the last {@value #WINDOW_SECONDS} seconds, counted in memory only.
+ * <p>
+ * Each active post has a ring of {@value #BUCKETS} buckets of
+ * {@value #BUCKET_SECONDS} seconds. A bucket is a HyperLogLog sketch with
+ * {@value #REGISTERS} one-byte registers, so a reader who heartbeats several times
+ * is counted once and the count is the union of the live buckets; expect about 6%
+ * error on large counts, and near-exact ones below a couple of hundred readers.
+ * A bucket is cleared when the ring wraps round to it, so old heartbeats expire
+ * without any timer.
+ * <p>
+ * Memory budget: 6 x 256 register bytes plus bucket stamps and object headers,
+ * about 1.7 KB per active post, whatever its number of readers. At most
+ * {@code app.posts.presence-max-posts} posts are tracked (10,000, about 17 MB);
+ * heartbeats for further posts are ignored until {@link #sweep} drops the idle ones.
+ * Only public posts are tracked, so a draft's id shows nobody reading, and a post
+ * that stops being public is forgotten straight away. Counts are per instance.
+ * Metric: {@code phoenix.posts.presence.tracked} (gauge, active posts).
+ */
+@Component
+public class PostPresenceTracker {
+
+    static final int BUCKETS = 6;
+    static final int BUCKET_SECONDS = 10;
+    static final int WINDOW_SECONDS = BUCKETS * BUCKET_SECONDS;
+    private static final int PRECISION = 8;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private final PostRepository postRepository;
+    private final Clock clock;
+    private final int maxPosts;
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PostPresenceTracker(PostRepository postRepository, MeterRegistry meterRegistry,
+                               @Value("${app.posts.presence-max-posts:10000}") int maxPosts) {
+        this(postRepository, meterRegistry, maxPosts, Clock.systemUTC());
+    }
+
+    PostPresenceTracker(PostRepository postRepository, MeterRegistry meterRegistry, int maxPosts, Clock clock) {
+        this.postRepository = postRepository;
+        this.maxPosts = maxPosts;
+        this.clock = clock;
+        Gauge.builder("phoenix.posts.presence.tracked", windows, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Records that {@code readerKey} is reading the post and returns how many are.
+     * Only the first heartbeat for a post that is not yet tracked touches the database,
+     * to check that the post is public.
+     */
+    public long heartbeat(UUID postId, String readerKey) {
+        long slot = currentSlot();
+        Window window = windows.get(postId);
+        if (window == null) {
+            if (windows.size() >= maxPosts || !postRepository.existsVisibleById(postId, LocalDateTime.now(clock))) {
+                return 0;
+            }
+            window = windows.computeIfAbsent(postId, id -> new Window());
+        }
+        return window.add(hash(readerKey), slot);
+    }
+
+    /** Distinct readers in the window; 0 for posts nobody is reading. */
+    public long readingNow(UUID postId) {
+        Window window = windows.get(postId);
+        return window == null ? 0 : window.estimate(currentSlot());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisibilityChanged(PostVisibilityChangedEvent event) {
+        if (!event.visibleAfter()) {
+            windows.remove(event.postId());
+        }
+    }
+
+    /** Forgets posts with no heartbeat in the window. Triggered by {@link ScheduledJobs}. */
+    public void sweep() {
+        long slot = currentSlot();
+        windows.values().removeIf(window -> window.idleAt(slot));
+    }
+
+    private long currentSlot() {
+        return clock.millis() / 1000 / BUCKET_SECONDS;
+    }
+
+    /** 64-bit FNV-1a, then the SplitMix64 finalizer so nearby keys spread over all bits. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    /** One post's ring of HyperLogLog buckets. */
+    private static final class Window {
+        private final byte[][] registers = new byte[BUCKETS][REGISTERS];
+        private final long[] slots = new long[BUCKETS];
+        private long lastSlot;
+
+        private Window() {
+            Arrays.fill(slots, -1);
+        }
+
+        private synchronized long add(long hash, long slot) {
+            int bucket = (int) (slot % BUCKETS);
+            if (slots[bucket] != slot) {
+                Arrays.fill(registers[bucket], (byte) 0);
+                slots[bucket] = slot;
+            }
+            // Top bits pick the register; the rank is the position of the first 1 in the rest
+            int register = (int) (hash >>> (Long.SIZE - PRECISION));
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+            if (rank > registers[bucket][register]) {
+                registers[bucket][register] = rank;
+            }
+            lastSlot = Math.max(lastSlot, slot);
+            return estimate(slot);
+        }
+
+        private synchronized long estimate(long slot) {
+            byte[] union = new byte[REGISTERS];
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (slots[bucket] > slot - BUCKETS && slots[bucket] <= slot) {
+                    byte[] live = registers[bucket];
+                    for (int i = 0; i < REGISTERS; i++) {
+                        if (live[i] > union[i]) {
+                            union[i] = live[i];
+                        }
+                    }
+                }
+            }
+            double sum = 0;
+            int zeros = 0;
+            for (byte rank : union) {
+                sum += 1.0 / (1L << rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+            if (zeros == REGISTERS) {
+                return 0;
+            }
+            double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+            double estimate = alpha * REGISTERS * REGISTERS / sum;
+            if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+                // Small range: linear counting over the empty registers is far more accurate
+                estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        private synchronized boolean idleAt(long slot) {
+            return lastSlot <= slot - BUCKETS;
+        }
+    }
+}
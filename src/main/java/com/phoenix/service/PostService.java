@@ -15,135 +15,149 @@ import com.phoenix.entity.Series;
 import com.phoenix.entity.Tag;
 import com.phoenix.entity.User;
 import com.phoenix.entity.UserRole;
+import com.phoenix.event.PostEngagementChangedEvent;
+import com.phoenix.event.PostPublishedEvent;
+import com.phoenix.event.PostScheduleChangedEvent;
+import com.phoenix.event.PostVisibilityChangedEvent;
 import com.phoenix.exception.PostNotFoundException;
 import com.phoenix.exception.UnauthorizedException;
 import com.phoenix.repository.BookmarkRepository;
 import com.phoenix.repository.CommentRepository;
-import com.phoenix.repository.FollowRepository;
 import com.phoenix.repository.LikeRepository;
 import com.phoenix.repository.PaymentRepository;
+import com.phoenix.repository.PostQuery;
 import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.PostSearchRepository;
 import com.phoenix.repository.PostVersionRepository;
 import com.phoenix.repository.PostViewRepository;
 import com.phoenix.entity.PostView;
 import com.phoenix.repository.ReactionRepository;
 import com.phoenix.repository.SeriesRepository;
-import com.phoenix.repository.TagRepository;
 import com.phoenix.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PostService {
 
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
     private final LikeRepository likeRepository;
     private final ReactionRepository reactionRepository;
     private final BookmarkRepository bookmarkRepository;
     private final CommentRepository commentRepository;
     private final PaymentRepository paymentRepository;
     private final PostViewRepository postViewRepository;
-    private final TagRepository tagRepository;
-    private final FollowRepository followRepository;
+    private final FollowGraph followGraph;
     private final SeriesRepository seriesRepository;
     private final PostAiSummaryGenerator postAiSummaryGenerator;
     private final PostVersionRepository postVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final TagDictionary tagDictionary;
+    private final JobLockService jobLockService;
+    private final PostPresenceTracker postPresenceTracker;
 
+    /**
+     * Public post listing. Tag-only filters sorted by date are answered from the
+     * in-memory tag index, so only the rows of the page are loaded; everything else
+     * is compiled into one statement by the repository's query planner.
+     *
+     * @param author display name of the author to restrict to, or null
+     */
     @Transactional
-    public PagedResponse<PostResponse> getAllPosts(int page, int size, String sort, String tag) {
-        LocalDateTime now = utcNow();
-        Page<Post> postPage;
-        if (tag != null && !tag.trim().isEmpty()) {
-            String t = tag.trim().toLowerCase();
-            if (isMostLiked(sort)) {
-                postPage = postRepository.findByTagNameOrderByLikeCountDesc(t, now, ReactionType.LIKE, PageRequest.of(page, size));
-            } else {
-                postPage = postRepository.findVisibleByTag(t, now, buildPageable(page, size, sort));
-            }
-        } else if (isMostLiked(sort)) {
-            postPage = postRepository.findAllOrderByLikeCountDesc(now, ReactionType.LIKE, PageRequest.of(page, size));
-        } else {
-            postPage = postRepository.findVisible(now, buildPageable(page, size, sort));
-        }
-        return buildPagedResponse(postPage);
+    public PagedResponse<PostResponse> getAllPosts(PostQuery query, String author) {
+        PostQuery.PostQueryBuilder normalized = query.toBuilder()
+                .tags(normalizeTagNames(query.getTags()))
+                .excludedTags(normalizeTagNames(query.getExcludedTags()));
+        if (author != null && !author.isBlank()) {
+            normalized.authorIds(userDirectory.findId(author)
+                    .map(List::of)
+                    .orElse(List.of()));
+        }
+        return listPosts(normalized.build());
     }
 
-    @Transactional
-    public PagedResponse<PostResponse> searchPosts(String query, int page, int size, String sort, String tag) {
-        if (query == null || query.trim().isEmpty()) {
-            return getAllPosts(page, size, sort, tag);
+    private PagedResponse<PostResponse> listPosts(PostQuery query) {
+        if (query.getPage() < 0 || query.getSize() < 1) {
+            throw new IllegalArgumentException("Page index must not be negative and page size must be at least one");
         }
-
-        Pageable pageable = buildPageable(page, size, sort);
-        LocalDateTime now = utcNow();
-        Page<Post> postPage;
-
-        if (tag != null && !tag.trim().isEmpty()) {
-            String t = tag.trim().toLowerCase();
-            if (isMostLiked(sort)) {
-                postPage = postRepository.findByTitleContainingIgnoreCaseAndTagNameOrderByLikeCountDesc(
-                        query.trim(), t, now, ReactionType.LIKE, PageRequest.of(page, size));
-            } else {
-                postPage = postRepository.findVisibleByTitleAndTag(query.trim(), t, now, pageable);
-            }
-        } else if (isMostLiked(sort)) {
-            postPage = postRepository.findByTitleContainingIgnoreCaseOrderByLikeCountDesc(query.trim(), now, ReactionType.LIKE, PageRequest.of(page, size));
-        } else {
-            postPage = postRepository.findVisibleByTitle(query.trim(), now, pageable);
+        boolean tagFiltered = !query.getTags().isEmpty() || !query.getExcludedTags().isEmpty();
+        if (tagFiltered && !query.hasNonTagFilters() && !query.isKeyset()
+                && query.getSort() != PostQuery.Sort.MOST_LIKED) {
+            return listFromTagIndex(query);
         }
-
-        return buildPagedResponse(postPage);
+        return buildPagedResponse(query, postRepository.search(query, utcNow()));
     }
 
-    private @NonNull Pageable buildPageable(int page, int size, String sort) {
-        Sort sortSpec = Sort.by("createdAt").descending();
-        if (isOldest(sort)) {
-            sortSpec = Sort.by("createdAt").ascending();
-        }
-        return PageRequest.of(page, size, sortSpec);
-    }
-
-    private boolean isMostLiked(String sort) {
-        return "mostLiked".equalsIgnoreCase(sort);
+    private PagedResponse<PostResponse> listFromTagIndex(PostQuery query) {
+        TagBitmapIndex.Match match = tagBitmapIndex.query(query.getTags(), query.getTagMode(), query.getExcludedTags(),
+                query.getSort() == PostQuery.Sort.OLDEST, query.getPage() * query.getSize(), query.getSize());
+        Map<UUID, Post> byId = new HashMap<>();
+        postRepository.findAllById(match.postIds()).forEach(p -> byId.put(p.getId(), p));
+        List<Post> ordered = match.postIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        boolean hasNext = (long) (query.getPage() + 1) * query.getSize() < match.total();
+        return buildPagedResponse(query, new PostSearchRepository.Result(ordered, match.total(), hasNext, null));
     }
 
-    private boolean isOldest(String sort) {
-        return "oldest".equalsIgnoreCase(sort);
+    private List<String> normalizeTagNames(List<String> tagNames) {
+        if (tagNames == null) {
+            return List.of();
+        }
+        return tagNames.stream()
+                .filter(n -> n != null && !n.isBlank())
+                .map(n -> n.trim().toLowerCase())
+                .distinct()
+                .collect(Collectors.toList());
     }
 
-    private PagedResponse<PostResponse> buildPagedResponse(Page<Post> postPage) {
-        List<PostResponse> content = postPage.getContent().stream()
+    private PagedResponse<PostResponse> buildPagedResponse(PostQuery query, PostSearchRepository.Result result) {
+        List<PostResponse> content = result.posts().stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
 
+        long total = result.totalElements();
         return PagedResponse.<PostResponse>builder()
                 .content(content)
-                .pageNumber(postPage.getNumber())
-                .pageSize(postPage.getSize())
-                .totalElements(postPage.getTotalElements())
-                .totalPages(postPage.getTotalPages())
-                .first(postPage.isFirst())
-                .last(postPage.isLast())
+                .pageNumber(query.isKeyset() ? 0 : query.getPage())
+                .pageSize(query.getSize())
+                .totalElements(total)
+                .totalPages(total < 0 ? -1 : (int) ((total + query.getSize() - 1) / query.getSize()))
+                .first(query.isKeyset() ? query.getCursor().isEmpty() : query.getPage() == 0)
+                .last(!result.hasNext())
+                .nextCursor(result.nextCursor())
                 .build();
     }
 
@@ -155,16 +169,8 @@ public class PostService {
         publishIfDue(post);
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = null;
-        if (auth != null && auth.isAuthenticated() && !auth.getPrincipal().equals("anonymousUser")) {
-            currentUser = userRepository.findByEmail(auth.getName()).orElse(null);
-        }
-
-        boolean isAuthorOrAdmin = currentUser != null
-                && (post.getAuthor().getId().equals(currentUser.getId()) || currentUser.getRole() == UserRole.ROLE_ADMIN);
-        if (!isPubliclyVisible(post) && !isAuthorOrAdmin) {
-            throw new PostNotFoundException("Post not found with id: " + id);
-        }
+        User currentUser = currentUser(auth);
+        requireReadable(post, currentUser);
 
         // Count only unique views per authenticated user
         if (auth != null && auth.isAuthenticated() && !auth.getPrincipal().equals("anonymousUser")) {
@@ -177,6 +183,7 @@ public class PostService {
                 postViewRepository.save(Objects.requireNonNull(view));
                 post.setViewCount(post.getViewCount() + 1);
                 postRepository.save(post);
+                eventPublisher.publishEvent(PostEngagementChangedEvent.view(post.getId()));
             }
         }
 
@@ -207,12 +214,16 @@ public class PostService {
         applyPublishingState(post, request);
 
         if (request.getTags() != null && !request.getTags().isEmpty()) {
-            post.setTags(resolveOrCreateTags(request.getTags()));
+            post.setTags(new LinkedHashSet<>(resolveOrCreateTags(request.getTags())));
         }
 
         refreshAiSummary(post);
 
         Post savedPost = postRepository.save(Objects.requireNonNull(post));
+        publishListingChange(savedPost, ListingState.HIDDEN);
+        if (savedPost.getScheduledPublishAt() != null) {
+            publishScheduleChange(savedPost);
+        }
         return convertToResponse(savedPost);
     }
 
@@ -228,6 +239,7 @@ public class PostService {
         // Snapshot the persisted state before mutating the entity so the
         // previous-version record actually contains the old content.
         snapshotCurrentVersion(post);
+        ListingState listedBefore = listingOf(post);
 
         post.setTitle(request.getTitle());
         post.setContent(request.getContent());
@@ -238,10 +250,7 @@ public class PostService {
             post.setCoverImageUrl(request.getCoverImageUrl());
         }
 
-        post.getTags().clear();
-        if (request.getTags() != null && !request.getTags().isEmpty()) {
-            post.getTags().addAll(resolveOrCreateTags(request.getTags()));
-        }
+        replaceTags(post, request.getTags() == null ? List.of() : resolveOrCreateTags(request.getTags()));
 
         // Update series
         if (request.getSeriesId() != null) {
@@ -255,6 +264,8 @@ public class PostService {
         refreshAiSummary(post);
 
         Post updatedPost = postRepository.save(post);
+        publishListingChange(updatedPost, listedBefore);
+        publishScheduleChange(updatedPost);
         return convertToResponse(updatedPost);
     }
 
@@ -277,9 +288,9 @@ public class PostService {
         paymentRepository.deleteByPostId(id);
         postViewRepository.deleteByPostId(id);
         likeRepository.deleteByPostId(id);
-        commentRepository.deleteRepliesByPostId(id);
-        commentRepository.deleteByPostId(id);
+        commentRepository.deleteAllByPostId(id);
         postVersionRepository.deleteByPostId(id);
+        publishListingRemoved(post);
         postRepository.delete(post);
     }
 
@@ -295,9 +306,9 @@ public class PostService {
         paymentRepository.deleteByPostId(id);
         postViewRepository.deleteByPostId(id);
         likeRepository.deleteByPostId(id);
-        commentRepository.deleteRepliesByPostId(id);
-        commentRepository.deleteByPostId(id);
+        commentRepository.deleteAllByPostId(id);
         postVersionRepository.deleteByPostId(id);
+        publishListingRemoved(post);
         postRepository.delete(Objects.requireNonNull(post));
     }
 
@@ -309,56 +320,81 @@ public class PostService {
                 .collect(Collectors.toList());
     }
 
-    @Scheduled(cron = "0 * * * * *")
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillVisibleAt() {
+        int updated = postRepository.backfillVisibleAt();
+        if (updated > 0) {
+            log.info("Backfilled visible_at for {} published posts", updated);
+        }
+    }
+
+    /**
+     * Backstop for schedules the in-memory publish wheel never saw, such as rows
+     * written by another instance or by hand. Normally finds nothing. Instances
+     * take turns rather than sweeping the same rows at once; it is idempotent, so
+     * the lock is not held past the sweep.
+     */
     @Transactional
     public void publishScheduledPosts() {
-        LocalDateTime now = utcNow();
+        jobLockService.runExclusively("publish-scheduled-posts", Duration.ofMinutes(5), Duration.ZERO,
+                lease -> publishDuePosts(null));
+    }
 
-        // New behavior: future-scheduled posts stay DRAFT until due.
-        List<Post> dueScheduledDrafts = postRepository.findByStatusAndScheduledPublishAtLessThanEqual(PostStatus.DRAFT, now);
-        for (Post post : dueScheduledDrafts) {
-            post.setStatus(PostStatus.PUBLISHED);
-            post.setScheduledPublishAt(null);
+    /**
+     * Publishes every due scheduled post, or only the due ones among {@code ids},
+     * with one bulk UPDATE. Due rows are locked first, so when instances race only
+     * one of them flips and announces a given post.
+     *
+     * @return number of posts published
+     */
+    @Transactional
+    public int publishDuePosts(@Nullable Collection<UUID> ids) {
+        LocalDateTime now = utcNow();
+        List<Object[]> due;
+        if (ids == null) {
+            due = postRepository.lockDueSchedules(now);
+        } else {
+            due = ids.isEmpty() ? List.of() : postRepository.lockDueSchedulesIn(ids, now);
         }
-
-        // Backward compatibility for older records created as PUBLISHED+future.
-        List<Post> dueLegacyPublished = postRepository.findByStatusAndScheduledPublishAtLessThanEqual(PostStatus.PUBLISHED, now);
-        for (Post post : dueLegacyPublished) {
-            post.setScheduledPublishAt(null);
+        if (due.isEmpty()) {
+            return 0;
         }
 
-        if (!dueScheduledDrafts.isEmpty()) {
-            postRepository.saveAll(dueScheduledDrafts);
+        List<UUID> dueIds = due.stream().map(row -> (UUID) row[0]).collect(Collectors.toList());
+        postRepository.publishScheduled(dueIds, now);
+
+        Map<UUID, List<String>> tagsByPost = new HashMap<>();
+        for (Object[] row : postRepository.findTagPairsByPostIdIn(dueIds)) {
+            tagsByPost.computeIfAbsent((UUID) row[0], k -> new ArrayList<>()).add((String) row[1]);
         }
-        if (!dueLegacyPublished.isEmpty()) {
-            postRepository.saveAll(dueLegacyPublished);
+        for (Object[] row : due) {
+            UUID postId = (UUID) row[0];
+            eventPublisher.publishEvent(new PostVisibilityChangedEvent(postId, (LocalDateTime) row[1],
+                    false, List.of(), true, tagsByPost.getOrDefault(postId, List.of())));
+            eventPublisher.publishEvent(new PostPublishedEvent(postId, (UUID) row[2], (LocalDateTime) row[3]));
         }
+        return dueIds.size();
     }
 
     @Transactional
     public PagedResponse<PostResponse> getTrendingPosts(int page, int size) {
-        Page<Post> postPage = postRepository.findAllOrderByLikeCountDesc(utcNow(), ReactionType.LIKE, PageRequest.of(page, size));
-        return buildPagedResponse(postPage);
+        return listPosts(PostQuery.builder()
+                .sort(PostQuery.Sort.MOST_LIKED)
+                .page(page)
+                .size(size)
+                .build());
     }
 
     @Transactional
     public PagedResponse<PostResponse> getFollowingFeed(int page, int size, String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        List<UUID> followingIds = followRepository.findFollowingIdsByFollowerId(user.getId());
-        if (followingIds.isEmpty()) {
-            return PagedResponse.<PostResponse>builder()
-                    .content(List.of())
-                    .pageNumber(page)
-                    .pageSize(size)
-                    .totalElements(0)
-                    .totalPages(0)
-                    .first(true)
-                    .last(true)
-                    .build();
-        }
-        Page<Post> postPage = postRepository.findByAuthorIdIn(followingIds, utcNow(), PageRequest.of(page, size));
-        return buildPagedResponse(postPage);
+        return listPosts(PostQuery.builder()
+                .authorIds(followGraph.following(user.getId()))
+                .page(page)
+                .size(size)
+                .build());
     }
 
     @Transactional
@@ -450,8 +486,9 @@ public class PostService {
             postRepository.save(post);
         }
 
+        // Sorted here too, so a post that was just written reads the same as one loaded under @OrderBy
         List<String> tagNames = (post.getTags() != null)
-                ? post.getTags().stream().map(Tag::getName).collect(Collectors.toList())
+                ? post.getTags().stream().map(Tag::getName).sorted().collect(Collectors.toList())
                 : new ArrayList<>();
 
         // Series fields
@@ -478,6 +515,7 @@ public class PostService {
                 .title(post.getTitle())
                 .content(content)
                 .authorName(post.getAuthor().getName())
+                .authorHandle(post.getAuthor().getHandle())
                 .authorEmail(post.getAuthor().getEmail())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
@@ -493,6 +531,7 @@ public class PostService {
                 .paidByCurrentUser(paidByCurrentUser)
                 .author(isAuthor)
                 .viewCount(post.getViewCount())
+                .readingNow(postPresenceTracker.readingNow(post.getId()))
                 .readingTimeMinutes(readingTimeMinutes)
                 .tags(tagNames)
                 .status(responseStatus)
@@ -560,12 +599,14 @@ public class PostService {
         post.setCoverImageUrl(oldCoverImage);
         post.setPremium(oldIsPremium);
         post.setPrice(oldPrice);
-        post.getTags().clear();
-        if (oldTagsCsv != null && !oldTagsCsv.isBlank()) {
-            post.getTags().addAll(resolveOrCreateTags(List.of(oldTagsCsv.split(","))));
-        }
+        ListingState listedBefore = listingOf(post);
+        replaceTags(post, oldTagsCsv == null || oldTagsCsv.isBlank()
+                ? List.of()
+                : resolveOrCreateTags(List.of(oldTagsCsv.split(","))));
         refreshAiSummary(post);
-        return convertToResponse(postRepository.save(post));
+        Post restored = postRepository.save(post);
+        publishListingChange(restored, listedBefore);
+        return convertToResponse(restored);
     }
 
     private void snapshotCurrentVersion(Post post) {
@@ -613,6 +654,7 @@ public class PostService {
         if (request.isSaveAsDraft()) {
             post.setStatus(PostStatus.DRAFT);
             post.setScheduledPublishAt(null);
+            post.setVisibleAt(null);
             return;
         }
 
@@ -622,11 +664,16 @@ public class PostService {
             }
             post.setStatus(PostStatus.DRAFT);
             post.setScheduledPublishAt(scheduleAt);
+            post.setVisibleAt(null);
             return;
         }
 
         post.setStatus(PostStatus.PUBLISHED);
         post.setScheduledPublishAt(null);
+        // Editing an already visible post keeps its original visibility time.
+        if (post.getVisibleAt() == null) {
+            post.setVisibleAt(now);
+        }
     }
 
     private void publishIfDue(Post post) {
@@ -635,25 +682,98 @@ public class PostService {
             // New behavior: scheduled drafts become published at due time.
             if (post.getStatus() == PostStatus.DRAFT) {
                 post.setStatus(PostStatus.PUBLISHED);
+                post.setVisibleAt(post.getScheduledPublishAt());
                 post.setScheduledPublishAt(null);
                 postRepository.save(post);
+                publishListingChange(post, ListingState.HIDDEN);
+                publishScheduleChange(post);
                 return;
             }
 
             // Backward compatibility for older records.
             if (post.getStatus() == PostStatus.PUBLISHED) {
+                post.setVisibleAt(post.getScheduledPublishAt());
                 post.setScheduledPublishAt(null);
                 postRepository.save(post);
+                publishListingChange(post, ListingState.HIDDEN);
+                publishScheduleChange(post);
             }
         }
     }
 
-    private boolean isPubliclyVisible(Post post) {
-        LocalDateTime now = utcNow();
-        if (post.getStatus() != PostStatus.PUBLISHED) {
-            return false;
+    /** How a post is currently listed publicly: whether it is visible and under which tags. */
+    private record ListingState(boolean visible, List<String> tags) {
+        static final ListingState HIDDEN = new ListingState(false, List.of());
+    }
+
+    /**
+     * Legacy PUBLISHED rows with a pending schedule count as hidden until the
+     * scheduler clears them, so the answer depends only on persisted state and
+     * matches the startup queries of the in-memory listing models.
+     */
+    private ListingState listingOf(Post post) {
+        if (post.getStatus() != PostStatus.PUBLISHED || post.getScheduledPublishAt() != null) {
+            return ListingState.HIDDEN;
         }
-        return post.getScheduledPublishAt() == null || !post.getScheduledPublishAt().isAfter(now);
+        List<String> tagNames = post.getTags() == null
+                ? List.of()
+                : post.getTags().stream().map(Tag::getName).collect(Collectors.toList());
+        return new ListingState(true, tagNames);
+    }
+
+    private void publishListingChange(Post post, ListingState before) {
+        ListingState after = listingOf(post);
+        eventPublisher.publishEvent(new PostVisibilityChangedEvent(
+                post.getId(), post.getCreatedAt(), before.visible(), before.tags(), after.visible(), after.tags()));
+        if (!before.visible() && after.visible()) {
+            eventPublisher.publishEvent(new PostPublishedEvent(post.getId(), post.getAuthor().getId(), post.getVisibleAt()));
+        }
+    }
+
+    private void publishScheduleChange(Post post) {
+        eventPublisher.publishEvent(new PostScheduleChangedEvent(post.getId(), post.getScheduledPublishAt()));
+    }
+
+    /** Announces that a post is about to be deleted. Also used by AdminService. */
+    void publishListingRemoved(Post post) {
+        ListingState before = listingOf(post);
+        eventPublisher.publishEvent(new PostVisibilityChangedEvent(
+                post.getId(), post.getCreatedAt(), before.visible(), before.tags(), false, List.of()));
+        if (post.getScheduledPublishAt() != null) {
+            eventPublisher.publishEvent(new PostScheduleChangedEvent(post.getId(), null));
+        }
+    }
+
+    /**
+     * Throws {@link PostNotFoundException} unless the caller may read the post, on the
+     * same terms as {@link #getPostById}: anyone once it is public, otherwise only its
+     * author or an admin. For endpoints that expose a post without returning it.
+     */
+    @Transactional
+    public void checkReadable(@NonNull UUID id) {
+        Post post = postRepository.findById(Objects.requireNonNull(id))
+                .orElseThrow(() -> new PostNotFoundException("Post not found with id: " + id));
+        publishIfDue(post);
+        requireReadable(post, currentUser(SecurityContextHolder.getContext().getAuthentication()));
+    }
+
+    private User currentUser(Authentication auth) {
+        if (auth != null && auth.isAuthenticated() && !auth.getPrincipal().equals("anonymousUser")) {
+            return userRepository.findByEmail(auth.getName()).orElse(null);
+        }
+        return null;
+    }
+
+    private void requireReadable(Post post, User currentUser) {
+        boolean isAuthorOrAdmin = currentUser != null
+                && (post.getAuthor().getId().equals(currentUser.getId()) || currentUser.getRole() == UserRole.ROLE_ADMIN);
+        if (!isPubliclyVisible(post) && !isAuthorOrAdmin) {
+            throw new PostNotFoundException("Post not found with id: " + post.getId());
+        }
+    }
+
+    private boolean isPubliclyVisible(Post post) {
+        return post.getVisibleAt() != null && !post.getVisibleAt().isAfter(utcNow());
     }
 
     private LocalDateTime utcNow() {
@@ -695,16 +815,27 @@ public class PostService {
      * Find or create Tag entities for the given list of tag name strings.
      * Names are lowercased, trimmed, deduplicated, and capped at 5.
      */
-    @SuppressWarnings("null")
     private List<Tag> resolveOrCreateTags(List<String> tagNames) {
-        return tagNames.stream()
+        List<String> names = tagNames.stream()
                 .filter(n -> n != null && !n.isBlank())
                 .map(n -> n.trim().toLowerCase())
                 .distinct()
                 .limit(5)
-                .map(name -> tagRepository.findByName(name)
-                        .orElseGet(() -> Objects.requireNonNull(
-                                tagRepository.save(Tag.builder().name(name).build()))))
                 .collect(Collectors.toList());
+        return names.isEmpty() ? List.of() : tagDictionary.resolve(names);
+    }
+
+    /**
+     * Brings the post's tags in line with {@code desired} by removing and adding only
+     * the difference, so unchanged post_tags rows are left alone.
+     */
+    private void replaceTags(Post post, List<Tag> desired) {
+        Set<Tag> target = new HashSet<>(desired);
+        post.getTags().retainAll(target);
+        for (Tag tag : desired) {
+            if (!post.getTags().contains(tag)) {
+                post.getTags().add(tag);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -6,11 +6,13 @@ import com.phoenix.entity.ReactionType;
 import com.phoenix.entity.NotificationType;
 import com.phoenix.entity.Post;
 import com.phoenix.entity.User;
+import com.phoenix.event.PostEngagementChangedEvent;
 import com.phoenix.exception.PostNotFoundException;
 import com.phoenix.repository.ReactionRepository;
 import com.phoenix.repository.PostRepository;
 import com.phoenix.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +27,7 @@ public class ReactionService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public synchronized ReactionResponse toggleReaction(UUID postId, ReactionType reactionType, String userEmail) {
@@ -42,12 +45,15 @@ public class ReactionService {
                 // Same reaction - remove ALL reactions for this user-post combination (cleanup)
                 reactionRepository.deleteAllByPostIdAndUserId(postId, user.getId());
                 reactionRepository.flush(); // Force immediate database sync
+                eventPublisher.publishEvent(PostEngagementChangedEvent.reaction(postId, reactionType, null));
                 return getReactionStatus(postId, userEmail);
             } else {
                 // Different reaction - update it
+                ReactionType previous = reaction.getType();
                 reaction.setType(reactionType);
                 reactionRepository.save(reaction);
                 reactionRepository.flush(); // Force immediate database sync
+                eventPublisher.publishEvent(PostEngagementChangedEvent.reaction(postId, previous, reactionType));
                 createReactionNotification(post, user, reactionType);
                 return getReactionStatus(postId, userEmail);
             }
@@ -65,6 +71,7 @@ public class ReactionService {
                     .build();
             reactionRepository.save(Objects.requireNonNull(reaction));
             reactionRepository.flush(); // Force immediate database sync
+            eventPublisher.publishEvent(PostEngagementChangedEvent.reaction(postId, null, reactionType));
             createReactionNotification(post, user, reactionType);
             return getReactionStatus(postId, userEmail);
         }
@@ -118,10 +125,9 @@ public class ReactionService {
         String message = user.getName() + " reacted " + reactionEmoji + " to your post \"" + post.getTitle() + "\"";
 
         notificationService.createNotification(
-                post.getAuthor(),
+                post.getAuthor().getId(),
                 NotificationType.LIKE, // Reusing LIKE notification type for all reactions
-                user.getName(),
-                user.getEmail(),
+                user,
                 message,
                 post.getId(),
                 post.getTitle()
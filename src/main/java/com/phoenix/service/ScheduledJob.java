@@ -0,0 +1,35 @@
+package com.phoenix.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Background jobs run through {@link JobRunner}. Each gets its own executor:
+ * I/O-bound jobs (database, SMTP) run on virtual threads, CPU-bound ones on a
+ * bounded platform pool, so a slow job never holds up another.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ScheduledJob {
+
+    PUBLISH_SCHEDULED_POSTS("publish-scheduled-posts", Kind.IO, Duration.ofMinutes(5)),
+    WEEKLY_DIGEST("weekly-digest", Kind.IO, Duration.ofHours(6)),
+    EMAIL_OUTBOX("email-outbox", Kind.IO, Duration.ofHours(1)),
+    NOTIFICATION_RETENTION("notification-retention", Kind.IO, Duration.ofHours(2)),
+    TAG_USAGE_RECONCILE("tag-usage-reconcile", Kind.CPU, Duration.ofMinutes(5)),
+    TAG_INDEX_REBUILD("tag-index-rebuild", Kind.CPU, Duration.ofMinutes(5)),
+    FOLLOW_GRAPH_REBUILD("follow-graph-rebuild", Kind.CPU, Duration.ofMinutes(5)),
+    FOLLOW_SUGGESTIONS("follow-suggestions", Kind.CPU, Duration.ofHours(1)),
+    PRESENCE_SWEEP("presence-sweep", Kind.CPU, Duration.ofMinutes(1));
+
+    public enum Kind {
+        IO, CPU
+    }
+
+    private final String jobName;
+    private final Kind kind;
+    /** Runs longer than this are interrupted. */
+    private final Duration timeout;
+}
@@ -0,0 +1,77 @@
+package com.phoenix.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedule for every background job. The scheduler thread only triggers; each run
+ * is handed to {@link JobRunner}, which executes it on the job's own executor, so
+ * a digest blocked on SMTP cannot delay the publish sweep. Because the trigger
+ * returns straight away, fixed delays are measured between triggers, and a
+ * trigger that finds the previous run still going is skipped.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduledJobs {
+
+    private final JobRunner jobRunner;
+    private final PostService postService;
+    private final EmailDigestService emailDigestService;
+    private final EmailOutboxSender emailOutboxSender;
+    private final NotificationRetentionService notificationRetentionService;
+    private final TagUsageCache tagUsageCache;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final FollowGraph followGraph;
+    private final FollowSuggestionService followSuggestionService;
+    private final PostPresenceTracker postPresenceTracker;
+
+    @Scheduled(fixedDelayString = "${app.posts.publish-sweep-ms:60000}")
+    public void publishScheduledPosts() {
+        jobRunner.submit(ScheduledJob.PUBLISH_SCHEDULED_POSTS, postService::publishScheduledPosts);
+    }
+
+    /** Cron: second, minute, hour, day of month, month, day of week; 9 AM every Monday. */
+    @Scheduled(cron = "0 0 9 * * MON")
+    public void sendWeeklyDigest() {
+        jobRunner.submit(ScheduledJob.WEEKLY_DIGEST, emailDigestService::sendWeeklyDigest);
+    }
+
+    /** Picks up retries; new mail is also sent straight after the commit that queues it. */
+    @Scheduled(fixedDelayString = "${app.email.outbox-poll-ms:30000}", initialDelayString = "${app.email.outbox-poll-ms:30000}")
+    public void drainEmailOutbox() {
+        jobRunner.submit(ScheduledJob.EMAIL_OUTBOX, emailOutboxSender::drain);
+    }
+
+    /** Nightly at 3:30 AM, when few users are reading notifications. */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void archiveNotifications() {
+        jobRunner.submit(ScheduledJob.NOTIFICATION_RETENTION, notificationRetentionService::archive);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tags.usage-reconcile-ms:600000}", initialDelayString = "${app.tags.usage-reconcile-ms:600000}")
+    public void reconcileTagUsage() {
+        jobRunner.submit(ScheduledJob.TAG_USAGE_RECONCILE, tagUsageCache::reconcile);
+    }
+
+    @Scheduled(fixedDelayString = "${app.posts.tag-index-rebuild-ms:600000}", initialDelayString = "${app.posts.tag-index-rebuild-ms:600000}")
+    public void rebuildTagIndex() {
+        jobRunner.submit(ScheduledJob.TAG_INDEX_REBUILD, tagBitmapIndex::rebuild);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.follow-graph-rebuild-ms:600000}", initialDelayString = "${app.users.follow-graph-rebuild-ms:600000}")
+    public void rebuildFollowGraph() {
+        jobRunner.submit(ScheduledJob.FOLLOW_GRAPH_REBUILD, followGraph::rebuild);
+    }
+
+    /** Nightly at 4 AM, after notification retention. */
+    @Scheduled(cron = "0 0 4 * * *")
+    public void recomputeFollowSuggestions() {
+        jobRunner.submit(ScheduledJob.FOLLOW_SUGGESTIONS, followSuggestionService::recompute);
+    }
+
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void sweepPresence() {
+        jobRunner.submit(ScheduledJob.PRESENCE_SWEEP, postPresenceTracker::sweep);
+    }
+}
@@ -0,0 +1,129 @@
+package com.phoenix.service;
+
+import com.phoenix.event.PostScheduleChangedEvent;
+import com.phoenix.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes scheduled posts at their exact second.
+ * <p>
+ * Pending due times are held in one-second slots keyed by epoch second; a
+ * dedicated thread ticks on every second boundary, drains the slots that have come
+ * due and hands their ids to {@link PostService#publishDuePosts}, which flips them
+ * with a single bulk UPDATE. Slots are filled from the database at startup and
+ * kept current from {@link PostScheduleChangedEvent}s after commit. All pending
+ * schedules are held (one map entry per scheduled post); the minute sweep in
+ * PostService covers anything this instance did not hear about.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledPublishWheel {
+
+    private final PostRepository postRepository;
+    private final PostService postService;
+
+    private final TreeMap<Long, Set<UUID>> slots = new TreeMap<>();
+    private final Map<UUID, Long> slotOf = new HashMap<>();
+    private ScheduledExecutorService ticker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Object[] row : postRepository.findPendingSchedules()) {
+            schedule((UUID) row[0], (LocalDateTime) row[1]);
+        }
+        log.info("Publish wheel loaded with {} pending schedules", pendingCount());
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "post-publish-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long untilNextSecond = 1000 - System.currentTimeMillis() % 1000;
+        ticker.scheduleAtFixedRate(this::tick, untilNextSecond, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(PostScheduleChangedEvent event) {
+        if (event.scheduledPublishAt() == null) {
+            cancel(event.postId());
+        } else {
+            schedule(event.postId(), event.scheduledPublishAt());
+        }
+    }
+
+    synchronized void schedule(UUID postId, LocalDateTime dueAt) {
+        cancel(postId);
+        // Round up so the slot never fires before the stored due time.
+        long second = dueAt.toEpochSecond(ZoneOffset.UTC) + (dueAt.getNano() > 0 ? 1 : 0);
+        slots.computeIfAbsent(second, k -> new HashSet<>()).add(postId);
+        slotOf.put(postId, second);
+    }
+
+    synchronized void cancel(UUID postId) {
+        Long second = slotOf.remove(postId);
+        if (second != null) {
+            Set<UUID> slot = slots.get(second);
+            slot.remove(postId);
+            if (slot.isEmpty()) {
+                slots.remove(second);
+            }
+        }
+    }
+
+    synchronized int pendingCount() {
+        return slotOf.size();
+    }
+
+    private synchronized List<UUID> drainDue(long nowSecond) {
+        List<UUID> due = new ArrayList<>();
+        while (!slots.isEmpty() && slots.firstKey() <= nowSecond) {
+            for (UUID postId : slots.pollFirstEntry().getValue()) {
+                slotOf.remove(postId);
+                due.add(postId);
+            }
+        }
+        return due;
+    }
+
+    private void tick() {
+        List<UUID> due = drainDue(LocalDateTime.now(ZoneOffset.UTC).toEpochSecond(ZoneOffset.UTC));
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            int published = postService.publishDuePosts(due);
+            log.debug("Publish wheel published {} of {} due posts", published, due.size());
+        } catch (RuntimeException e) {
+            // Left for the sweep rather than retried every second.
+            log.warn("Publishing {} due posts failed: {}", due.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.TagUsageResponse;
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.PostQuery.TagMode;
+import com.phoenix.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from tag to the publicly visible posts carrying it.
+ * <p>
+ * Every visible post gets a dense int id; each tag maps to a compressed (Roaring)
+ * bitmap of those ids, so AND / OR / NOT over several tags is a handful of word-wise
+ * bitmap operations. Ids are handed out in createdAt order, so a bitmap iterates in
+ * display order and a page is read by rank ({@code select}) without touching the
+ * other matches; the caller only loads the rows of that page from the database.
+ * The exceptions are posts that became visible after a newer one (a scheduled post
+ * going live, a draft published late): they are kept in a small out-of-order set
+ * until the next rebuild renumbers them, and are merged into the page by rank.
+ * <p>
+ * Maintained from {@link PostVisibilityChangedEvent}s after commit and rebuilt
+ * periodically, which also compacts ids freed by deleted posts. Events that arrive
+ * during a rebuild are replayed onto the new state before it is swapped in.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TagBitmapIndex {
+
+    /** Low bits of a sort key hold the dense id, high bits the createdAt epoch second. */
+    private static final int ID_BITS = 29;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    /** One page of matching post ids in display order, plus the total match count. */
+    public record Match(List<UUID> postIds, long total) {
+    }
+
+    private final PostRepository postRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private List<PostVisibilityChangedEvent> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        try {
+            Map<UUID, List<String>> tagsByPost = new HashMap<>();
+            for (Object[] row : postRepository.findListedPostTagPairs()) {
+                tagsByPost.computeIfAbsent((UUID) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+            // Sorted by createdAt so dense ids follow creation order.
+            for (Object[] row : postRepository.findListedPostKeys()) {
+                UUID postId = (UUID) row[0];
+                fresh.upsert(postId, (LocalDateTime) row[1], tagsByPost.getOrDefault(postId, List.of()));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (PostVisibilityChangedEvent event : pendingDuringRebuild) {
+                fresh.apply(event);
+            }
+            pendingDuringRebuild = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Tag index rebuilt: {} posts, {} tags", fresh.visible.getCardinality(), fresh.tagNames.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisibilityChanged(PostVisibilityChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            state.apply(event);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visible posts carrying all (or any) of {@code tags} and none of {@code excluded},
+     * newest first unless {@code oldestFirst}. An empty {@code tags} matches every
+     * visible post.
+     */
+    public Match query(Collection<String> tags, TagMode mode, Collection<String> excluded,
+                       boolean oldestFirst, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = state.match(tags, mode, excluded);
+            int total = matches.getCardinality();
+            if (offset >= total || limit <= 0) {
+                return new Match(List.of(), total);
+            }
+
+            // Out-of-order posts are sorted on their own and slotted in by rank; the rest are in id order.
+            RoaringBitmap strays = RoaringBitmap.and(matches, state.outOfOrder);
+            long[] strayKeys = new long[strays.getCardinality()];
+            int[] strayRanks = new int[strayKeys.length];
+            if (strayKeys.length > 0) {
+                matches.andNot(strays);
+                int i = 0;
+                for (int denseId : strays) {
+                    strayKeys[i++] = state.key(denseId);
+                }
+                Arrays.sort(strayKeys);
+                for (int j = 0; j < strayKeys.length; j++) {
+                    strayRanks[j] = state.rankBelow(matches, strayKeys[j]);
+                }
+            }
+
+            int end = Math.min(total, offset + limit);
+            int from = oldestFirst ? offset : total - end;
+            int to = oldestFirst ? end : total - offset;
+            List<UUID> page = new ArrayList<>(end - offset);
+            int j = 0;
+            while (j < strayKeys.length && strayRanks[j] + j < from) {
+                j++;
+            }
+            for (int pos = from; pos < to; pos++) {
+                int denseId;
+                if (j < strayKeys.length && strayRanks[j] + j == pos) {
+                    denseId = (int) (strayKeys[j++] & ID_MASK);
+                } else {
+                    denseId = matches.select(pos - j);
+                }
+                page.add(state.postIds[denseId]);
+            }
+            if (!oldestFirst) {
+                Collections.reverse(page);
+            }
+            return new Match(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tags that co-occur most often with all of {@code tags}, counted over visible
+     * posts, excluding the input tags themselves.
+     */
+    public List<TagUsageResponse> relatedTags(Collection<String> tags, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap base = state.match(tags, TagMode.ALL, List.of());
+            List<TagUsageResponse> related = new ArrayList<>();
+            if (base.isEmpty()) {
+                return related;
+            }
+            for (int ordinal = 0; ordinal < state.tagNames.size(); ordinal++) {
+                String name = state.tagNames.get(ordinal);
+                if (tags.contains(name)) {
+                    continue;
+                }
+                long together = RoaringBitmap.andCardinality(base, state.postsByTag.get(ordinal));
+                if (together > 0) {
+                    related.add(new TagUsageResponse(name, together));
+                }
+            }
+            related.sort((a, b) -> a.getCount() != b.getCount()
+                    ? Long.compare(b.getCount(), a.getCount())
+                    : a.getName().compareTo(b.getName()));
+            return related.size() > limit ? new ArrayList<>(related.subList(0, limit)) : related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Mutable index state; all access is guarded by the enclosing lock. */
+    private static final class State {
+        private final Map<UUID, Integer> denseIds = new HashMap<>();
+        private UUID[] postIds = new UUID[1024];
+        private long[] createdAt = new long[1024];
+        private int[][] tagsOf = new int[1024][];
+        private int nextId;
+        private long newestCreatedAt = Long.MIN_VALUE;
+
+        private final RoaringBitmap visible = new RoaringBitmap();
+        /** Ids whose createdAt is older than that of an earlier id; renumbered by the next rebuild. */
+        private final RoaringBitmap outOfOrder = new RoaringBitmap();
+        private final Map<String, Integer> tagOrdinals = new HashMap<>();
+        private final List<String> tagNames = new ArrayList<>();
+        private final List<RoaringBitmap> postsByTag = new ArrayList<>();
+
+        void apply(PostVisibilityChangedEvent event) {
+            if (event.visibleAfter()) {
+                upsert(event.postId(), event.createdAt(), event.tagsAfter());
+            } else {
+                remove(event.postId());
+            }
+        }
+
+        void upsert(UUID postId, LocalDateTime created, List<String> tags) {
+            Integer existing = denseIds.get(postId);
+            int denseId;
+            if (existing != null) {
+                denseId = existing;
+                unlinkTags(denseId);
+            } else {
+                denseId = nextId++;
+                ensureCapacity(denseId);
+                denseIds.put(postId, denseId);
+                postIds[denseId] = postId;
+                createdAt[denseId] = created == null ? 0 : created.toEpochSecond(ZoneOffset.UTC);
+                if (createdAt[denseId] < newestCreatedAt) {
+                    outOfOrder.add(denseId);
+                } else {
+                    newestCreatedAt = createdAt[denseId];
+                }
+            }
+
+            int[] ordinals = new int[tags.size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = ordinalOf(tags.get(i));
+                postsByTag.get(ordinals[i]).add(denseId);
+            }
+            tagsOf[denseId] = ordinals;
+            visible.add(denseId);
+        }
+
+        void remove(UUID postId) {
+            Integer denseId = denseIds.remove(postId);
+            if (denseId == null) {
+                return;
+            }
+            unlinkTags(denseId);
+            visible.remove(denseId);
+            outOfOrder.remove(denseId);
+            postIds[denseId] = null;
+        }
+
+        /** Sort key: the createdAt epoch second in the high bits, the dense id in the low ones. */
+        long key(int denseId) {
+            return (createdAt[denseId] << ID_BITS) | denseId;
+        }
+
+        /** How many of {@code inOrder}, whose id order is key order, sort before {@code key}. */
+        int rankBelow(RoaringBitmap inOrder, long key) {
+            int low = 0;
+            int high = inOrder.getCardinality();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key(inOrder.select(mid)) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        RoaringBitmap match(Collection<String> tags, TagMode mode, Collection<String> excluded) {
+            RoaringBitmap result;
+            if (tags.isEmpty()) {
+                result = visible.clone();
+            } else if (mode == TagMode.ANY) {
+                result = new RoaringBitmap();
+                for (String tag : tags) {
+                    Integer ordinal = tagOrdinals.get(tag);
+                    if (ordinal != null) {
+                        result.or(postsByTag.get(ordinal));
+                    }
+                }
+            } else {
+                result = null;
+                for (String tag : tags) {
+                    Integer ordinal = tagOrdinals.get(tag);
+                    if (ordinal == null) {
+                        return new RoaringBitmap();
+                    }
+                    RoaringBitmap posts = postsByTag.get(ordinal);
+                    result = result == null ? posts.clone() : RoaringBitmap.and(result, posts);
+                }
+            }
+            for (String tag : excluded) {
+                Integer ordinal = tagOrdinals.get(tag);
+                if (ordinal != null) {
+                    result.andNot(postsByTag.get(ordinal));
+                }
+            }
+            return result;
+        }
+
+        private void unlinkTags(int denseId) {
+            int[] ordinals = tagsOf[denseId];
+            if (ordinals != null) {
+                for (int ordinal : ordinals) {
+                    postsByTag.get(ordinal).remove(denseId);
+                }
+                tagsOf[denseId] = null;
+            }
+        }
+
+        private int ordinalOf(String tag) {
+            Integer ordinal = tagOrdinals.get(tag);
+            if (ordinal == null) {
+                ordinal = tagNames.size();
+                tagOrdinals.put(tag, ordinal);
+                tagNames.add(tag);
+                postsByTag.add(new RoaringBitmap());
+            }
+            return ordinal;
+        }
+
+        private void ensureCapacity(int denseId) {
+            if (denseId > ID_MASK) {
+                throw new IllegalStateException("Tag index is full; it will compact on the next rebuild");
+            }
+            if (denseId >= postIds.length) {
+                int size = Math.max(denseId + 1, postIds.length * 2);
+                postIds = Arrays.copyOf(postIds, size);
+                createdAt = Arrays.copyOf(createdAt, size);
+                tagsOf = Arrays.copyOf(tagsOf, size);
+            }
+        }
+    }
+}
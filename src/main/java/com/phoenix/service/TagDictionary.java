@@ -0,0 +1,113 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.Tag;
+import com.phoenix.repository.TagRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name → id dictionary for tags.
+ * <p>
+ * Known names resolve to entity references without touching the database. Unknown
+ * names are created with one multi-row {@code INSERT ... ON CONFLICT DO NOTHING}
+ * followed by one select, so two posts introducing the same new tag concurrently
+ * both end up with the single row instead of one of them failing on the unique
+ * constraint. Entries are only cached once the creating transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagDictionary {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final TagRepository tagRepository;
+    private final EntityManager entityManager;
+
+    private final Map<String, UUID> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves already-normalized, distinct tag names to managed tags, creating any
+     * that do not exist yet. The result preserves the order of {@code names}.
+     * Must be called inside a transaction.
+     */
+    public List<Tag> resolve(List<String> names) {
+        Map<String, Tag> resolved = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            UUID id = idsByName.get(name);
+            if (id != null) {
+                resolved.put(name, entityManager.getReference(Tag.class, id));
+            } else {
+                unknown.add(name);
+            }
+        }
+
+        if (!unknown.isEmpty()) {
+            insertMissing(unknown);
+            Map<String, UUID> learned = new HashMap<>();
+            for (Tag tag : tagRepository.findByNameIn(unknown)) {
+                resolved.put(tag.getName(), tag);
+                learned.put(tag.getName(), tag.getId());
+            }
+            remember(learned);
+        }
+
+        List<Tag> tags = new ArrayList<>(names.size());
+        for (String name : names) {
+            Tag tag = resolved.get(name);
+            if (tag == null) {
+                throw new IllegalStateException("Tag could not be resolved: " + name);
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private void insertMissing(List<String> names) {
+        StringBuilder sql = new StringBuilder("insert into tags (id, name) values ");
+        for (int i = 0; i < names.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?)");
+        }
+        sql.append(" on conflict do nothing");
+
+        Query insert = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (String name : names) {
+            insert.setParameter(position++, UUID.randomUUID());
+            insert.setParameter(position++, name);
+        }
+        insert.executeUpdate();
+    }
+
+    private void remember(Map<String, UUID> learned) {
+        if (learned.isEmpty()) {
+            return;
+        }
+        Runnable put = () -> {
+            if (idsByName.size() + learned.size() <= MAX_ENTRIES) {
+                idsByName.putAll(learned);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put.run();
+                }
+            });
+        } else {
+            put.run();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.TagUsageResponse;
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.TagRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory tag cloud: usage count per tag over publicly visible posts.
+ * <p>
+ * Loaded once at startup, then kept current from {@link PostVisibilityChangedEvent}s,
+ * which are applied only after the publishing transaction commits. A periodic
+ * reconcile reloads the counts from the database to absorb writes made by other
+ * instances; changes applied while it reads are replayed onto the reloaded counts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TagUsageCache {
+
+    private static final Comparator<TagUsageResponse> BY_USAGE =
+            Comparator.comparingLong(TagUsageResponse::getCount).reversed()
+                    .thenComparing(TagUsageResponse::getName);
+
+    private final TagRepository tagRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Map<String, Long> counts = new ConcurrentHashMap<>();
+    private List<Map<String, Long>> pendingDuringReload;
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile List<TagUsageResponse> sorted = List.of();
+    private volatile long sortedVersion = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        log.info("Tag usage cache loaded with {} tags", counts.size());
+    }
+
+    public void reconcile() {
+        reload();
+    }
+
+    /** Tags ordered by usage desc then name asc, truncated to {@code limit} when positive. */
+    public List<TagUsageResponse> getTopTags(Integer limit) {
+        List<TagUsageResponse> all = snapshot();
+        if (limit != null && limit > 0 && limit < all.size()) {
+            return all.subList(0, limit);
+        }
+        return all;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisibilityChanged(PostVisibilityChangedEvent event) {
+        Map<String, Long> delta = new HashMap<>();
+        event.tagsBefore().forEach(name -> delta.merge(name, -1L, Long::sum));
+        event.tagsAfter().forEach(name -> delta.merge(name, 1L, Long::sum));
+        delta.values().removeIf(d -> d == 0);
+        if (!delta.isEmpty()) {
+            apply(delta);
+        }
+    }
+
+    private void apply(Map<String, Long> delta) {
+        lock.lock();
+        try {
+            applyTo(counts, delta);
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(delta);
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void applyTo(Map<String, Long> target, Map<String, Long> delta) {
+        delta.forEach((name, d) -> target.compute(name, (k, v) -> {
+            long next = (v == null ? 0 : v) + d;
+            return next > 0 ? next : null;
+        }));
+    }
+
+    private void reload() {
+        lock.lock();
+        try {
+            pendingDuringReload = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        Map<String, Long> fresh = new ConcurrentHashMap<>();
+        try {
+            for (Object[] row : tagRepository.countPublishedUsageByTagName()) {
+                fresh.put((String) row[0], (Long) row[1]);
+            }
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                pendingDuringReload = null;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            for (Map<String, Long> delta : pendingDuringReload) {
+                applyTo(fresh, delta);
+            }
+            pendingDuringReload = null;
+            if (!fresh.equals(counts)) {
+                counts = fresh;
+                version.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<TagUsageResponse> snapshot() {
+        long v = version.get();
+        if (sortedVersion == v) {
+            return sorted;
+        }
+        synchronized (this) {
+            if (sortedVersion != v) {
+                List<TagUsageResponse> rows = new ArrayList<>(counts.size());
+                counts.forEach((name, count) -> rows.add(new TagUsageResponse(name, count)));
+                rows.sort(BY_USAGE);
+                sorted = List.copyOf(rows);
+                sortedVersion = v;
+            }
+            return sorted;
+        }
+    }
+}
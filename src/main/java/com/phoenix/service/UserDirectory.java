@@ -0,0 +1,147 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.User;
+import com.phoenix.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handle → id dictionary for users, so profile and follow endpoints resolve the
+ * name in their URL without a query once it has been seen.
+ * <p>
+ * A handle never changes for the life of a user, so entries only go stale when
+ * the user is deleted; a Hibernate post-commit delete listener, registered from
+ * here so the entity stays free of it, drops them then. At most
+ * {@value #MAX_ENTRIES} handles are held; when full, an arbitrary entry makes
+ * room for the new one. Misses are not cached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserDirectory {
+
+    private static final int MAX_ENTRIES = 50_000;
+    private static final int BACKFILL_BATCH = 1000;
+
+    private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<String, UUID> idsByHandle = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerEviction() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_COMMIT_DELETE, new Eviction());
+    }
+
+    /** The id of the user whose name canonicalizes like {@code name}. */
+    public Optional<UUID> findId(String name) {
+        String handle = User.toHandle(name);
+        UUID id = idsByHandle.get(handle);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<UUID> found = userRepository.findIdByHandle(handle);
+        found.ifPresent(userId -> remember(handle, userId));
+        return found;
+    }
+
+    /** Whether a new user called {@code name} would collide with an existing handle. */
+    public boolean isTaken(String name) {
+        String handle = User.toHandle(name);
+        return idsByHandle.containsKey(handle) || userRepository.existsByHandle(handle);
+    }
+
+    void evict(String handle) {
+        if (handle != null) {
+            idsByHandle.remove(handle);
+        }
+    }
+
+    private void remember(String handle, UUID id) {
+        if (idsByHandle.size() >= MAX_ENTRIES) {
+            Iterator<String> victims = idsByHandle.keySet().iterator();
+            if (victims.hasNext()) {
+                victims.next();
+                victims.remove();
+            }
+        }
+        idsByHandle.put(handle, id);
+    }
+
+    /**
+     * Gives handles to users registered before the column existed. Names were never
+     * unique, so the oldest user keeps the plain handle and later ones get
+     * {@code -2}, {@code -3}, ... (reachable as "name-2").
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillHandles() {
+        int updated = 0;
+        List<Object[]> batch;
+        while (!(batch = userRepository.findWithoutHandle(PageRequest.of(0, BACKFILL_BATCH))).isEmpty()) {
+            for (Object[] row : batch) {
+                String base = User.toHandle((String) row[1]);
+                Set<String> taken = new HashSet<>(userRepository.findHandlesStartingWith(base, escapeLike(base) + "-%"));
+                String handle = base;
+                for (int suffix = 2; taken.contains(handle); suffix++) {
+                    handle = base + "-" + suffix;
+                }
+                userRepository.setHandle((UUID) row[0], handle);
+            }
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            log.info("Backfilled handles for {} users", updated);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Forgets a deleted user's handle once the delete has committed. */
+    private class Eviction implements PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof User user) {
+                evict(user.getHandle());
+            }
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            // Still in the database, so still a valid handle
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return User.class.isAssignableFrom(persister.getMappedClass());
+        }
+    }
+}
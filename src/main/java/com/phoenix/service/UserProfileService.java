@@ -0,0 +1,138 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.PagedResponse;
+import com.phoenix.dto.PostCardResponse;
+import com.phoenix.dto.UserProfileResponse;
+import com.phoenix.exception.PostNotFoundException;
+import com.phoenix.repository.PostCursor;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Public profiles: a header whose counts come from one aggregate query, and the
+ * author's published posts as lightweight cards, keyset-paged newest first. Neither
+ * loads a post's content, cover or comments, so a profile costs the same two
+ * queries however much its author has written, and one once {@link UserDirectory}
+ * knows the name.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserProfileService {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+
+    public enum CardSort {
+        NEWEST, VIEWS, LIKES;
+
+        public static CardSort fromParam(String sort) {
+            if ("views".equalsIgnoreCase(sort)) {
+                return VIEWS;
+            }
+            if ("likes".equalsIgnoreCase(sort)) {
+                return LIKES;
+            }
+            return NEWEST;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final PostRepository postRepository;
+
+    /** The header and first page of cards; {@code viewerEmail} is null for anonymous readers. */
+    @Transactional(readOnly = true)
+    public UserProfileResponse getProfile(String username, String viewerEmail) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<Object[]> rows = userDirectory.findId(username)
+                .map(id -> userRepository.findProfileHeader(id, now, viewerEmail))
+                .orElse(List.of());
+        if (rows.isEmpty()) {
+            throw new PostNotFoundException("User not found with username: " + username.trim());
+        }
+        Object[] header = rows.get(0);
+
+        return UserProfileResponse.builder()
+                .username((String) header[1])
+                .email((String) header[2])
+                .bio((String) header[3])
+                .avatarUrl((String) header[4])
+                .websiteUrl((String) header[5])
+                .joinedDate((LocalDateTime) header[6])
+                .totalPosts(((Number) header[7]).intValue())
+                .followersCount(((Number) header[8]).longValue())
+                .followingCount(((Number) header[9]).longValue())
+                .followedByCurrentUser(Boolean.TRUE.equals(header[10]))
+                .totalViews(((Number) header[11]).longValue())
+                .totalLikes(((Number) header[12]).longValue())
+                .totalComments(((Number) header[13]).longValue())
+                .posts(cards((UUID) header[0], viewerEmail, now, CardSort.NEWEST, null, DEFAULT_PAGE_SIZE))
+                .build();
+    }
+
+    /**
+     * A page of the user's published posts. Newest first pages by {@code cursor}
+     * (the previous page's {@code nextCursor}); the by-views and by-likes rankings
+     * only have a first page.
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<PostCardResponse> getPosts(String username, String viewerEmail, CardSort sort,
+                                                    String cursor, int size) {
+        UUID authorId = userDirectory.findId(username)
+                .orElseThrow(() -> new PostNotFoundException("User not found with username: " + username.trim()));
+        return cards(authorId, viewerEmail, LocalDateTime.now(ZoneOffset.UTC), sort, cursor, size);
+    }
+
+    private PagedResponse<PostCardResponse> cards(UUID authorId, String viewerEmail, LocalDateTime now,
+                                                  CardSort sort, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean first = cursor == null || cursor.isBlank();
+        if (!first && sort != CardSort.NEWEST) {
+            throw new IllegalArgumentException("Cursor paging is only supported for newest");
+        }
+
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        List<PostCardResponse> cards = switch (sort) {
+            case VIEWS -> postRepository.findCardsByViews(authorId, now, viewerEmail, pageable);
+            case LIKES -> postRepository.findCardsByLikes(authorId, now, viewerEmail, pageable);
+            case NEWEST -> {
+                if (first) {
+                    yield postRepository.findCards(authorId, now, viewerEmail, pageable);
+                }
+                PostCursor after = PostCursor.decode(cursor);
+                yield postRepository.findCardsBefore(authorId, now, viewerEmail, after.createdAt(), after.id(), pageable);
+            }
+        };
+
+        boolean hasNext = cards.size() > size;
+        if (hasNext) {
+            cards = cards.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasNext && sort == CardSort.NEWEST) {
+            PostCardResponse last = cards.get(cards.size() - 1);
+            nextCursor = new PostCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return PagedResponse.<PostCardResponse>builder()
+                .content(cards)
+                .pageNumber(0)
+                .pageSize(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .first(first)
+                .last(nextCursor == null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.phoenix.controller;
+
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Objects;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,metrics")
+@AutoConfigureMockMvc
+class ActuatorAccessTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void metricsAreForAdminsOnly() throws Exception {
+        String reader = "Bearer " + jwtTokenProvider.generateToken(user("metrics-reader", UserRole.ROLE_USER));
+        String admin = "Bearer " + jwtTokenProvider.generateToken(user("metrics-admin", UserRole.ROLE_ADMIN));
+
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, reader))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/{name}", "jvm.memory.used").header(HttpHeaders.AUTHORIZATION, reader))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/{name}", "jvm.memory.used").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health").header(HttpHeaders.AUTHORIZATION, reader))
+                .andExpect(status().isOk());
+    }
+
+    private User user(String name, UserRole role) {
+        return userRepository.findByEmail(name + "@example.com").orElseGet(() ->
+                userRepository.save(Objects.requireNonNull(User.builder()
+                        .email(name + "@example.com")
+                        .password("password")
+                        .name(name)
+                        .role(role)
+                        .build())));
+    }
+}
@@ -0,0 +1,91 @@
+package com.phoenix.controller;
+
+import com.phoenix.dto.PostRequest;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.service.PostService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Against the real connector, where the proxy's X-Forwarded-For decides who the client
+ * is. A short heartbeat commits each stream's response, so its status can be read.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.posts.live-max-per-client=2",
+        "app.posts.live-heartbeat-ms=200"
+})
+class ForwardedClientAddressTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<InputStream> streams = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+    }
+
+    @Test
+    void anonymousReadersBehindTheProxyDoNotShareAStreamCap() throws Exception {
+        User author = userRepository.findByEmail("forwarded-author@example.com").orElseGet(() ->
+                userRepository.save(Objects.requireNonNull(User.builder()
+                        .email("forwarded-author@example.com")
+                        .password("password")
+                        .name("forwarded-author")
+                        .role(UserRole.ROLE_USER)
+                        .build())));
+        PostRequest request = new PostRequest();
+        request.setTitle("Forwarded");
+        request.setContent("content for Forwarded");
+        UUID postId = Objects.requireNonNull(postService.createPost(request, author.getEmail()).getId());
+
+        assertThat(openLive(postId, "203.0.113.1")).isEqualTo(200);
+        assertThat(openLive(postId, "203.0.113.1")).isEqualTo(200);
+        assertThat(openLive(postId, "203.0.113.1")).isEqualTo(429);
+        // Same proxy, another reader
+        assertThat(openLive(postId, "203.0.113.2")).isEqualTo(200);
+    }
+
+    private int openLive(UUID postId, String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/posts/" + postId + "/live"))
+                .header("X-Forwarded-For", forwardedFor)
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        streams.add(response.body());
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,142 @@
+package com.phoenix.controller;
+
+import com.phoenix.entity.Notification;
+import com.phoenix.entity.NotificationType;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import com.phoenix.service.FollowService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.notifications.coalesce-ms=200",
+        "app.notifications.max-streams-per-user=2"
+})
+@AutoConfigureMockMvc
+class NotificationStreamTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        followRepository.deleteAll();
+        userRepository.findByEmail("stream-fan@example.com").orElseGet(() -> createUser("stream-fan"));
+        author = userRepository.findByEmail("stream-author@example.com").orElseGet(() -> createUser("stream-author"));
+    }
+
+    @Test
+    void newNotificationsAndUnreadCountsArePushed() throws Exception {
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(author);
+        MvcResult stream = mockMvc.perform(get("/api/notifications/stream").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        await().atMost(Duration.ofSeconds(5)).until(() -> content(stream).contains("event:unread\ndata:{\"count\":0}"));
+
+        followService.toggleFollow("stream-author", "stream-fan@example.com");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> content(stream).contains("event:unread\ndata:{\"count\":1}"));
+        assertThat(content(stream)).contains("event:notification", "stream-fan started following you");
+        mockMvc.perform(get("/api/notifications/unread-count").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1));
+
+        // Written where this instance sent no event (another instance, say): the endpoint sees them at
+        // once, and the next hint recounts rather than adjusting a remembered count, which would say 0
+        Notification elsewhere = null;
+        for (int i = 0; i < 2; i++) {
+            elsewhere = notificationRepository.save(Objects.requireNonNull(Notification.builder()
+                    .recipient(author).type(NotificationType.LIKE).actorName("elsewhere")
+                    .message("elsewhere reacted to your post").createdAt(LocalDateTime.now(ZoneOffset.UTC)).build()));
+        }
+        mockMvc.perform(get("/api/notifications/unread-count").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(jsonPath("$.count").value(3));
+        mockMvc.perform(put("/api/notifications/{id}/read", elsewhere.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().is2xxSuccessful());
+        await().atMost(Duration.ofSeconds(5)).until(() -> content(stream).contains("event:unread\ndata:{\"count\":2}"));
+
+        mockMvc.perform(put("/api/notifications/read-all").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isNoContent());
+
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                content(stream).endsWith("event:unread\ndata:{\"count\":0}\n\n"));
+        mockMvc.perform(get("/api/notifications/unread-count").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(jsonPath("$.count").value(0));
+    }
+
+    @Test
+    void streamsAreCappedPerAccount() throws Exception {
+        User tabs = userRepository.findByEmail("stream-tabs@example.com").orElseGet(() -> createUser("stream-tabs"));
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(tabs);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/notifications/stream").header(HttpHeaders.AUTHORIZATION, bearer))
+                    .andExpect(request().asyncStarted());
+        }
+        mockMvc.perform(get("/api/notifications/stream").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isTooManyRequests());
+
+        // Other accounts are not affected
+        mockMvc.perform(get("/api/notifications/stream")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtTokenProvider.generateToken(author)))
+                .andExpect(request().asyncStarted());
+    }
+
+    private static String content(MvcResult result) throws Exception {
+        return result.getResponse().getContentAsString();
+    }
+
+    private User createUser(String name) {
+        return userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+    }
+}
@@ -0,0 +1,231 @@
+package com.phoenix.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenix.dto.CommentRequest;
+import com.phoenix.dto.PostRequest;
+import com.phoenix.dto.PostResponse;
+import com.phoenix.entity.ReactionType;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.ReactionRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import com.phoenix.service.CommentService;
+import com.phoenix.service.PostService;
+import com.phoenix.service.ReactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.notifications.coalesce-ms=200",
+        "app.posts.live-max-per-client=3",
+        "app.posts.live-max-per-post=4"
+})
+@AutoConfigureMockMvc
+class PostEngagementStreamTest {
+
+    private static final int FANS = 40;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private ReactionService reactionService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ReactionRepository reactionRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void reactionsAndCommentsArePushedAsCoalescedDeltas() throws Exception {
+        User author = user("live-author");
+        PostRequest request = new PostRequest();
+        request.setTitle("Live");
+        request.setContent("content for Live");
+        PostResponse post = postService.createPost(request, author.getEmail());
+        UUID postId = Objects.requireNonNull(post.getId());
+
+        List<MvcResult> streams = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            streams.add(mockMvc.perform(get("/api/posts/{id}/live", postId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+
+        for (int i = 0; i < FANS; i++) {
+            reactionService.toggleReaction(postId, ReactionType.LIKE, user("live-fan-" + i).getEmail());
+        }
+        // Two fans change their minds: LIKE -> FIRE, and one takes theirs back
+        reactionService.toggleReaction(postId, ReactionType.FIRE, "live-fan-0@example.com");
+        reactionService.toggleReaction(postId, ReactionType.LIKE, "live-fan-1@example.com");
+        CommentRequest comment = new CommentRequest();
+        comment.setContent("First!");
+        commentService.createComment(postId, comment, "live-fan-2@example.com");
+
+        for (MvcResult stream : streams) {
+            await().atMost(Duration.ofSeconds(5)).until(() -> sum(stream, "totalReactions") == FANS - 1
+                    && sum(stream, "commentCount") == 1);
+            List<JsonNode> events = events(stream);
+            assertThat(events.size()).isLessThan(FANS / 2);
+            assertThat(events.stream().mapToLong(e -> e.path("reactionCounts").path("LIKE").asLong()).sum())
+                    .isEqualTo(FANS - 2);
+            assertThat(events.stream().mapToLong(e -> e.path("reactionCounts").path("FIRE").asLong()).sum())
+                    .isEqualTo(1);
+        }
+
+        // Reactions are not cascaded with users; notifications are written asynchronously
+        reactionRepository.deleteAll();
+        await().atMost(Duration.ofSeconds(5)).until(() -> notificationRepository.count() >= 2);
+        notificationRepository.deleteAll();
+    }
+
+    @Test
+    void unknownPostsCannotBeWatched() throws Exception {
+        user("live-author");
+        mockMvc.perform(get("/api/posts/{id}/live", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void draftsAreOnlyWatchedByTheirAuthorAndCloseWhenUnpublished() throws Exception {
+        User author = user("live-draft-author");
+        PostRequest request = new PostRequest();
+        request.setTitle("Secret");
+        request.setContent("content for Secret");
+        request.setSaveAsDraft(true);
+        UUID draftId = Objects.requireNonNull(postService.createPost(request, author.getEmail()).getId());
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(author);
+
+        mockMvc.perform(get("/api/posts/{id}/live", draftId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/posts/{id}/live", draftId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(post("/api/posts/{id}/presence", draftId))
+                .andExpect(jsonPath("$.data.readingNow").value(0));
+
+        request.setSaveAsDraft(false);
+        UUID postId = Objects.requireNonNull(postService.updatePost(draftId, request, author.getEmail()).getId());
+        MvcResult stream = mockMvc.perform(get("/api/posts/{id}/live", postId).with(from("10.0.0.1")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(post("/api/posts/{id}/presence", postId))
+                .andExpect(jsonPath("$.data.readingNow").value(1));
+
+        request.setSaveAsDraft(true);
+        postService.updatePost(postId, request, author.getEmail());
+        // Completing the stream ends the async request; this throws if it is still open
+        stream.getAsyncResult(5_000);
+    }
+
+    @Test
+    void streamsAreCappedPerClientAndPerPost() throws Exception {
+        User author = user("live-capped-author");
+        PostRequest request = new PostRequest();
+        request.setTitle("Capped");
+        request.setContent("content for Capped");
+        UUID postId = Objects.requireNonNull(postService.createPost(request, author.getEmail()).getId());
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/posts/{id}/live", postId).with(from("10.0.0.2")))
+                    .andExpect(request().asyncStarted());
+        }
+        mockMvc.perform(get("/api/posts/{id}/live", postId).with(from("10.0.0.2")))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/api/posts/{id}/live", postId).with(from("10.0.0.3")))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/posts/{id}/live", postId).with(from("10.0.0.4")))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void anonymousReadersAreCountedByAddressWhateverIdTheySend() throws Exception {
+        User author = user("presence-author");
+        PostRequest request = new PostRequest();
+        request.setTitle("Presence");
+        request.setContent("content for Presence");
+        UUID postId = Objects.requireNonNull(postService.createPost(request, author.getEmail()).getId());
+
+        for (int i = 0; i < 200; i++) {
+            mockMvc.perform(post("/api/posts/{id}/presence", postId).with(from("10.0.1.1"))
+                            .header("X-Reader-Id", UUID.randomUUID().toString()))
+                    .andExpect(jsonPath("$.data.readingNow").value(1));
+        }
+        mockMvc.perform(post("/api/posts/{id}/presence", postId).with(from("10.0.1.2")))
+                .andExpect(jsonPath("$.data.readingNow").value(2));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private long sum(MvcResult stream, String field) throws Exception {
+        return events(stream).stream().mapToLong(e -> e.path(field).asLong()).sum();
+    }
+
+    private List<JsonNode> events(MvcResult stream) throws Exception {
+        List<JsonNode> events = new ArrayList<>();
+        for (String block : stream.getResponse().getContentAsString().split("\n\n")) {
+            if (block.startsWith("event:engagement\ndata:")) {
+                events.add(objectMapper.readTree(block.substring("event:engagement\ndata:".length())));
+            }
+        }
+        return events;
+    }
+
+    private User user(String name) {
+        return userRepository.findByEmail(name + "@example.com").orElseGet(() ->
+                userRepository.save(Objects.requireNonNull(User.builder()
+                        .email(name + "@example.com")
+                        .password("password")
+                        .name(name)
+                        .role(UserRole.ROLE_USER)
+                        .build())));
+    }
+}
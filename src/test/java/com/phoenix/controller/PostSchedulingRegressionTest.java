@@ -70,8 +70,59 @@ class PostSchedulingRegressionTest {
 
         assertThat(refreshedFuture.getStatus()).isEqualTo(PostStatus.DRAFT);
         assertThat(refreshedFuture.getScheduledPublishAt()).isNotNull();
+        assertThat(refreshedFuture.getVisibleAt()).isNull();
         assertThat(refreshedDue.getStatus()).isEqualTo(PostStatus.PUBLISHED);
         assertThat(refreshedDue.getScheduledPublishAt()).isNull();
+        assertThat(refreshedDue.getVisibleAt()).isNotNull().isBefore(nowUtc);
+    }
+
+    @Test
+    void scheduledPostGoesLiveOnItsSecondWithoutTheSweep() throws Exception {
+        User author = createUser("wheel-author@example.com", "Wheel Author");
+        LocalDateTime dueAt = LocalDateTime.now(ZoneOffset.UTC).plusSeconds(2);
+
+        PostResponse created = createScheduledViaService(author.getEmail(), "On The Second", dueAt);
+
+        Post published = reload(created);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (published.getStatus() != PostStatus.PUBLISHED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            published = reload(created);
+        }
+
+        assertThat(published.getStatus()).isEqualTo(PostStatus.PUBLISHED);
+        assertThat(published.getScheduledPublishAt()).isNull();
+        assertThat(published.getVisibleAt()).isNotNull();
+        assertThat(LocalDateTime.now(ZoneOffset.UTC)).isBefore(dueAt.plusSeconds(5));
+    }
+
+    @Test
+    void visibleAtFollowsPublishingTransitions() {
+        User author = createUser("visible-author@example.com", "Visible Author");
+
+        PostRequest request = new PostRequest();
+        request.setTitle("Transitions");
+        request.setContent("content");
+        request.setSaveAsDraft(true);
+        PostResponse created = postService.createPost(request, author.getEmail());
+        assertThat(reload(created).getVisibleAt()).isNull();
+
+        request.setSaveAsDraft(false);
+        postService.updatePost(Objects.requireNonNull(created.getId()), request, author.getEmail());
+        LocalDateTime firstVisible = reload(created).getVisibleAt();
+        assertThat(firstVisible).isNotNull();
+
+        request.setContent("edited content");
+        postService.updatePost(Objects.requireNonNull(created.getId()), request, author.getEmail());
+        assertThat(reload(created).getVisibleAt()).isEqualTo(firstVisible);
+
+        request.setSaveAsDraft(true);
+        postService.updatePost(Objects.requireNonNull(created.getId()), request, author.getEmail());
+        assertThat(reload(created).getVisibleAt()).isNull();
+    }
+
+    private Post reload(PostResponse response) {
+        return postRepository.findById(Objects.requireNonNull(response.getId())).orElseThrow();
     }
 
     private User createUser(String email, String name) {
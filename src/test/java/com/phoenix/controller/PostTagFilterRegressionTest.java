@@ -0,0 +1,160 @@
+package com.phoenix.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenix.dto.PostRequest;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.PostQuery;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.service.PostService;
+import com.phoenix.service.TagBitmapIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostTagFilterRegressionTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TagBitmapIndex tagBitmapIndex;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        tagBitmapIndex.rebuild();
+    }
+
+    @Test
+    void combinesTagsWithAllAnyAndExclude() throws Exception {
+        User author = createUser("filter-author@example.com", "Filter Author");
+        createPost(author.getEmail(), "Java Spring", List.of("java", "spring"));
+        createPost(author.getEmail(), "Java Only", List.of("java"));
+        createPost(author.getEmail(), "Kotlin Spring", List.of("kotlin", "spring"));
+
+        assertThat(fetchTitles("/api/posts?tags=java,spring&mode=all"))
+                .containsExactly("Java Spring");
+        assertThat(fetchTitles("/api/posts?tags=java,kotlin&mode=any"))
+                .containsExactly("Kotlin Spring", "Java Only", "Java Spring");
+        assertThat(fetchTitles("/api/posts?tags=spring&exclude=kotlin"))
+                .containsExactly("Java Spring");
+        assertThat(fetchTitles("/api/posts?tags=spring&search=kotlin"))
+                .containsExactly("Kotlin Spring");
+    }
+
+    @Test
+    void suggestsRelatedTagsByCoOccurrence() throws Exception {
+        User author = createUser("related-author@example.com", "Related Author");
+        createPost(author.getEmail(), "One", List.of("db", "postgres", "sql"));
+        createPost(author.getEmail(), "Two", List.of("db", "postgres"));
+        createPost(author.getEmail(), "Three", List.of("db", "redis"));
+
+        MvcResult result = mockMvc.perform(get("/api/tags/related").param("tags", "db"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode related = objectMapper.readTree(result.getResponse().getContentAsString()).path("data");
+
+        assertThat(related.get(0).path("name").asText()).isEqualTo("postgres");
+        assertThat(related.get(0).path("count").asLong()).isEqualTo(2L);
+        assertThat(related).hasSize(3);
+    }
+
+    private List<String> fetchTitles(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<String> titles = new ArrayList<>();
+        for (JsonNode post : objectMapper.readTree(result.getResponse().getContentAsString()).path("data").path("content")) {
+            titles.add(post.path("title").asText());
+        }
+        return titles;
+    }
+
+    private User createUser(String email, String name) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build();
+        return userRepository.save(Objects.requireNonNull(user));
+    }
+
+    @Test
+    void pagesFollowCreationOrderWhenOlderPostsBecomeVisibleLate() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<UUID> oldestFirst = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            oldestFirst.add(UUID.randomUUID());
+        }
+        // Even posts go live in creation order; odd ones afterwards, newest first, like scheduled posts going live late
+        for (int i = 0; i < 10; i += 2) {
+            show(oldestFirst.get(i), start.plusHours(i));
+        }
+        for (int i = 9; i > 0; i -= 2) {
+            show(oldestFirst.get(i), start.plusHours(i));
+        }
+        List<UUID> newestFirst = new ArrayList<>(oldestFirst);
+        Collections.reverse(newestFirst);
+
+        for (int offset = 0; offset < 10; offset += 3) {
+            int end = Math.min(10, offset + 3);
+            TagBitmapIndex.Match oldest = tagBitmapIndex.query(List.of("late"), PostQuery.TagMode.ALL, List.of(), true, offset, 3);
+            TagBitmapIndex.Match newest = tagBitmapIndex.query(List.of("late"), PostQuery.TagMode.ALL, List.of(), false, offset, 3);
+            assertThat(oldest.total()).isEqualTo(10);
+            assertThat(oldest.postIds()).containsExactlyElementsOf(oldestFirst.subList(offset, end));
+            assertThat(newest.postIds()).containsExactlyElementsOf(newestFirst.subList(offset, end));
+        }
+    }
+
+    private void show(UUID postId, LocalDateTime createdAt) {
+        tagBitmapIndex.onVisibilityChanged(new PostVisibilityChangedEvent(postId, createdAt, false, List.of(), true, List.of("late")));
+    }
+
+    private void createPost(String authorEmail, String title, List<String> tags) {
+        PostRequest request = new PostRequest();
+        request.setTitle(title);
+        request.setContent("content for " + title);
+        request.setTags(tags);
+        postService.createPost(request, authorEmail);
+    }
+}
@@ -0,0 +1,195 @@
+package com.phoenix.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenix.dto.PostRequest;
+import com.phoenix.dto.PostResponse;
+import com.phoenix.dto.TagUsageResponse;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.service.PostService;
+import com.phoenix.service.TagUsageCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TagCloudRegressionTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TagUsageCache tagUsageCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        tagUsageCache.reconcile();
+    }
+
+    @Test
+    void tagCloudCountsOnlyVisiblePostsAndTracksWrites() throws Exception {
+        User author = createUser("tags-author@example.com", "Tags Author");
+
+        createPost(author.getEmail(), "Java and Spring", List.of("cloud-java", "cloud-spring"), false);
+        PostResponse javaOnly = createPost(author.getEmail(), "Just Java", List.of("cloud-java"), false);
+        createPost(author.getEmail(), "Unfinished", List.of("cloud-java", "cloud-draft"), true);
+
+        Map<String, Long> usage = fetchUsage();
+        assertThat(usage).containsEntry("cloud-java", 2L).containsEntry("cloud-spring", 1L);
+        assertThat(usage).doesNotContainKey("cloud-draft");
+
+        postService.deletePost(Objects.requireNonNull(javaOnly.getId()), author.getEmail());
+
+        assertThat(fetchUsage()).containsEntry("cloud-java", 1L);
+    }
+
+    @Test
+    void editingTagsMovesOnlyTheChangedCounts() {
+        User author = createUser("edit-author@example.com", "Edit Author");
+        PostResponse created = createPost(author.getEmail(), "Editable", List.of("edit-a", "edit-b"), false);
+        Long keptRow = joinRow(created.getId(), "edit-b");
+
+        PostRequest update = new PostRequest();
+        update.setTitle("Editable");
+        update.setContent("updated content");
+        update.setTags(List.of("Edit-B", "edit-c"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        PostResponse updated = postService.updatePost(Objects.requireNonNull(created.getId()), update, author.getEmail());
+        statistics.setStatisticsEnabled(false);
+
+        // Tags come back in name order, not request order
+        assertThat(updated.getTags()).containsExactly("edit-b", "edit-c");
+        // The kept join row is the same physical row: it was neither deleted nor reinserted
+        CollectionStatistics tags = statistics.getCollectionStatistics(Post.class.getName() + ".tags");
+        assertThat(tags.getRecreateCount()).isZero();
+        assertThat(tags.getRemoveCount()).isZero();
+        assertThat(tags.getUpdateCount()).isEqualTo(1);
+        assertThat(joinRow(created.getId(), "edit-b")).isEqualTo(keptRow);
+        assertThat(joinRow(created.getId(), "edit-a")).isNull();
+        assertThat(joinRow(created.getId(), "edit-c")).isNotNull();
+        assertThat(tagUsageCache.getTopTags(null))
+                .extracting(TagUsageResponse::getName)
+                .contains("edit-b", "edit-c")
+                .doesNotContain("edit-a");
+    }
+
+    @Test
+    void tagNamesHonourLimitAndRevalidateWithEtag() throws Exception {
+        User author = createUser("etag-author@example.com", "Etag Author");
+        createPost(author.getEmail(), "First", List.of("etag-popular", "etag-rare"), false);
+        createPost(author.getEmail(), "Second", List.of("etag-popular"), false);
+
+        MvcResult first = mockMvc.perform(get("/api/tags").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode names = objectMapper.readTree(first.getResponse().getContentAsString()).path("data");
+        assertThat(names).hasSize(1);
+        assertThat(names.get(0).asText()).isEqualTo("etag-popular");
+
+        String etag = first.getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get("/api/tags").param("limit", "1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Counts change but the top name does not, so the list is still current
+        createPost(author.getEmail(), "Third", List.of("etag-rare"), false);
+        mockMvc.perform(get("/api/tags").param("limit", "1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        createPost(author.getEmail(), "Fourth", List.of("etag-rare"), false);
+        mockMvc.perform(get("/api/tags").param("limit", "1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]").value("etag-rare"));
+    }
+
+    /** H2's row id of the post_tags row linking the post to the tag, or null when there is none. */
+    private Long joinRow(UUID postId, String tagName) {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "select pt._rowid_ from post_tags pt join tags t on t.id = pt.tag_id where pt.post_id = ? and t.name = ?",
+                Long.class, postId, tagName);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Map<String, Long> fetchUsage() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/tags/usage"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Long> usage = new HashMap<>();
+        for (JsonNode row : objectMapper.readTree(result.getResponse().getContentAsString()).path("data")) {
+            usage.put(row.path("name").asText(), row.path("count").asLong());
+        }
+        return usage;
+    }
+
+    private User createUser(String email, String name) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build();
+        return userRepository.save(Objects.requireNonNull(user));
+    }
+
+    private PostResponse createPost(String authorEmail, String title, List<String> tags, boolean draft) {
+        PostRequest request = new PostRequest();
+        request.setTitle(title);
+        request.setContent("content for " + title);
+        request.setTags(tags);
+        request.setSaveAsDraft(draft);
+        return postService.createPost(request, authorEmail);
+    }
+}
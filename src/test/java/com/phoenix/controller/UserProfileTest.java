@@ -0,0 +1,314 @@
+package com.phoenix.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenix.dto.RegisterRequest;
+import com.phoenix.dto.UserProfileResponse;
+import com.phoenix.entity.Comment;
+import com.phoenix.entity.Follow;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.PostStatus;
+import com.phoenix.entity.Reaction;
+import com.phoenix.entity.ReactionType;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.exception.EmailAlreadyExistsException;
+import com.phoenix.repository.CommentRepository;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.ReactionRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import com.phoenix.service.AuthService;
+import com.phoenix.service.UserDirectory;
+import com.phoenix.service.UserProfileService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserProfileTest {
+
+    private static final int PUBLISHED = 45;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ReactionRepository reactionRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User author;
+    private User fan;
+    private Post mostViewed;
+
+    @BeforeEach
+    void setUp() {
+        reactionRepository.deleteAll();
+        followRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        author = user("profile-author");
+        fan = user("profile-fan");
+        User other = user("profile-other");
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(fan).following(author).build()));
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(other).following(author).build()));
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(author).following(other).build()));
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < PUBLISHED; i++) {
+            Post post = post("Post " + i, start.plusHours(i), PostStatus.PUBLISHED, i == 7 ? 1_000 : i);
+            if (i % 5 == 0) {
+                reactionRepository.save(Objects.requireNonNull(Reaction.builder()
+                        .post(post).user(fan).type(ReactionType.LIKE).build()));
+                commentRepository.save(Objects.requireNonNull(Comment.builder()
+                        .post(post).author(fan).content("Nice").build()));
+            }
+            if (i == 7) {
+                mostViewed = post;
+            }
+        }
+        // Neither a draft nor a scheduled post is on the profile
+        post("Draft", start, PostStatus.DRAFT, 0);
+        postRepository.save(Objects.requireNonNull(Post.builder()
+                .title("Scheduled")
+                .content("content for Scheduled")
+                .author(author)
+                .status(PostStatus.DRAFT)
+                .scheduledPublishAt(LocalDateTime.now(ZoneOffset.UTC).plusDays(1))
+                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reactionRepository.deleteAll();
+        followRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void headerCountsComeFromOneQueryAndCardsFromAnother() {
+        userDirectory.findId("profile-author");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        UserProfileResponse profile = userProfileService.getProfile(" profile-author ", fan.getEmail());
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(profile.getTotalPosts()).isEqualTo(PUBLISHED);
+        assertThat(profile.getFollowersCount()).isEqualTo(2);
+        assertThat(profile.getFollowingCount()).isEqualTo(1);
+        assertThat(profile.isFollowedByCurrentUser()).isTrue();
+        assertThat(profile.getTotalLikes()).isEqualTo(PUBLISHED / 5);
+        assertThat(profile.getTotalComments()).isEqualTo(PUBLISHED / 5);
+        assertThat(profile.getTotalViews()).isEqualTo(1_000 + (long) PUBLISHED * (PUBLISHED - 1) / 2 - 7);
+        assertThat(profile.getPosts().getContent()).hasSize(20);
+        assertThat(profile.getPosts().getContent().get(0).getTitle()).isEqualTo("Post " + (PUBLISHED - 1));
+        assertThat(profile.getPosts().getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void postCardsArePagedByCursor() throws Exception {
+        mockMvc.perform(get("/api/users/{username}", "profile-author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalPosts").value(PUBLISHED))
+                .andExpect(jsonPath("$.data.followedByCurrentUser").value(false))
+                .andExpect(jsonPath("$.data.posts.content[0].content").doesNotExist());
+
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(fan);
+        List<String> titles = new ArrayList<>();
+        List<Boolean> liked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/users/{username}/posts", "profile-author")
+                    .param("size", "20")
+                    .header(HttpHeaders.AUTHORIZATION, bearer);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).path("data");
+            for (JsonNode card : page.path("content")) {
+                titles.add(card.path("title").asText());
+                liked.add(card.path("likedByCurrentUser").asBoolean());
+            }
+            cursor = page.path("nextCursor").isNull() ? null : page.path("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(titles).hasSize(PUBLISHED).doesNotHaveDuplicates().doesNotContain("Draft", "Scheduled");
+        assertThat(titles.get(0)).isEqualTo("Post " + (PUBLISHED - 1));
+        assertThat(titles.get(PUBLISHED - 1)).isEqualTo("Post 0");
+        assertThat(liked.stream().filter(Boolean::booleanValue).count()).isEqualTo(PUBLISHED / 5);
+
+        mockMvc.perform(get("/api/users/{username}/posts", "profile-author").param("sort", "views").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].title").value(mostViewed.getTitle()))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+        mockMvc.perform(get("/api/users/{username}/posts", "profile-author").param("sort", "likes").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].likeCount").value(1));
+        mockMvc.perform(get("/api/users/{username}/posts", "nobody"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void namesResolveThroughTheHandleIndexThenTheCache() throws Exception {
+        assertThat(jdbcTemplate.queryForObject("explain select id from users where handle = ?", String.class, "x"))
+                .contains("IDX_USERS_HANDLE");
+        assertThat(author.getHandle()).isEqualTo("profile-author");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        Optional<UUID> first = userDirectory.findId("  Profile-Author ");
+        long firstStatements = statistics.getPrepareStatementCount();
+        Optional<UUID> again = userDirectory.findId("profile-author");
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(first).contains(author.getId());
+        assertThat(again).contains(author.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(firstStatements);
+        assertThat(userDirectory.findId("profile")).isEmpty();
+
+        mockMvc.perform(get("/api/users/{username}", "PROFILE-AUTHOR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.username").value("profile-author"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"someone-else@example.com\",\"password\":\"password\",\"name\":\"Profile-Author\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void deletedUsersLeaveTheDirectory() {
+        User leaver = user("profile-leaver");
+        assertThat(userDirectory.findId("profile-leaver")).contains(leaver.getId());
+
+        userRepository.delete(leaver);
+
+        assertThat(userDirectory.findId("profile-leaver")).isEmpty();
+        assertThat(userDirectory.isTaken("profile-leaver")).isFalse();
+    }
+
+    @Test
+    void handleConflictsAndSuffixesStayExact() {
+        // Reaches the unique constraint past the pre-checks, which compare the untrimmed email
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail(" profile-fan@example.com");
+        request.setPassword("password");
+        request.setName("Someone New");
+        assertThatThrownBy(() -> authService.register(request)).isInstanceOf(EmailAlreadyExistsException.class);
+
+        for (String handle : List.of("a_b", "a_b-2", "axb-3", "a%b-2")) {
+            userRepository.save(Objects.requireNonNull(User.builder()
+                    .email(handle + "@example.com").password("password").name(handle).role(UserRole.ROLE_USER)
+                    .build()));
+        }
+        assertThat(userRepository.findHandlesStartingWith("a_b", "a\\_b-%")).containsExactlyInAnyOrder("a_b", "a_b-2");
+        assertThat(userRepository.findHandlesStartingWith("a%b", "a\\%b-%")).containsExactly("a%b-2");
+    }
+
+    @Test
+    void postsLinkToTheirAuthorByHandle() throws Exception {
+        jdbcTemplate.update("update users set handle = 'profile-author-2' where id = ?", author.getId());
+
+        mockMvc.perform(get("/api/posts/{id}", mostViewed.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.authorName").value("profile-author"))
+                .andExpect(jsonPath("$.data.authorHandle").value("profile-author-2"));
+        mockMvc.perform(get("/api/users/{username}", "profile-author-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalPosts").value(PUBLISHED));
+    }
+
+    private Post post(String title, LocalDateTime createdAt, PostStatus status, long views) {
+        return postRepository.save(Objects.requireNonNull(Post.builder()
+                .title(title)
+                .content("content for " + title)
+                .author(author)
+                .status(status)
+                .viewCount(views)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build()));
+    }
+
+    private User user(String name) {
+        return userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.phoenix.repository;
+
+import com.phoenix.entity.Post;
+import com.phoenix.entity.PostStatus;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PostQueryPlannerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void plansReadPostsThroughAnIndex() {
+        // Pairs rather than a map: several plans are expected to use the same index
+        List<Map.Entry<String, PostQuery>> expectedIndexes = new ArrayList<>();
+        expectedIndexes.add(Map.entry("IDX_POSTS_VISIBLE_AT_CREATED_AT", PostQuery.builder().build()));
+        expectedIndexes.add(Map.entry("IDX_POSTS_VISIBLE_AT_CREATED_AT", PostQuery.builder()
+                .sort(PostQuery.Sort.OLDEST)
+                .cursor(new PostCursor(NOW, UUID.randomUUID()).encode())
+                .build()));
+        expectedIndexes.add(Map.entry("IDX_POSTS_AUTHOR_CREATED_AT", PostQuery.builder()
+                .authorIds(List.of(UUID.randomUUID()))
+                .createdFrom(NOW.minusDays(7))
+                .build()));
+        expectedIndexes.add(Map.entry("IDX_POSTS_SERIES_ID", PostQuery.builder().seriesId(UUID.randomUUID()).build()));
+        expectedIndexes.add(Map.entry("IDX_POST_TAGS_TAG_POST", PostQuery.builder()
+                .tags(List.of("java", "spring"))
+                .excludedTags(List.of("kotlin"))
+                .build()));
+        expectedIndexes.add(Map.entry("IDX_REACTIONS_TYPE_POST", PostQuery.builder()
+                .titleContains("java")
+                .premium(false)
+                .sort(PostQuery.Sort.MOST_LIKED)
+                .build()));
+
+        expectedIndexes.forEach(entry -> {
+            String index = entry.getKey();
+            PostQueryPlanner.Plan plan = PostQueryPlanner.plan(entry.getValue(), NOW);
+            String explained = explain(plan.sql(), plan.params());
+            assertThat(explained).as(explained)
+                    .contains(index)
+                    .doesNotContain("POSTS.tableScan");
+            if (plan.countSql() != null) {
+                assertThat(explain(plan.countSql(), plan.countParams())).doesNotContain("POSTS.tableScan");
+            }
+        });
+    }
+
+    @Test
+    @Transactional
+    void keysetPagesCoverEveryMatchOnceInOrder() {
+        User author = createUser("planner@example.com", "Planner");
+        User other = createUser("planner-other@example.com", "Other");
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // Two posts per timestamp so the id tie-break decides between them.
+            Post post = createPost(author, "Post " + i, NOW.minusDays(10).plusHours(i / 2), false);
+            expected.add(post.getId());
+        }
+        createPost(other, "Someone else", NOW.minusDays(10), false);
+        createPost(author, "Paid", NOW.minusDays(10), true);
+        entityManager.clear();
+
+        PostQuery.PostQueryBuilder base = PostQuery.builder()
+                .authorIds(List.of(author.getId()))
+                .premium(false)
+                .size(2);
+        List<Post> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            PostSearchRepository.Result page = postRepository.search(base.cursor(cursor).build(), NOW);
+            seen.addAll(page.posts());
+            assertThat(page.totalElements()).isEqualTo(-1);
+            cursor = page.nextCursor();
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).extracting(Post::getId).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(seen).extracting(Post::getCreatedAt).isSortedAccordingTo(Comparator.reverseOrder());
+
+        PostSearchRepository.Result offset = postRepository.search(base.cursor(null).page(1).build(), NOW);
+        assertThat(offset.totalElements()).isEqualTo(5);
+        assertThat(offset.hasNext()).isTrue();
+        assertThat(offset.posts()).containsExactlyElementsOf(seen.subList(2, 4));
+    }
+
+    private String explain(String sql, List<Object> params) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, params.toArray());
+    }
+
+    private User createUser(String email, String name) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build();
+        return userRepository.save(Objects.requireNonNull(user));
+    }
+
+    private Post createPost(User author, String title, LocalDateTime createdAt, boolean premium) {
+        Post post = Post.builder()
+                .title(title)
+                .content("content for " + title)
+                .author(author)
+                .status(PostStatus.PUBLISHED)
+                .isPremium(premium)
+                .build();
+        post = postRepository.saveAndFlush(Objects.requireNonNull(post));
+        // Auditing stamps the current time on insert, so backdate the row itself
+        jdbcTemplate.update("update posts set created_at = ?, visible_at = ? where id = ?", createdAt, createdAt, post.getId());
+        return post;
+    }
+}
@@ -0,0 +1,268 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.CommentResponse;
+import com.phoenix.dto.PagedResponse;
+import com.phoenix.dto.PostRequest;
+import com.phoenix.entity.Comment;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.CommentRepository;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CommentThreadLoadingTest {
+
+    private static final int COMMENTS = 12;
+    private static final int BUSY_THREAD_REPLIES = 45;
+    private static final int THREAD_REPLIES = 10_000;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private UUID postId;
+    private UUID busyThreadId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<User> readers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            readers.add(user("thread-reader-" + i));
+        }
+        PostRequest request = new PostRequest();
+        request.setTitle("Threads");
+        request.setContent("content for Threads");
+        postId = postService.createPost(request, user("thread-author").getEmail()).getId();
+        Post post = postRepository.getReferenceById(Objects.requireNonNull(postId));
+
+        // Comment i has i replies, and the oldest comment has a busy thread
+        for (int i = 0; i < COMMENTS; i++) {
+            Comment comment = commentRepository.save(Objects.requireNonNull(Comment.builder()
+                    .content("comment " + i).post(post).author(readers.get(i % readers.size())).build()));
+            int replies = i == 0 ? BUSY_THREAD_REPLIES : i;
+            for (int r = 0; r < replies; r++) {
+                commentRepository.save(Objects.requireNonNull(Comment.builder()
+                        .content("reply " + r).post(post).parent(comment).author(readers.get(r % readers.size())).build()));
+            }
+            if (i == 0) {
+                busyThreadId = comment.getId();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        commentRepository.deleteAllByPostId(postId);
+        postRepository.deleteById(Objects.requireNonNull(postId));
+    }
+
+    @Test
+    void commentPagesTakeTheSameQueriesWhateverTheirSize() {
+        long smallPage = statementsFor(() -> commentService.getCommentsByPostId(Objects.requireNonNull(postId), 0, 2));
+        long fullPage = statementsFor(() -> commentService.getCommentsByPostId(Objects.requireNonNull(postId), 0, COMMENTS));
+        // Post check, page, page count, first replies, reply counts
+        assertThat(fullPage).isEqualTo(5).isEqualTo(smallPage);
+
+        PagedResponse<CommentResponse> page = commentService.getCommentsByPostId(Objects.requireNonNull(postId), 0, COMMENTS);
+        assertThat(page.getContent()).hasSize(COMMENTS);
+        for (CommentResponse comment : page.getContent()) {
+            int expected = comment.getContent().equals("comment 0")
+                    ? BUSY_THREAD_REPLIES : Integer.parseInt(comment.getContent().substring("comment ".length()));
+            assertThat(comment.getReplyCount()).isEqualTo(expected);
+            assertThat(comment.getReplies()).hasSize(Math.min(expected, 3));
+            assertThat(comment.getReplies()).extracting(CommentResponse::getParentId).containsOnly(comment.getId());
+            assertThat(comment.getRepliesCursor() != null).isEqualTo(expected > 3);
+        }
+    }
+
+    @Test
+    void remainingRepliesArePagedByCursor() {
+        CommentResponse busy = commentService.getCommentsByPostId(Objects.requireNonNull(postId), 0, COMMENTS)
+                .getContent().stream()
+                .filter(c -> c.getId().equals(busyThreadId))
+                .findFirst().orElseThrow();
+        List<CommentResponse> replies = new ArrayList<>(busy.getReplies());
+
+        String cursor = busy.getRepliesCursor();
+        int pages = 0;
+        while (cursor != null) {
+            PagedResponse<CommentResponse> page = commentService.getReplies(
+                    Objects.requireNonNull(postId), Objects.requireNonNull(busyThreadId), cursor, 10);
+            replies.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(replies).hasSize(BUSY_THREAD_REPLIES);
+        assertThat(replies).extracting(CommentResponse::getId).doesNotHaveDuplicates();
+        // Paths order replies by the microsecond; siblings within one are in no particular order
+        assertThat(replies).isSortedAccordingTo(Comparator.comparing(
+                (CommentResponse reply) -> reply.getCreatedAt().truncatedTo(ChronoUnit.MICROS)));
+        assertThat(commentService.getReplies(Objects.requireNonNull(postId), Objects.requireNonNull(busyThreadId), null, 50)
+                .getContent()).extracting(CommentResponse::getId)
+                .containsExactlyElementsOf(replies.stream().map(CommentResponse::getId).toList());
+    }
+
+    @Test
+    void repliesNestToAnyDepthAndShowInThreadOrder() {
+        Post post = postRepository.getReferenceById(Objects.requireNonNull(postId));
+        User reader = user("thread-reader-0");
+        Comment root = save(post, null, reader, "root");
+        Comment first = save(post, root, reader, "first");
+        Comment second = save(post, root, reader, "second");
+        Comment deep = first;
+        for (int depth = 2; depth <= 6; depth++) {
+            deep = save(post, deep, reader, "depth " + depth);
+        }
+        // A late reply to the first reply still shows under it, before the second reply
+        save(post, first, reader, "late");
+
+        CommentResponse thread = commentService.getCommentsByPostId(Objects.requireNonNull(postId), 0, 1)
+                .getContent().get(0);
+        assertThat(thread.getReplyCount()).isEqualTo(8);
+        assertThat(thread.getReplies()).extracting(CommentResponse::getContent)
+                .containsExactly("first", "depth 2", "depth 3");
+        assertThat(thread.getReplies()).extracting(CommentResponse::getDepth).containsExactly(1, 2, 3);
+
+        List<CommentResponse> rest = commentService.getReplies(Objects.requireNonNull(postId),
+                Objects.requireNonNull(root.getId()), thread.getRepliesCursor(), 50).getContent();
+        assertThat(rest).extracting(CommentResponse::getContent)
+                .containsExactly("depth 4", "depth 5", "depth 6", "late", "second");
+        assertThat(rest.get(4).getParentId()).isEqualTo(root.getId());
+
+        // Deleting the first reply takes its whole subtree in one statement
+        long before = commentRepository.countByPostId(postId);
+        commentService.deleteComment(Objects.requireNonNull(first.getId()), reader.getEmail());
+        assertThat(commentRepository.countByPostId(postId)).isEqualTo(before - 7);
+        assertThat(commentRepository.existsById(Objects.requireNonNull(second.getId()))).isTrue();
+    }
+
+    @Test
+    void threadLoadingDoesNotDependOnDepth() {
+        String explained = jdbcTemplate.queryForObject("explain select * from comments where path > ? and path < ? " +
+                "order by path", String.class, "a", "b");
+        assertThat(explained).as(explained).contains("IDX_COMMENTS_PATH");
+
+        Post post = postRepository.getReferenceById(Objects.requireNonNull(postId));
+        User reader = user("thread-reader-0");
+        Comment wide = save(post, null, reader, "wide");
+        Comment deep = save(post, null, reader, "deep");
+        LocalDateTime start = LocalDateTime.now(ZoneOffset.UTC);
+        List<Object[]> rows = new ArrayList<>();
+        // Wide: every reply answers the root. Deep: 100 chains, each nested as far as allowed
+        for (int i = 0; i < THREAD_REPLIES; i++) {
+            rows.add(row(post, reader, wide.getId(), wide.getPath(), start.plusNanos(i * 1000L), i));
+        }
+        int chainLength = Comment.MAX_DEPTH - 1;
+        for (int chain = 0; chain < THREAD_REPLIES / chainLength + 1 && rows.size() < 2 * THREAD_REPLIES; chain++) {
+            UUID parentId = deep.getId();
+            String parentPath = deep.getPath();
+            for (int d = 0; d < chainLength && rows.size() < 2 * THREAD_REPLIES; d++) {
+                Object[] row = row(post, reader, parentId, parentPath, start.plusNanos(rows.size() * 1000L), rows.size());
+                rows.add(row);
+                parentId = (UUID) row[0];
+                parentPath = (String) row[5];
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into comments (id, content, post_id, author_id, parent_id, path, " +
+                "created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        for (Comment root : List.of(wide, deep)) {
+            long statements = statementsFor(() -> assertThat(commentRepository.findSubtree(root.getPath(),
+                    Comment.subtreeEnd(root.getPath()), PageRequest.of(0, THREAD_REPLIES + 1))).hasSize(THREAD_REPLIES));
+            assertThat(statements).isEqualTo(1);
+        }
+        long wideFirst = statementsFor(() -> assertThat(firstReplies(wide)).hasSize(20));
+        long deepFirst = statementsFor(() -> assertThat(firstReplies(deep)).hasSize(20));
+        assertThat(deepFirst).isEqualTo(wideFirst);
+
+        List<CommentResponse> deepPage = commentService.getReplies(Objects.requireNonNull(postId),
+                Objects.requireNonNull(deep.getId()), null, 50).getContent();
+        assertThat(deepPage).extracting(CommentResponse::getDepth)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 50).boxed().toList());
+    }
+
+    private List<CommentResponse> firstReplies(Comment root) {
+        return commentService.getReplies(Objects.requireNonNull(postId), Objects.requireNonNull(root.getId()), null, 20)
+                .getContent();
+    }
+
+    private static Object[] row(Post post, User author, UUID parentId, String parentPath, LocalDateTime createdAt, int n) {
+        return new Object[]{UUID.randomUUID(), "reply " + n, post.getId(), author.getId(), parentId,
+                parentPath + Comment.pathSegment(createdAt, n), Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt)};
+    }
+
+    private Comment save(Post post, Comment parent, User author, String content) {
+        return commentRepository.save(Objects.requireNonNull(Comment.builder()
+                .content(content).post(post).parent(parent).author(author).build()));
+    }
+
+    private long statementsFor(Runnable load) {
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        load.run();
+        statistics.setStatisticsEnabled(false);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User user(String name) {
+        return userRepository.findByEmail(name + "@example.com").orElseGet(() ->
+                userRepository.save(Objects.requireNonNull(User.builder()
+                        .email(name + "@example.com")
+                        .password("password")
+                        .name(name)
+                        .role(UserRole.ROLE_USER)
+                        .build())));
+    }
+}
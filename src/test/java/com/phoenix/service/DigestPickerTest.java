@@ -0,0 +1,63 @@
+package com.phoenix.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DigestPickerTest {
+
+    private final UUID ada = UUID.randomUUID();
+    private final UUID grace = UUID.randomUUID();
+    private final UUID linus = UUID.randomUUID();
+    private final UUID java = UUID.randomUUID();
+    private final UUID sql = UUID.randomUUID();
+
+    // Ordered so each post's index is its popularity rank
+    private final List<Object[]> candidates = List.of(
+            candidate(ada, "Ada", "Popular", 1_000, 20),
+            candidate(ada, "Ada", "Also by Ada", 500, 10),
+            candidate(grace, "Grace", "Joins on Java", 300, 5),
+            candidate(linus, "Linus", "Quiet kernel notes", 10, 0),
+            candidate(grace, "Grace", "Window functions", 100, 2),
+            candidate(linus, "Linus", "Rarely read", 0, 0),
+            candidate(linus, "Linus", "Never read", 0, 0));
+
+    private final DigestPicker picker = new DigestPicker(candidates, List.of(
+            tag(2, java), tag(4, sql), tag(6, sql)));
+
+    @Test
+    void followedAuthorsComeFirstThenTagsThenPopularity() {
+        UUID reader = UUID.randomUUID();
+
+        int[] picks = picker.pickFor(List.of(reader),
+                List.<Object[]>of(new Object[] {reader, linus}),
+                List.<Object[]>of(new Object[] {reader, sql, 3L}, new Object[] {reader, java, 1L})).get(reader);
+
+        // Linus's posts (his SQL one first), then Grace's SQL post ahead of the most popular
+        assertThat(picks).containsExactly(6, 3, 5, 4, 0);
+    }
+
+    @Test
+    void usersWithoutSignalsGetTheGlobalTop() {
+        UUID newcomer = UUID.randomUUID();
+        UUID stranger = UUID.randomUUID();
+
+        Map<UUID, int[]> picks = picker.pickFor(List.of(newcomer, stranger),
+                List.<Object[]>of(new Object[] {stranger, UUID.randomUUID()}), List.of());
+
+        assertThat(picks.get(newcomer)).containsExactly(0, 1, 2, 4, 3);
+        assertThat(picks.get(stranger)).containsExactly(0, 1, 2, 4, 3);
+    }
+
+    private static Object[] candidate(UUID authorId, String authorName, String title, long views, long reactions) {
+        return new Object[] {UUID.randomUUID(), authorId, authorName, title, views, reactions, authorName.toLowerCase()};
+    }
+
+    private Object[] tag(int post, UUID tagId) {
+        return new Object[] {candidates.get(post)[0], tagId};
+    }
+}
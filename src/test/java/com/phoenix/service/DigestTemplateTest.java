@@ -0,0 +1,111 @@
+package com.phoenix.service;
+
+import com.sun.management.ThreadMXBean;
+import jakarta.activation.DataSource;
+import jakarta.mail.Multipart;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DigestTemplateTest {
+
+    private static final Session SESSION = Session.getInstance(new Properties());
+
+    private final List<EmailDigestService.DigestPost> posts = List.of(
+            new EmailDigestService.DigestPost(UUID.randomUUID(), "Tuning <JVM> pauses", "Ada", "ada", 120),
+            new EmailDigestService.DigestPost(UUID.randomUUID(), "Keyset paging", "Grace", "grace", 80),
+            new EmailDigestService.DigestPost(UUID.randomUUID(), "Virtual threads in practice", "Linus", "linus", 45),
+            new EmailDigestService.DigestPost(UUID.randomUUID(), "Indexes that pay off", "Barbara", "barbara", 30),
+            new EmailDigestService.DigestPost(UUID.randomUUID(), "Ünïcödé everywhere ✨", "Ken", "ken", 12));
+
+    private static final int[] ALL = {0, 1, 2, 3, 4};
+
+    private final DigestTemplate template =
+            DigestTemplate.render("http://localhost:5173", posts, LocalDate.of(2026, 10, 19));
+
+    @Test
+    void recipientsGetTheSharedBodyWithTheirOwnEscapedName() throws Exception {
+        String forAda = roundTrip("ada@example.com", "Ada & Co", ALL);
+        String forBob = roundTrip("bob@example.com", "Bob", ALL);
+
+        assertThat(forAda)
+                .startsWith("<!DOCTYPE html>")
+                .contains("Hi Ada &amp; Co,", "Tuning &lt;JVM&gt; pauses", "Ünïcödé everywhere ✨", "October 19, 2026")
+                .endsWith("</body></html>");
+        assertThat(forAda.replace("Ada &amp; Co,", "Bob,")).isEqualTo(forBob);
+    }
+
+    @Test
+    void authorLinksAreEncodedAndEscaped() throws Exception {
+        DigestTemplate quoted = DigestTemplate.render("http://localhost:5173", List.of(
+                new EmailDigestService.DigestPost(UUID.randomUUID(), "Quotes", "O'Brien' onmouseover='x <b>",
+                        "o'brien' onmouseover='x <b>", 1)),
+                LocalDate.of(2026, 10, 19));
+        String html = roundTrip(quoted, "reader@example.com", "Reader", new int[] {0});
+
+        assertThat(html)
+                .contains("href='http://localhost:5173/profile/o&#39;brien&#39;%20onmouseover=&#39;x%20%3Cb%3E'")
+                .doesNotContain("onmouseover='");
+    }
+
+    @Test
+    void picksChooseAndOrderTheCards() throws Exception {
+        String html = roundTrip("grace@example.com", "Grace", new int[] {4, 0});
+
+        assertThat(html)
+                .contains("Here are 2 posts from the past week picked for you:", ">#1<", ">#2<")
+                .doesNotContain("Keyset paging", ">#3<");
+        assertThat(html.indexOf(">#1<")).isLessThan(html.indexOf("Ünïcödé everywhere ✨"));
+        assertThat(html.indexOf("Ünïcödé everywhere ✨")).isLessThan(html.indexOf(">#2<"));
+        assertThat(html.indexOf(">#2<")).isLessThan(html.indexOf("Tuning &lt;JVM&gt; pauses"));
+    }
+
+    @Test
+    void perRecipientCostDoesNotGrowWithTheBody() throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<DataSource> bodies = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            bodies.add(template.body("Warm Up " + i, ALL));
+        }
+        bodies.clear();
+
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            bodies.add(template.body("Reader " + i, ALL));
+        }
+        long perRecipient = (threads.getThreadAllocatedBytes(threadId) - before) / 10_000;
+
+        assertThat(template.sharedSize()).isGreaterThan(5_000);
+        assertThat(perRecipient).isLessThan(template.sharedSize() / 10);
+    }
+
+    private String roundTrip(String email, String name, int[] picks) throws Exception {
+        return roundTrip(template, email, name, picks);
+    }
+
+    private String roundTrip(DigestTemplate template, String email, String name, int[] picks) throws Exception {
+        MimeMessage message = new MimeMessage(SESSION);
+        template.fill(message, email, name, picks);
+        message.saveChanges();
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        message.writeTo(wire);
+
+        MimeMessage received = new MimeMessage(SESSION, new ByteArrayInputStream(wire.toByteArray()));
+        assertThat(received.getSubject()).isEqualTo("📬 Your Weekly Phoenix Digest");
+        assertThat(received.getAllRecipients()[0].toString()).isEqualTo(email);
+        Multipart content = (Multipart) received.getContent();
+        return (String) content.getBodyPart(0).getContent();
+    }
+}
@@ -0,0 +1,187 @@
+package com.phoenix.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.phoenix.entity.DigestRun;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.PostStatus;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.DigestRunRepository;
+import com.phoenix.repository.EmailOutboxRepository;
+import com.phoenix.repository.JobLockRepository;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.UserRepository;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Sends real SMTP traffic to an in-process GreenMail server. */
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "app.digest.chunk-size=2",
+        "app.email.smtp-rate-per-second=1000"
+})
+class EmailDigestServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test@example.com", "test-password"));
+
+    @Autowired
+    private EmailDigestService emailDigestService;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        digestRunRepository.deleteAll();
+        emailOutboxRepository.deleteAll();
+        jobLockRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void sendsOneDigestPerSubscriberAndRecordsTheRun() throws Exception {
+        User author = createUser("digest-author@example.com", true);
+        createUser("digest-a@example.com", true);
+        createUser("digest-b@example.com", true);
+        createUser("digest-c@example.com", true);
+        createUser("digest-d@example.com", true);
+        createUser("digest-optout@example.com", false);
+        createPost(author, "Top of the week");
+
+        emailDigestService.sendWeeklyDigest();
+
+        // Delivered from the outbox once each chunk commits
+        assertThat(smtp.waitForIncomingEmail(10_000, 5)).isTrue();
+        assertThat(recipients()).containsExactlyInAnyOrder("digest-author@example.com", "digest-a@example.com",
+                "digest-b@example.com", "digest-c@example.com", "digest-d@example.com");
+        assertThat(html(smtp.getReceivedMessages()[0])).contains("Top of the week");
+        DigestRun run = digestRunRepository.findById(currentRunKey()).orElseThrow();
+        assertThat(run.getCompletedAt()).isNotNull();
+        assertThat(run.getQueuedCount()).isEqualTo(5);
+        assertThat(run.getSkippedCount()).isZero();
+        // sent_count keeps its pre-outbox meaning; queueing does not touch it
+        assertThat(run.getSentCount()).isZero();
+
+        // A second trigger in the same week sends nothing.
+        jobLockRepository.deleteAll();
+        emailDigestService.sendWeeklyDigest();
+        assertThat(smtp.waitForIncomingEmail(1_000, 6)).isFalse();
+    }
+
+    @Test
+    void resumesAfterTheCheckpointInsteadOfResending() throws Exception {
+        User author = createUser("resume-author@example.com", true);
+        createUser("resume-a@example.com", true);
+        createUser("resume-b@example.com", true);
+        createUser("resume-c@example.com", true);
+        createPost(author, "Still on top");
+
+        List<Object[]> ordered = userRepository.findDigestRecipientsAfter(new UUID(0, 0), PageRequest.of(0, 10));
+        // A previous run, started after the post went live, queued the first two recipients before dying.
+        digestRunRepository.save(DigestRun.builder()
+                .runKey(currentRunKey())
+                .lastUserId((UUID) ordered.get(1)[0])
+                .queuedCount(2)
+                .startedAt(LocalDateTime.now(ZoneOffset.UTC))
+                .build());
+
+        emailDigestService.sendWeeklyDigest();
+
+        assertThat(smtp.waitForIncomingEmail(10_000, 2)).isTrue();
+
+        assertThat(recipients()).containsExactlyInAnyOrder((String) ordered.get(2)[1], (String) ordered.get(3)[1]);
+        DigestRun run = digestRunRepository.findById(currentRunKey()).orElseThrow();
+        assertThat(run.getQueuedCount()).isEqualTo(4);
+        assertThat(run.getCompletedAt()).isNotNull();
+    }
+
+    private List<String> recipients() {
+        return Arrays.stream(smtp.getReceivedMessages())
+                .map(this::recipient)
+                .toList();
+    }
+
+    private String recipient(MimeMessage message) {
+        try {
+            return message.getAllRecipients()[0].toString();
+        } catch (jakarta.mail.MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String html(Part part) throws Exception {
+        if (part.isMimeType("text/html")) {
+            return (String) part.getContent();
+        }
+        if (part.getContent() instanceof Multipart multipart) {
+            for (int i = 0; i < multipart.getCount(); i++) {
+                String found = html(multipart.getBodyPart(i));
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String currentRunKey() {
+        return EmailDigestService.runKey(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    private User createUser(String email, boolean digest) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name(email.substring(0, email.indexOf('@')))
+                .role(UserRole.ROLE_USER)
+                .emailDigestEnabled(digest)
+                .build();
+        return userRepository.save(Objects.requireNonNull(user));
+    }
+
+    private void createPost(User author, String title) {
+        Post post = Post.builder()
+                .title(title)
+                .content("content for " + title)
+                .author(author)
+                .status(PostStatus.PUBLISHED)
+                .build();
+        postRepository.save(Objects.requireNonNull(post));
+    }
+}
@@ -0,0 +1,194 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.ForgotPasswordRequest;
+import com.phoenix.entity.EmailKind;
+import com.phoenix.entity.EmailOutbox;
+import com.phoenix.entity.EmailStatus;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.EmailOutboxRepository;
+import com.phoenix.repository.JobLockRepository;
+import com.phoenix.repository.PasswordResetTokenRepository;
+import com.phoenix.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "app.email.max-attempts=2")
+class EmailOutboxSenderTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxSender emailOutboxSender;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository.deleteAll();
+        jobLockRepository.deleteAll();
+        when(javaMailSender.createMimeMessage()).thenAnswer(invocation ->
+                new MimeMessage(Session.getInstance(new Properties())));
+    }
+
+    @Test
+    void forgotPasswordReturnsBeforeSlowSmtpAndTheMailIsSentAfterwards() throws Exception {
+        passwordResetTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        userRepository.save(Objects.requireNonNull(User.builder()
+                .email("outbox-reset@example.com")
+                .password("password")
+                .name("Outbox Reset")
+                .role(UserRole.ROLE_USER)
+                .build()));
+        CountDownLatch smtpReleased = new CountDownLatch(1);
+        doAnswer(invocation -> smtpReleased.await(10, TimeUnit.SECONDS))
+                .when(javaMailSender).send(any(MimeMessage.class));
+
+        ForgotPasswordRequest request = new ForgotPasswordRequest();
+        request.setEmail("outbox-reset@example.com");
+        long start = System.nanoTime();
+        authService.forgotPassword(request);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isLessThan(2_000);
+        EmailOutbox queued = emailOutboxRepository.findAll().get(0);
+        assertThat(queued.getKind()).isEqualTo(EmailKind.PASSWORD_RESET);
+        assertThat(queued.getRecipient()).isEqualTo("outbox-reset@example.com");
+        assertThat(queued.getBody()).contains("/reset-password?token=");
+
+        smtpReleased.countDown();
+        await().atMost(Duration.ofSeconds(10)).until(() ->
+                emailOutboxRepository.findById(queued.getId()).orElseThrow().getStatus() == EmailStatus.SENT);
+    }
+
+    @Test
+    void failedSendsBackOffAndAreDeadLetteredAfterMaxAttempts() {
+        doThrow(new MailSendException("Connection refused")).when(javaMailSender).send(any(MimeMessage.class));
+
+        emailService.queuePasswordResetEmail("unreachable@example.com", "http://localhost/reset", Duration.ofHours(1));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> single().getAttempts() == 1);
+        EmailOutbox retrying = single();
+        assertThat(retrying.getStatus()).isEqualTo(EmailStatus.PENDING);
+        assertThat(retrying.getLastError()).contains("Connection refused");
+        assertThat(retrying.getNextAttemptAt()).isAfter(LocalDateTime.now(ZoneOffset.UTC).plusSeconds(25));
+
+        // Not due yet: another drain leaves it alone.
+        emailOutboxSender.drain();
+        assertThat(single().getAttempts()).isEqualTo(1);
+
+        retrying.setNextAttemptAt(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+        emailOutboxRepository.save(retrying);
+        emailOutboxSender.drain();
+
+        EmailOutbox dead = single();
+        assertThat(dead.getStatus()).isEqualTo(EmailStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void resetMailIsDeadLetteredOnceItsLinkHasExpired() {
+        doThrow(new MailSendException("Connection refused")).when(javaMailSender).send(any(MimeMessage.class));
+
+        // The first retry would come after the link has expired
+        emailService.queuePasswordResetEmail("short-lived@example.com", "http://localhost/reset", Duration.ofSeconds(20));
+        await().atMost(Duration.ofSeconds(10)).until(() -> single().getStatus() == EmailStatus.DEAD);
+        assertThat(single().getAttempts()).isEqualTo(1);
+
+        // Due but already expired: dropped without talking to SMTP
+        emailOutboxRepository.deleteAll();
+        emailOutboxRepository.save(Objects.requireNonNull(EmailOutbox.builder()
+                .kind(EmailKind.PASSWORD_RESET)
+                .recipient("expired@example.com")
+                .subject("Reset")
+                .body("http://localhost/reset")
+                .nextAttemptAt(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1))
+                .expiresAt(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1))
+                .build()));
+        clearInvocations(javaMailSender);
+        emailOutboxSender.drain();
+
+        EmailOutbox expired = single();
+        assertThat(expired.getStatus()).isEqualTo(EmailStatus.DEAD);
+        assertThat(expired.getLastError()).contains("Expired");
+        verify(javaMailSender, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void aBurstOfMailWhileDrainingStartsNoFurtherDrains() throws Exception {
+        CountDownLatch smtpReleased = new CountDownLatch(1);
+        doAnswer(invocation -> smtpReleased.await(10, TimeUnit.SECONDS))
+                .when(javaMailSender).send(any(MimeMessage.class));
+        double skipped = meterRegistry.counter("phoenix.job.skipped", "job", "email-outbox").count();
+
+        for (int i = 0; i < 20; i++) {
+            emailService.queuePasswordResetEmail("burst-" + i + "@example.com", "http://localhost/reset", Duration.ofHours(1));
+        }
+        smtpReleased.countDown();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> emailOutboxRepository.findAll().stream()
+                .allMatch(e -> e.getStatus() == EmailStatus.SENT));
+        assertThat(meterRegistry.counter("phoenix.job.skipped", "job", "email-outbox").count()).isEqualTo(skipped);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertThat(EmailOutboxSender.backoff(1)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(36));
+        assertThat(EmailOutboxSender.backoff(3)).isBetween(Duration.ofSeconds(120), Duration.ofSeconds(144));
+        assertThat(EmailOutboxSender.backoff(30)).isBetween(Duration.ofHours(6), Duration.ofHours(6).plusMinutes(72));
+    }
+
+    private EmailOutbox single() {
+        List<EmailOutbox> all = emailOutboxRepository.findAll();
+        assertThat(all).hasSize(1);
+        return all.get(0);
+    }
+}
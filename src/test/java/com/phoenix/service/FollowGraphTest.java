@@ -0,0 +1,159 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.Follow;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+class FollowGraphTest {
+
+    private static final int USERS = 80;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        followRepository.deleteAll();
+        for (int i = 0; i < USERS; i++) {
+            String name = "graph-user-" + i;
+            users.add(userRepository.save(Objects.requireNonNull(User.builder()
+                    .email(name + "@example.com")
+                    .password("password")
+                    .name(name)
+                    .role(UserRole.ROLE_USER)
+                    .build())));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAll();
+        followRepository.deleteAll();
+        userRepository.deleteAll(users);
+        followGraph.rebuild();
+    }
+
+    @Test
+    void rebuildLoadsEveryEdgeFromAllPartitions() {
+        Random random = new Random(42);
+        List<Follow> follows = new ArrayList<>();
+        for (User follower : users) {
+            for (User following : users) {
+                if (follower != following && random.nextInt(8) == 0) {
+                    follows.add(Follow.builder().follower(follower).following(following).build());
+                }
+            }
+        }
+        followRepository.saveAll(follows);
+
+        followGraph.rebuild();
+
+        Map<UUID, List<UUID>> following = new HashMap<>();
+        Map<UUID, Long> followers = new HashMap<>();
+        for (Follow follow : follows) {
+            following.computeIfAbsent(follow.getFollower().getId(), id -> new ArrayList<>()).add(follow.getFollowing().getId());
+            followers.merge(follow.getFollowing().getId(), 1L, Long::sum);
+        }
+        for (User user : users) {
+            List<UUID> expected = following.getOrDefault(user.getId(), List.of());
+            assertThat(followGraph.following(user.getId())).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(followGraph.followingCount(user.getId())).isEqualTo(expected.size());
+            assertThat(followGraph.followersCount(user.getId())).isEqualTo(followers.getOrDefault(user.getId(), 0L));
+        }
+        Follow some = follows.get(0);
+        assertThat(followGraph.isFollowing(some.getFollower().getId(), some.getFollowing().getId())).isTrue();
+    }
+
+    @Test
+    void followsAreAppliedOnCommitAndReadWithoutQueries() {
+        User fan = users.get(0);
+        User author = users.get(1);
+        userDirectory.findId(author.getName());
+        userDirectory.findId(fan.getName());
+
+        assertThat(followService.toggleFollow(author.getName(), fan.getEmail())).isTrue();
+        await().atMost(Duration.ofSeconds(5)).until(() -> notificationRepository.count() == 1);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        long followers = followService.getFollowersCount(author.getName());
+        long followingCount = followService.getFollowingCount(fan.getName());
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(followService.isFollowing(author.getName(), fan.getId())).isTrue();
+        assertThat(followers).isEqualTo(1);
+        assertThat(followingCount).isEqualTo(1);
+        assertThat(followGraph.followers(author.getId())).containsExactly(fan.getId());
+
+        assertThat(followService.toggleFollow(author.getName(), fan.getEmail())).isFalse();
+        assertThat(followService.isFollowing(author.getName(), fan.getId())).isFalse();
+        assertThat(followService.getFollowersCount(author.getName())).isZero();
+        assertThat(followGraph.following(fan.getId())).isEmpty();
+    }
+
+    @Test
+    void followStatusIsReadFromTheDatabaseSoAFollowMadeElsewhereIsNotUndone() {
+        User fan = users.get(0);
+        User author = users.get(1);
+        // As if followed through another instance: no event reaches this graph until its rebuild
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(fan).following(author).build()));
+        assertThat(followGraph.isFollowing(fan.getId(), author.getId())).isFalse();
+
+        assertThat(followService.isFollowing(author.getName(), fan.getId())).isTrue();
+        assertThat(followService.toggleFollow(author.getName(), fan.getEmail())).isFalse();
+        assertThat(followRepository.existsByFollowerIdAndFollowingId(fan.getId(), author.getId())).isFalse();
+        assertThat(followService.isFollowing(author.getName(), fan.getId())).isFalse();
+    }
+}
@@ -0,0 +1,256 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.FollowSuggestionResponse;
+import com.phoenix.entity.Follow;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.PostStatus;
+import com.phoenix.entity.Reaction;
+import com.phoenix.entity.ReactionType;
+import com.phoenix.entity.Tag;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.FollowSuggestionRepository;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.ReactionRepository;
+import com.phoenix.repository.TagRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FollowSuggestionServiceTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private FollowSuggestionService followSuggestionService;
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private FollowSuggestionRepository followSuggestionRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private ReactionRepository reactionRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Tag> tags = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        followSuggestionRepository.deleteAll();
+        notificationRepository.deleteAll();
+        reactionRepository.deleteAll();
+        followRepository.deleteAll();
+        postRepository.deleteAll();
+        tagRepository.deleteAll(tags);
+        userRepository.deleteAll(users);
+        followGraph.rebuild();
+    }
+
+    @Test
+    void ranksFriendsOfFriendsCoReactorsAndSharedTags() {
+        // 0 follows 1 and 2; 1 follows 3 and 4; 2 follows 3. 0 and 5 both reacted to
+        // post 0 (by 4, tag 0); 3 writes tag 1, 5 writes tag 0, 1 is followed already.
+        int[][] following = {{1, 2}, {3, 4}, {3}, {}, {}, {}};
+        int[][] reactedPosts = {{0}, {}, {}, {}, {}, {0}};
+        int[] postAuthor = {4, 3, 5, 1};
+        int[][] postTags = {{0}, {1}, {0}, {0}};
+        FollowSuggestionService.Inputs inputs = FollowSuggestionService.Inputs.of(
+                userIds(6), following, reactedPosts, postAuthor, postTags, 2);
+
+        FollowSuggestionService.Suggestion[][] ranked = new FollowSuggestionService.Ranker(inputs)
+                .rank(ForkJoinPool.commonPool(), 0, 6);
+
+        assertThat(Arrays.stream(ranked[0]).map(FollowSuggestionService.Suggestion::suggested)).containsExactly(4, 5, 3);
+        assertThat(ranked[0][0].score()).isEqualTo(3.0);
+        assertThat(ranked[0][0].mutualFollows()).isEqualTo(1);
+        assertThat(ranked[0][0].sharedTags()).isEqualTo(1);
+        assertThat(ranked[0][1].coReactions()).isEqualTo(1);
+        assertThat(ranked[0][2].mutualFollows()).isEqualTo(2);
+        assertThat(ranked[0][2].position()).isEqualTo(2);
+        // 5's only neighbour is 0, who has written nothing
+        assertThat(ranked[5]).isEmpty();
+    }
+
+    @Test
+    void ranksEveryUserOfALargeGraph() {
+        int users = 20_000;
+        int posts = 50_000;
+        Random random = new Random(7);
+        int[][] following = new int[users][];
+        int[][] reactedPosts = new int[users][];
+        for (int user = 0; user < users; user++) {
+            following[user] = distinct(random, 50, users / 10, users);
+            reactedPosts[user] = distinct(random, 100, posts / 10, posts);
+        }
+        int[] postAuthor = new int[posts];
+        int[][] postTags = new int[posts][];
+        for (int post = 0; post < posts; post++) {
+            postAuthor[post] = random.nextInt(users / 4);
+            postTags[post] = distinct(random, 3, 20, 200);
+        }
+
+        FollowSuggestionService.Inputs inputs = FollowSuggestionService.Inputs.of(
+                userIds(users), following, reactedPosts, postAuthor, postTags, 200);
+        FollowSuggestionService.Suggestion[][] ranked = new FollowSuggestionService.Ranker(inputs)
+                .rank(ForkJoinPool.commonPool(), 0, users);
+
+        assertThat(Arrays.stream(ranked).filter(r -> r.length == FollowSuggestionService.TOP_K).count())
+                .isGreaterThan(users * 9L / 10);
+        for (int user = 0; user < users; user += 997) {
+            for (FollowSuggestionService.Suggestion suggestion : ranked[user]) {
+                assertThat(suggestion.suggested()).isNotEqualTo(user);
+                assertThat(Arrays.binarySearch(following[user], suggestion.suggested())).isNegative();
+            }
+        }
+    }
+
+    @Test
+    void suggestionsAreStoredNightlyAndServedInOneQuery() throws Exception {
+        User reader = user("suggest-reader");
+        User friend = user("suggest-friend");
+        User writer = user("suggest-writer");
+        User followed = user("suggest-followed");
+        follow(reader, friend);
+        follow(reader, followed);
+        follow(friend, writer);
+        follow(friend, followed);
+        Post post = post(writer, "suggest-tag");
+        post(followed, null);
+        reactionRepository.save(Objects.requireNonNull(Reaction.builder()
+                .post(post).user(reader).type(ReactionType.LIKE).build()));
+        followGraph.rebuild();
+
+        followSuggestionService.recompute();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        List<FollowSuggestionResponse> suggestions = followSuggestionService.getSuggestions(reader.getId(), 10);
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(suggestions).extracting(FollowSuggestionResponse::getUsername).containsExactly("suggest-writer");
+        assertThat(suggestions.get(0).getMutualFollows()).isEqualTo(1);
+        assertThat(suggestions.get(0).getSharedTags()).isEqualTo(1);
+        assertThatThrownBy(() -> followSuggestionService.getSuggestions(reader.getId(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(reader);
+        mockMvc.perform(get("/api/users/me/suggestions").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].username").value("suggest-writer"));
+        mockMvc.perform(get("/api/users/me/suggestions"))
+                .andExpect(status().isForbidden());
+
+        // Following the author hides the stored suggestion straight away, even when the
+        // follow was made on another instance and this one's graph has not seen it
+        follow(reader, writer);
+        assertThat(followGraph.isFollowing(reader.getId(), writer.getId())).isFalse();
+        assertThat(followSuggestionService.getSuggestions(reader.getId(), 10)).isEmpty();
+    }
+
+    private static UUID[] userIds(int users) {
+        UUID[] ids = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = UUID.randomUUID();
+        }
+        return ids;
+    }
+
+    /** {@code count} distinct ids below {@code bound}, ascending; half drawn from the popular first {@code hot}. */
+    private static int[] distinct(Random random, int count, int hot, int bound) {
+        Set<Integer> ids = new HashSet<>();
+        while (ids.size() < count) {
+            ids.add(random.nextBoolean() ? random.nextInt(hot) : random.nextInt(bound));
+        }
+        return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private void follow(User follower, User following) {
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(follower).following(following).build()));
+    }
+
+    private Post post(User author, String tagName) {
+        Post post = Post.builder()
+                .title("Post by " + author.getName())
+                .content("content")
+                .author(author)
+                .status(PostStatus.PUBLISHED)
+                .build();
+        if (tagName != null) {
+            post.getTags().add(Tag.builder().name(tagName).build());
+        }
+        post = postRepository.save(post);
+        tags.addAll(post.getTags());
+        return post;
+    }
+
+    private User user(String name) {
+        User user = userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+        users.add(user);
+        return user;
+    }
+}
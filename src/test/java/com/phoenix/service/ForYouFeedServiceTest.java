@@ -0,0 +1,236 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.PagedResponse;
+import com.phoenix.dto.PostRequest;
+import com.phoenix.dto.PostResponse;
+import com.phoenix.entity.Follow;
+import com.phoenix.entity.Post;
+import com.phoenix.entity.PostStatus;
+import com.phoenix.entity.Reaction;
+import com.phoenix.entity.ReactionType;
+import com.phoenix.entity.Tag;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.PostRepository;
+import com.phoenix.repository.ReactionRepository;
+import com.phoenix.repository.TagRepository;
+import com.phoenix.repository.UserRepository;
+import com.phoenix.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ForYouFeedServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private ForYouFeedService forYouFeedService;
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TagBitmapIndex tagBitmapIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private ReactionRepository reactionRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Tag> tags = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        reactionRepository.deleteAll();
+        followRepository.deleteAll();
+        postRepository.deleteAll();
+        tagRepository.deleteAll(tags);
+        userRepository.deleteAll(users);
+        followGraph.rebuild();
+        tagBitmapIndex.rebuild();
+    }
+
+    @Test
+    void ranksOnRecencyEngagementAndAffinityCappedPerAuthor() {
+        UUID viewer = UUID.randomUUID();
+        UUID followed = UUID.randomUUID();
+        UUID prolific = UUID.randomUUID();
+        UUID stranger = UUID.randomUUID();
+        ForYouFeedService.Candidate fresh = candidate(stranger, 1, 0, List.of());
+        ForYouFeedService.Candidate stale = candidate(stranger, 96, 0, List.of());
+        ForYouFeedService.Candidate onTopic = candidate(UUID.randomUUID(), 96, 0, List.of("java"));
+        ForYouFeedService.Candidate popular = candidate(UUID.randomUUID(), 96, 500, List.of());
+        ForYouFeedService.Candidate fromFollowed = candidate(followed, 96, 0, List.of());
+        ForYouFeedService.Candidate own = candidate(viewer, 0, 1_000, List.of("java"));
+        List<ForYouFeedService.Candidate> candidates = new ArrayList<>(List.of(fresh, stale, onTopic, popular, fromFollowed, own));
+        for (int i = 0; i < 5; i++) {
+            candidates.add(candidate(prolific, 48 + i, 0, List.of()));
+        }
+
+        List<UUID> ranked = ForYouFeedService.rank(candidates, viewer, Set.of(followed), Map.of("java", 1.0), NOW);
+
+        assertThat(ranked.subList(0, 4)).containsExactly(
+                popular.postId(), onTopic.postId(), fresh.postId(), fromFollowed.postId());
+        assertThat(ranked).doesNotContain(own.postId());
+        assertThat(ranked.indexOf(fresh.postId())).isLessThan(ranked.indexOf(stale.postId()));
+        assertThat(candidates.stream().filter(c -> c.authorId().equals(prolific)).map(ForYouFeedService.Candidate::postId)
+                .filter(ranked::contains)).hasSize(ForYouFeedService.MAX_PER_AUTHOR);
+    }
+
+    @Test
+    void mergesFollowedTagAndTrendingCandidatesAndCachesTheRanking() throws Exception {
+        User viewer = user("for-you-viewer");
+        User followed = user("for-you-followed");
+        User writer = user("for-you-writer");
+        User star = user("for-you-star");
+        User nobody = user("for-you-nobody");
+        followRepository.save(Objects.requireNonNull(Follow.builder().follower(viewer).following(followed).build()));
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Post fromFollowed = post(followed, "From followed", now.minusHours(2), null);
+        Post liked = post(nobody, "Liked before", now.minusDays(30), "for-you-java");
+        Post onTopic = post(writer, "On topic", now.minusDays(30), "for-you-java");
+        Post trending = post(star, "Trending", now.minusDays(3), null);
+        Post own = post(viewer, "Own", now.minusHours(1), null);
+        Post unrelated = post(nobody, "Old and unrelated", now.minusDays(30), null);
+        react(liked, viewer);
+        for (User fan : List.of(followed, writer, nobody)) {
+            react(trending, fan);
+        }
+        followGraph.rebuild();
+        tagBitmapIndex.rebuild();
+
+        PagedResponse<PostResponse> first = forYouFeedService.getFeed(viewer.getId(), 0, 2);
+        PagedResponse<PostResponse> second = forYouFeedService.getFeed(viewer.getId(), 1, 2);
+
+        List<String> titles = new ArrayList<>();
+        first.getContent().forEach(p -> titles.add(p.getTitle()));
+        second.getContent().forEach(p -> titles.add(p.getTitle()));
+        assertThat(titles).contains(fromFollowed.getTitle(), onTopic.getTitle(), trending.getTitle())
+                .doesNotContain(own.getTitle(), unrelated.getTitle());
+        assertThat(first.getTotalElements()).isEqualTo(second.getTotalElements());
+        assertThat(stageCount("ranking")).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("phoenix.feed.for-you.cache").tag("result", "hit").counter().count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(stageCount("hydration")).isGreaterThanOrEqualTo(2);
+
+        String bearer = "Bearer " + jwtTokenProvider.generateToken(viewer);
+        long rankedBefore = stageCount("ranking");
+        mockMvc.perform(get("/api/posts/for-you").param("size", "10").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value((int) first.getTotalElements()));
+        assertThat(stageCount("ranking")).isEqualTo(rankedBefore);
+        mockMvc.perform(get("/api/posts/for-you"))
+                .andExpect(status().isForbidden());
+
+        // A followed author's new post drops the cached ranking instead of waiting out the TTL
+        PostRequest request = new PostRequest();
+        request.setTitle("Just published");
+        request.setContent("content for Just published");
+        postService.createPost(request, followed.getEmail());
+        long rankedBeforePublish = stageCount("ranking");
+        assertThat(forYouFeedService.getFeed(viewer.getId(), 0, 10).getContent())
+                .extracting(PostResponse::getTitle)
+                .contains("Just published");
+        assertThat(stageCount("ranking")).isEqualTo(rankedBeforePublish + 1);
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("phoenix.feed.for-you").tag("stage", stage).timer().count();
+    }
+
+    private static ForYouFeedService.Candidate candidate(UUID authorId, int hoursOld, long reactions, List<String> tags) {
+        return new ForYouFeedService.Candidate(UUID.randomUUID(), authorId, NOW.minusHours(hoursOld), 0, reactions, 0, tags);
+    }
+
+    private Post post(User author, String title, LocalDateTime createdAt, String tagName) {
+        Post post = Post.builder()
+                .title(title)
+                .content("content for " + title)
+                .author(author)
+                .status(PostStatus.PUBLISHED)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+        Tag existing = tags.stream().filter(t -> t.getName().equals(tagName)).findFirst().orElse(null);
+        if (tagName != null && existing == null) {
+            post.getTags().add(Tag.builder().name(tagName).build());
+        }
+        post = postRepository.save(post);
+        tags.addAll(post.getTags());
+        if (existing != null) {
+            jdbcTemplate.update("insert into post_tags (post_id, tag_id) values (?, ?)", post.getId(), existing.getId());
+        }
+        return post;
+    }
+
+    private void react(Post post, User user) {
+        reactionRepository.save(Objects.requireNonNull(Reaction.builder()
+                .post(post).user(user).type(ReactionType.LIKE).build()));
+    }
+
+    private User user(String name) {
+        User user = userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+        users.add(user);
+        return user;
+    }
+}
@@ -0,0 +1,132 @@
+package com.phoenix.service;
+
+import com.phoenix.PhoenixApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a second application context against the same in-memory database to act
+ * as another instance of the app.
+ */
+@SpringBootTest
+class JobLockServiceTest {
+
+    private static ConfigurableApplicationContext secondNode;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private JobLockService firstLocks;
+
+    private JobLockService secondLocks;
+
+    @BeforeEach
+    void startSecondNode() {
+        // Started here rather than in @BeforeAll so the first context has created the schema.
+        // Passed as arguments: default properties lose to application.properties, and a
+        // create-drop second node would drop the schema the shared contexts use when it closes.
+        if (secondNode == null) {
+            secondNode = new SpringApplicationBuilder(PhoenixApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.jpa.hibernate.ddl-auto=none", "--spring.mail.host=localhost",
+                            "--spring.main.banner-mode=off");
+        }
+        secondLocks = secondNode.getBean(JobLockService.class);
+    }
+
+    @AfterAll
+    static void stopSecondNode() {
+        if (secondNode != null) {
+            secondNode.close();
+            secondNode = null;
+        }
+    }
+
+    @Test
+    void expiredLeaseMovesToTheOtherNodeAndFencesTheOldHolder() throws InterruptedException {
+        String job = "lease-" + UUID.randomUUID();
+        assertThat(firstLocks.getInstanceId()).isNotEqualTo(secondLocks.getInstanceId());
+
+        Optional<JobLockService.Lease> first = firstLocks.tryAcquire(job, Duration.ofMillis(300));
+        assertThat(first).isPresent();
+        assertThat(secondLocks.tryAcquire(job, Duration.ofMinutes(1))).isEmpty();
+        assertThat(firstLocks.renew(first.get(), Duration.ofMillis(300))).isTrue();
+
+        Thread.sleep(400);
+        Optional<JobLockService.Lease> second = secondLocks.tryAcquire(job, Duration.ofMinutes(1));
+        assertThat(second).isPresent();
+        assertThat(second.get().token()).isGreaterThan(first.get().token());
+        assertThat(firstLocks.renew(first.get(), Duration.ofMinutes(1))).isFalse();
+
+        // A stale release must not open the lock the other node now holds.
+        firstLocks.release(first.get(), Duration.ZERO);
+        assertThat(firstLocks.tryAcquire(job, Duration.ofMinutes(1))).isEmpty();
+
+        secondLocks.release(second.get(), Duration.ZERO);
+        assertThat(firstLocks.tryAcquire(job, Duration.ofMinutes(1))).isPresent();
+    }
+
+    @Test
+    void racingNodesRunTheJobOnce() throws Exception {
+        String job = "race-" + UUID.randomUUID();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Boolean>> attempts = List.of(firstLocks, secondLocks, firstLocks, secondLocks).stream()
+                    .map(locks -> (Callable<Boolean>) () -> {
+                        start.await();
+                        return locks.runExclusively(job, Duration.ofMinutes(1), Duration.ofMinutes(1), lease -> {
+                            runs.incrementAndGet();
+                            sleep(200);
+                        });
+                    })
+                    .toList();
+            List<Future<Boolean>> results = attempts.stream().map(pool::submit).toList();
+            start.countDown();
+
+            int ran = 0;
+            for (Future<Boolean> result : results) {
+                ran += result.get() ? 1 : 0;
+            }
+            assertThat(ran).isEqualTo(1);
+            assertThat(runs).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Released, but held closed for lockAtLeastFor.
+        assertThat(secondLocks.runExclusively(job, Duration.ofMinutes(1), Duration.ZERO, lease -> runs.incrementAndGet()))
+                .isFalse();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
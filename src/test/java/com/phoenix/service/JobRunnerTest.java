@@ -0,0 +1,95 @@
+package com.phoenix.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobRunnerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JobRunner jobRunner = new JobRunner(registry);
+
+    @AfterEach
+    void tearDown() {
+        jobRunner.shutdown();
+    }
+
+    @Test
+    void ioJobsRunOnTheirOwnVirtualThreadAndSkipOverlappingRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> digestThread = new AtomicReference<>();
+
+        Future<?> digest = jobRunner.submit(ScheduledJob.WEEKLY_DIGEST, () -> {
+            digestThread.set(Thread.currentThread());
+            await(release);
+        });
+        assertThat(jobRunner.submit(ScheduledJob.WEEKLY_DIGEST, () -> { })).isNull();
+
+        // A blocked digest does not hold up the sweep.
+        jobRunner.submit(ScheduledJob.PUBLISH_SCHEDULED_POSTS, () -> { }).get(5, TimeUnit.SECONDS);
+
+        release.countDown();
+        digest.get(5, TimeUnit.SECONDS);
+        assertThat(digestThread.get().isVirtual()).isTrue();
+        assertThat(registry.get("phoenix.job.skipped").tag("job", "weekly-digest").counter().count()).isEqualTo(1);
+        assertThat(registry.get("phoenix.job.duration").tags("job", "weekly-digest", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("phoenix.job.last.success").tag("job", "weekly-digest").gauge().value()).isPositive();
+        assertThat(registry.get("phoenix.job.lag").tag("job", "publish-scheduled-posts").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cpuJobsShareOnePlatformPool() throws Exception {
+        AtomicReference<Thread> rebuildThread = new AtomicReference<>();
+        AtomicReference<Thread> sweepThread = new AtomicReference<>();
+
+        jobRunner.submit(ScheduledJob.TAG_INDEX_REBUILD, () -> rebuildThread.set(Thread.currentThread()))
+                .get(5, TimeUnit.SECONDS);
+        jobRunner.submit(ScheduledJob.PRESENCE_SWEEP, () -> sweepThread.set(Thread.currentThread()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(rebuildThread.get().isVirtual()).isFalse();
+        assertThat(rebuildThread.get().getName()).startsWith("job-cpu-");
+        assertThat(sweepThread.get().getName()).startsWith("job-cpu-");
+    }
+
+    @Test
+    void runsPastTheirTimeoutAreInterruptedAndFreeTheSlot() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        jobRunner.submit(ScheduledJob.TAG_INDEX_REBUILD, Duration.ofMillis(100), () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<?> next = null;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (next == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            next = jobRunner.submit(ScheduledJob.TAG_INDEX_REBUILD, () -> { });
+        }
+        assertThat(next).isNotNull();
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(registry.get("phoenix.job.duration").tags("job", "tag-index-rebuild", "outcome", "timeout").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.phoenix.service;
+
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.JobLockRepository;
+import com.phoenix.repository.NotificationArchiveRepository;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"app.notifications.archive-after-days=30", "app.notifications.archive-batch-size=2000"})
+class NotificationRetentionTest {
+
+    private static final int USERS = 20;
+    private static final int PER_USER = 1_500;
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationArchiveRepository notificationArchiveRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        notificationArchiveRepository.deleteAll();
+        followRepository.deleteAll();
+        jobLockRepository.deleteAll();
+    }
+
+    @Test
+    void unreadAndListQueriesUseTheRecipientIndex() {
+        String explained = jdbcTemplate.queryForObject("explain select count(*) from notifications " +
+                "where recipient_id = ? and is_read = false", String.class, UUID.randomUUID());
+        assertThat(explained).as(explained).contains("IDX_NOTIFICATIONS_RECIPIENT_READ_CREATED_AT");
+
+        explained = jdbcTemplate.queryForObject("explain select id from notifications where is_read = true " +
+                "and created_at < ? order by created_at limit 100", String.class, LocalDateTime.now());
+        assertThat(explained).as(explained).contains("IDX_NOTIFICATIONS_READ_CREATED_AT");
+    }
+
+    @Test
+    void oldReadNotificationsMoveToTheArchive() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            int n = u;
+            users.add(userRepository.findByEmail("retention-" + n + "@example.com")
+                    .orElseGet(() -> createUser("retention-" + n)));
+        }
+        // Per user: 5 recent unread, 5 old unread, the rest read and spread over the past year
+        List<Object[]> rows = new ArrayList<>();
+        for (User user : users) {
+            for (int i = 0; i < PER_USER; i++) {
+                boolean read = i >= 10;
+                LocalDateTime createdAt = i < 5 ? now.minusHours(i) : now.minusDays(31 + i % 330).minusMinutes(i);
+                rows.add(new Object[]{UUID.randomUUID(), user.getId(), "LIKE", "Fan", "Fan liked your post",
+                        read, 1, Timestamp.valueOf(createdAt)});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into notifications (id, recipient_id, type, actor_name, message, is_read, " +
+                "actor_count, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        String email = users.get(0).getEmail();
+
+        notificationRetentionService.archive();
+
+        assertThat(notificationRepository.count()).isEqualTo(USERS * 10L);
+        assertThat(notificationArchiveRepository.count()).isEqualTo(USERS * (PER_USER - 10L));
+        assertThat(notificationRepository.countByRecipient_EmailAndIsReadFalse(email)).isEqualTo(10);
+        assertThat(notificationRepository.findByRecipient_EmailOrderByCreatedAtDesc(email, PageRequest.of(0, 15))
+                .getTotalElements()).isEqualTo(10);
+    }
+
+    private User createUser(String name) {
+        return userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+    }
+}
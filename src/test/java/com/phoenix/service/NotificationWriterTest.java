@@ -0,0 +1,186 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.NotificationResponse;
+import com.phoenix.entity.Notification;
+import com.phoenix.entity.NotificationType;
+import com.phoenix.entity.User;
+import com.phoenix.entity.UserRole;
+import com.phoenix.event.NotificationRequestedEvent;
+import com.phoenix.repository.FollowRepository;
+import com.phoenix.repository.NotificationRepository;
+import com.phoenix.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = "app.notifications.coalesce-ms=200")
+class NotificationWriterTest {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationWriter notificationWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User writer;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        followRepository.deleteAll();
+        userRepository.findByEmail("notify-reader@example.com").orElseGet(() -> createUser("notify-reader"));
+        writer = userRepository.findByEmail("notify-writer@example.com").orElseGet(() -> createUser("notify-writer"));
+    }
+
+    @Test
+    void followNotificationIsWrittenAfterCommit() {
+        assertThat(followService.toggleFollow("notify-writer", "notify-reader@example.com")).isTrue();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> notificationRepository.count() == 1);
+        Notification notification = notificationRepository.findAll().get(0);
+        assertThat(notification.getType()).isEqualTo(NotificationType.FOLLOW);
+        assertThat(notification.getActorName()).isEqualTo("notify-reader");
+        assertThat(notification.getMessage()).isEqualTo("notify-reader started following you");
+        assertThat(notification.isRead()).isFalse();
+    }
+
+    @Test
+    void rolledBackActionsNotifyNoOne() throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            followService.toggleFollow("notify-writer", "notify-reader@example.com");
+            status.setRollbackOnly();
+        });
+
+        Thread.sleep(500);
+        assertThat(notificationRepository.count()).isZero();
+    }
+
+    @Test
+    void aViralPostCoalescesIntoOneRowPerBucket() {
+        UUID viralPost = UUID.randomUUID();
+        UUID otherPost = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+        for (int i = 0; i < 2_000; i++) {
+            request(viralPost, "Fan " + i, now);
+        }
+        request(otherPost, "Fan 0", now);
+        await().atMost(Duration.ofSeconds(10)).until(() -> notificationRepository.count() == 2);
+
+        // A later burst in the same bucket adds to the existing row
+        for (int i = 2_000; i < 2_500; i++) {
+            request(viralPost, "Fan " + i, now.plusSeconds(1));
+        }
+        await().atMost(Duration.ofSeconds(10)).until(() ->
+                notificationService.getMyNotifications(writer.getEmail(), 0, 10).getContent().get(0).getActorCount() == 2_500);
+
+        assertThat(notificationRepository.count()).isEqualTo(2);
+        List<NotificationResponse> page = notificationService.getMyNotifications(writer.getEmail(), 0, 10).getContent();
+        NotificationResponse viral = page.get(0);
+        assertThat(viral.getPostId()).isEqualTo(viralPost);
+        assertThat(viral.getRecentActors()).containsExactly("Fan 2499", "Fan 2498", "Fan 2497");
+        assertThat(viral.getMessage()).isEqualTo("Fan 2499 and 2499 others reacted to your post \"Viral\"");
+        assertThat(viral.getCreatedAt()).isEqualTo(now.plusSeconds(1));
+        assertThat(page.get(1).getActorCount()).isEqualTo(1);
+        assertThat(page.get(1).getMessage()).isEqualTo("Fan 0 liked your post");
+    }
+
+    @Test
+    void aFailedBatchRollsBackAndCountsEachActorOnce() throws InterruptedException {
+        UUID post = UUID.randomUUID();
+        UUID otherPost = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+        request(post, first, "Fan 0", "Fan 0 liked your post", now);
+        request(otherPost, UUID.randomUUID(), "Fan 1", "Fan 1 liked your post", now);
+        await().atMost(Duration.ofSeconds(5)).until(() -> notificationRepository.count() == 2);
+        double updated = meterRegistry.counter("phoenix.notifications.rows", "write", "updated").count();
+        double dropped = meterRegistry.counter("phoenix.notifications.dropped").count();
+
+        // One flush: a new actor, the first actor again, and an update that violates not null and fails the batch
+        request(post, UUID.randomUUID(), "Fan 2", "Fan 2 liked your post", now.plusSeconds(1));
+        request(post, first, "Fan 0", "Fan 0 liked your post", now.plusSeconds(2));
+        request(otherPost, UUID.randomUUID(), "Fan 3", null, now.plusSeconds(1));
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                meterRegistry.counter("phoenix.notifications.dropped").count() == dropped + 1);
+        Thread.sleep(500);
+
+        List<NotificationResponse> page = notificationService.getMyNotifications(writer.getEmail(), 0, 10).getContent();
+        assertThat(page).extracting(NotificationResponse::getPostId).containsExactly(post, otherPost);
+        assertThat(page.get(0).getActorCount()).isEqualTo(2);
+        assertThat(page.get(1).getActorCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("phoenix.notifications.rows", "write", "updated").count()).isEqualTo(updated + 1);
+
+        // An actor counted in an earlier flush adds nothing later either
+        request(post, first, "Fan 0", "Fan 0 liked your post", now.plusSeconds(3));
+        Thread.sleep(500);
+        assertThat(notificationService.getMyNotifications(writer.getEmail(), 0, 10).getContent().get(0).getActorCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void bucketsSplitByTime() {
+        NotificationType type = NotificationType.COMMENT;
+        UUID post = UUID.randomUUID();
+        LocalDateTime bucketStart = LocalDateTime.of(2026, 10, 19, 9, 0);
+        assertThat(notificationWriter.coalesceKey(type, post, bucketStart.plusMinutes(59)))
+                .isEqualTo(notificationWriter.coalesceKey(type, post, bucketStart))
+                .isNotEqualTo(notificationWriter.coalesceKey(type, post, bucketStart.plusMinutes(60)))
+                .isNotEqualTo(notificationWriter.coalesceKey(NotificationType.REPLY, post, bucketStart));
+    }
+
+    private void request(UUID postId, String actorName, LocalDateTime at) {
+        request(postId, UUID.randomUUID(), actorName, actorName + " liked your post", at);
+    }
+
+    private void request(UUID postId, UUID actorId, String actorName, String message, LocalDateTime at) {
+        notificationWriter.onNotificationRequested(new NotificationRequestedEvent(writer.getId(), actorId,
+                NotificationType.LIKE, actorName, message, postId, "Viral", at));
+    }
+
+    private User createUser(String name) {
+        return userRepository.save(Objects.requireNonNull(User.builder()
+                .email(name + "@example.com")
+                .password("password")
+                .name(name)
+                .role(UserRole.ROLE_USER)
+                .build()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.phoenix.service;
+
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.PostRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostPresenceTrackerTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final MutableClock clock = new MutableClock();
+    private final PostPresenceTracker tracker = new PostPresenceTracker(postRepository, new SimpleMeterRegistry(), 2, clock);
+    private final UUID post = UUID.randomUUID();
+
+    PostPresenceTrackerTest() {
+        when(postRepository.existsVisibleById(any(), any())).thenReturn(true);
+    }
+
+    @Test
+    void countsDistinctReadersOnce() {
+        for (int beat = 0; beat < 3; beat++) {
+            for (int reader = 0; reader < 40; reader++) {
+                tracker.heartbeat(post, "reader:" + reader);
+            }
+            clock.advance(20);
+        }
+
+        assertThat(tracker.readingNow(post)).isBetween(39L, 41L);
+        verify(postRepository, times(1)).existsVisibleById(eq(post), any());
+    }
+
+    @Test
+    void largeAudiencesAreEstimatedWithinTheSketchError() {
+        for (int reader = 0; reader < 20_000; reader++) {
+            tracker.heartbeat(post, "user:reader-" + reader + "@example.com");
+        }
+
+        assertThat(tracker.readingNow(post)).isBetween(17_000L, 23_000L);
+    }
+
+    @Test
+    void readersExpireAsTheWindowSlides() {
+        tracker.heartbeat(post, "early");
+        clock.advance(30);
+        tracker.heartbeat(post, "late");
+        assertThat(tracker.readingNow(post)).isEqualTo(2);
+
+        clock.advance(PostPresenceTracker.WINDOW_SECONDS - 20);
+        assertThat(tracker.readingNow(post)).isEqualTo(1);
+
+        clock.advance(30);
+        assertThat(tracker.readingNow(post)).isZero();
+    }
+
+    @Test
+    void idlePostsAreSweptAndTrackingIsCapped() {
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        tracker.heartbeat(post, "a");
+        tracker.heartbeat(second, "a");
+
+        assertThat(tracker.heartbeat(third, "a")).isZero();
+        assertThat(tracker.readingNow(third)).isZero();
+
+        clock.advance(PostPresenceTracker.WINDOW_SECONDS + PostPresenceTracker.BUCKET_SECONDS);
+        tracker.sweep();
+        assertThat(tracker.heartbeat(third, "a")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownAndHiddenPostsAreNotTracked() {
+        UUID missing = UUID.randomUUID();
+        when(postRepository.existsVisibleById(eq(missing), any())).thenReturn(false);
+
+        assertThat(tracker.heartbeat(missing, "a")).isZero();
+        assertThat(tracker.readingNow(missing)).isZero();
+    }
+
+    @Test
+    void postsThatStopBeingPublicAreForgotten() {
+        tracker.heartbeat(post, "a");
+        assertThat(tracker.readingNow(post)).isEqualTo(1);
+
+        tracker.onVisibilityChanged(new PostVisibilityChangedEvent(post, null, true, List.of(), false, List.of()));
+
+        assertThat(tracker.readingNow(post)).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-10-19T09:00:00Z");
+
+        void advance(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.phoenix.service;
+
+import com.phoenix.dto.TagUsageResponse;
+import com.phoenix.event.PostVisibilityChangedEvent;
+import com.phoenix.repository.TagRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TagUsageCacheTest {
+
+    private final TagRepository tagRepository = mock(TagRepository.class);
+    private final TagUsageCache cache = new TagUsageCache(tagRepository);
+
+    @Test
+    void changesAppliedDuringAReconcileSurviveTheSwap() throws Exception {
+        List<Object[]> before = List.<Object[]>of(new Object[]{"java", 3L});
+        when(tagRepository.countPublishedUsageByTagName()).thenReturn(before);
+        cache.load();
+
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tagRepository.countPublishedUsageByTagName()).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return before;
+        });
+        CompletableFuture<Void> reconcile = CompletableFuture.runAsync(cache::reconcile);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Committed after the reconcile's read began, so the rows it returns miss it
+        cache.onVisibilityChanged(new PostVisibilityChangedEvent(
+                UUID.randomUUID(), LocalDateTime.now(), false, List.of(), true, List.of("java", "spring")));
+        release.countDown();
+        reconcile.get(5, TimeUnit.SECONDS);
+
+        assertThat(cache.getTopTags(null))
+                .containsExactly(new TagUsageResponse("java", 4L), new TagUsageResponse("spring", 1L));
+    }
+}